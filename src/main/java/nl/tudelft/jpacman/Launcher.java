@@ -2,18 +2,28 @@ package nl.tudelft.jpacman;
 
 import java.awt.event.KeyEvent;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 
+import nl.tudelft.jpacman.batch.BatchReport;
+import nl.tudelft.jpacman.batch.BatchRunner;
 import nl.tudelft.jpacman.board.BoardFactory;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.game.Game;
 import nl.tudelft.jpacman.game.GameFactory;
+import nl.tudelft.jpacman.game.TickEngine;
 import nl.tudelft.jpacman.level.Level;
 import nl.tudelft.jpacman.level.LevelFactory;
 import nl.tudelft.jpacman.level.MapParser;
 import nl.tudelft.jpacman.level.Player;
 import nl.tudelft.jpacman.level.PlayerFactory;
 import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
 import nl.tudelft.jpacman.sprite.PacManSprites;
 import nl.tudelft.jpacman.ui.Action;
 import nl.tudelft.jpacman.ui.PacManUI;
@@ -30,10 +40,17 @@ public class Launcher {
     private static final PacManSprites SPRITE_STORE = new PacManSprites();
 
     public static final String DEFAULT_MAP = "/board.txt";
+
+    /**
+     * The command line option that plays a batch of games without a user
+     * interface instead of launching it, see {@link #runBatch(String...)}.
+     */
+    public static final String BATCH_OPTION = "--batch";
     private String levelMap = DEFAULT_MAP;
 
     private PacManUI pacManUI;
     private Game game;
+    private TickEngine engine;
 
     /**
      * @return The game object this launcher will start when {@link #launch()}
@@ -43,6 +60,14 @@ public class Launcher {
         return game;
     }
 
+    /**
+     * @return The engine driving the game of this launcher, which runs in
+     *         real time once {@link #launch()} is called.
+     */
+    public TickEngine getEngine() {
+        return engine;
+    }
+
     /**
      * The map file used to populate the level.
      *
@@ -65,7 +90,8 @@ public class Launcher {
     }
 
     /**
-     * Creates a new game using the level from {@link #makeLevel()}.
+     * Creates a new game using the level from {@link #makeLevel()}, driven
+     * by a new {@link TickEngine} instead of the NPC scheduler.
      *
      * @return a new Game.
      */
@@ -73,6 +99,7 @@ public class Launcher {
         GameFactory gf = getGameFactory();
         Level level = makeLevel();
         game = gf.createSinglePlayerGame(level);
+        engine = new TickEngine(game);
         return game;
     }
 
@@ -116,10 +143,12 @@ public class Launcher {
 
     /**
      * @return A new factory using the sprites from {@link #getSpriteStore()}
-     *         and the ghosts from {@link #getGhostFactory()}.
+     *         and the ghosts from {@link #getGhostFactory()}, which
+     *         precomputes the routes on every board.
      */
     protected LevelFactory getLevelFactory() {
-        return new LevelFactory(getSpriteStore(), getGhostFactory());
+        return new LevelFactory(getSpriteStore(), getGhostFactory())
+            .withRoutingTables();
     }
 
     /**
@@ -144,7 +173,8 @@ public class Launcher {
     }
 
     /**
-     * Adds key events UP, DOWN, LEFT and RIGHT to a game.
+     * Adds key events UP, DOWN, LEFT and RIGHT to a game, which queue the
+     * move of the player for the next tick of the engine.
      *
      * @param builder
      *            The {@link PacManUiBuilder} that will provide the UI.
@@ -158,8 +188,8 @@ public class Launcher {
 
     private Action moveTowardsDirection(Direction direction) {
         return () -> {
-            assert game != null;
-            getGame().move(getSinglePlayer(getGame()), direction);
+            assert engine != null;
+            getEngine().queueMove(getSinglePlayer(getGame()), direction);
         };
     }
 
@@ -172,7 +202,7 @@ public class Launcher {
     }
 
     /**
-     * Creates and starts a JPac-Man game.
+     * Creates and starts a JPac-Man game, and starts its engine in real time.
      */
     public void launch() {
         makeGame();
@@ -180,16 +210,87 @@ public class Launcher {
         addSinglePlayerKeys(builder);
         pacManUI = builder.build(getGame());
         pacManUI.start();
+        engine.startRealTime();
+    }
+
+    /**
+     * Plays a batch of games without a user interface or images, with bots
+     * controlling the players, and writes a report of their results. Besides the options
+     * of {@link BatchRunner#withOption(String, String)}, it accepts
+     * <code>--format csv|json</code> and <code>--out file</code>; the report
+     * is written to the standard output by default.
+     *
+     * @param args
+     *            The options, each followed by its value.
+     * @throws IOException
+     *             When the report could not be written.
+     */
+    public void runBatch(String... args) throws IOException {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Batch option without value: "
+                + args[args.length - 1]);
+        }
+        BatchRunner runner = new BatchRunner(new HeadlessSprites()).withMap(getLevelMap());
+        String format = "csv";
+        String out = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if ("--format".equals(args[i])) {
+                format = args[i + 1];
+            } else if ("--out".equals(args[i])) {
+                out = args[i + 1];
+            } else {
+                runner.withOption(args[i], args[i + 1]);
+            }
+        }
+        BatchReport report = runner.run();
+        Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        if (out != null) {
+            writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8);
+        }
+        writeReport(report, format, writer, out != null);
+        System.err.println(report.summary());
     }
 
     /**
-     * Disposes of the UI. For more information see
+     * Writes a batch report.
+     *
+     * @param report
+     *            The report to write.
+     * @param format
+     *            The format of the report: <code>csv</code> or <code>json</code>.
+     * @param writer
+     *            The writer to write to.
+     * @param close
+     *            <code>true</code> iff the writer should be closed afterwards.
+     * @throws IOException
+     *             When the report could not be written.
+     */
+    private static void writeReport(BatchReport report, String format, Writer writer,
+                                    boolean close) throws IOException {
+        try {
+            if ("json".equals(format)) {
+                report.writeJson(writer);
+            } else if ("csv".equals(format)) {
+                report.writeCsv(writer);
+            } else {
+                throw new IllegalArgumentException("Unknown report format: " + format);
+            }
+        } finally {
+            if (close) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Stops the engine and disposes of the UI. For more information see
      * {@link javax.swing.JFrame#dispose()}.
      *
      * Precondition: The game was launched first.
      */
     public void dispose() {
         assert pacManUI != null;
+        engine.stopRealTime();
         pacManUI.dispose();
     }
 
@@ -197,11 +298,18 @@ public class Launcher {
      * Main execution method for the Launcher.
      *
      * @param args
-     *            The command line arguments - which are ignored.
+     *            The command line arguments, which are ignored unless they
+     *            start with {@value #BATCH_OPTION}; the remaining arguments are
+     *            then passed on to {@link #runBatch(String...)}.
      * @throws IOException
      *             When a resource could not be read.
      */
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && BATCH_OPTION.equals(args[0])) {
+            System.setProperty("java.awt.headless", "true");
+            new Launcher().runBatch(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         new Launcher().launch();
     }
 }
@@ -0,0 +1,157 @@
+package nl.tudelft.jpacman.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The results of a batch of games, with their aggregates, which can be
+ * written as CSV or JSON.
+ */
+public final class BatchReport {
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of percents in a whole.
+     */
+    private static final int PERCENT = 100;
+
+    /**
+     * The results of the games, in the order in which they were numbered.
+     */
+    private final List<GameResult> results;
+
+    /**
+     * Creates a new report.
+     *
+     * @param results
+     *            The results of the games.
+     */
+    public BatchReport(List<GameResult> results) {
+        this.results = ImmutableList.copyOf(results);
+    }
+
+    /**
+     * @return The results of the games, in the order in which they were
+     *         numbered.
+     */
+    public List<GameResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return The number of games won.
+     */
+    public int getWins() {
+        int wins = 0;
+        for (GameResult result : results) {
+            if (result.isWon()) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * @return The fraction of games won, or 0 if no games were played.
+     */
+    public double getWinRate() {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        return (double) getWins() / results.size();
+    }
+
+    /**
+     * @return The mean final score, or 0 if no games were played.
+     */
+    public double getMeanScore() {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        return results.stream().mapToInt(GameResult::getScore).average().getAsDouble();
+    }
+
+    /**
+     * @return The mean number of ticks survived, or 0 if no games were
+     *         played.
+     */
+    public double getMeanTicks() {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        return results.stream().mapToLong(GameResult::getTicks).average().getAsDouble();
+    }
+
+    /**
+     * @return The total CPU time the ghosts spent deciding their moves, in
+     *         nanoseconds.
+     */
+    public long getGhostAiNanos() {
+        return results.stream().mapToLong(GameResult::getGhostAiNanos).sum();
+    }
+
+    /**
+     * Writes the results as CSV, one line per game after a header line.
+     *
+     * @param out
+     *            The writer to write to.
+     * @throws IOException
+     *             When the report could not be written.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("game,seed,won,score,ticks,ghost_ai_ms\n");
+        for (GameResult result : results) {
+            out.write(String.format(Locale.ROOT, "%d,%d,%b,%d,%d,%.3f\n",
+                result.getGame(), result.getSeed(), result.isWon(), result.getScore(),
+                result.getTicks(), result.getGhostAiNanos() / NANOS_PER_MILLI));
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the aggregates and the results as a JSON object.
+     *
+     * @param out
+     *            The writer to write to.
+     * @throws IOException
+     *             When the report could not be written.
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write(String.format(Locale.ROOT,
+            "{\"games\":%d,\"wins\":%d,\"winRate\":%.4f,\"meanScore\":%.2f,"
+                + "\"meanTicks\":%.2f,\"ghostAiMs\":%.3f,\"results\":[",
+            results.size(), getWins(), getWinRate(), getMeanScore(), getMeanTicks(),
+            getGhostAiNanos() / NANOS_PER_MILLI));
+        for (int i = 0; i < results.size(); i++) {
+            GameResult result = results.get(i);
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(String.format(Locale.ROOT,
+                "{\"game\":%d,\"seed\":%d,\"won\":%b,\"score\":%d,\"ticks\":%d,"
+                    + "\"ghostAiMs\":%.3f}",
+                result.getGame(), result.getSeed(), result.isWon(), result.getScore(),
+                result.getTicks(), result.getGhostAiNanos() / NANOS_PER_MILLI));
+        }
+        out.write("]}\n");
+        out.flush();
+    }
+
+    /**
+     * @return A one line summary of the aggregates.
+     */
+    public String summary() {
+        return String.format(Locale.ROOT,
+            "%d games, win rate %.2f%%, mean score %.1f, mean ticks %.1f, ghost AI CPU %.1f ms",
+            results.size(), getWinRate() * PERCENT, getMeanScore(), getMeanTicks(),
+            getGhostAiNanos() / NANOS_PER_MILLI);
+    }
+}
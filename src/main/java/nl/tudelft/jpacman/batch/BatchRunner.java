@@ -0,0 +1,327 @@
+package nl.tudelft.jpacman.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import nl.tudelft.jpacman.Launcher;
+import nl.tudelft.jpacman.PacmanConfigurationException;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.game.Game;
+import nl.tudelft.jpacman.game.GameFactory;
+import nl.tudelft.jpacman.game.TickEngine;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+/**
+ * Plays a batch of games without a user interface, with bots controlling the
+ * players. Every game runs on its own {@link TickEngine} as fast as
+ * possible, and the games run in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>
+ * Game <code>i</code> of a batch with seed <code>s</code> uses the seed
+ * <code>s + i</code> for both its level and its bot, so that batches with the
+ * same settings give the same results.
+ * </p>
+ */
+public class BatchRunner {
+
+    /**
+     * The default number of games in a batch.
+     */
+    public static final int DEFAULT_GAMES = 100;
+
+    /**
+     * The default maximum number of ticks of a game: ten minutes.
+     */
+    public static final long DEFAULT_MAX_TICKS = 60_000L;
+
+    /**
+     * The time between two moves of a bot in milliseconds.
+     */
+    private static final long PLAYER_INTERVAL = 200L;
+
+    /**
+     * The sprites of the units, which are never drawn.
+     */
+    private final PacManSprites sprites;
+
+    /**
+     * The name of the map resource to play.
+     */
+    private String mapName = Launcher.DEFAULT_MAP;
+
+    /**
+     * The number of games to play.
+     */
+    private int games = DEFAULT_GAMES;
+
+    /**
+     * The name of the bot strategy, see {@link BotStrategy#create(String, long)}.
+     */
+    private String botName = PelletBot.NAME;
+
+    /**
+     * The seed of the batch.
+     */
+    private long seed;
+
+    /**
+     * The maximum number of ticks of a game.
+     */
+    private long maxTicks = DEFAULT_MAX_TICKS;
+
+    /**
+     * The number of games played at the same time.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The distance from the player beyond which ghosts do not run their AI.
+     */
+    private int detailDistance = Ghost.FULL_DETAIL;
+
+    /**
+     * Creates a new runner with the default settings.
+     *
+     * @param spriteStore
+     *            The sprites of the units.
+     */
+    public BatchRunner(PacManSprites spriteStore) {
+        this.sprites = spriteStore;
+    }
+
+    /**
+     * @param name
+     *            The name of the map resource to play.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withMap(String name) {
+        this.mapName = name;
+        return this;
+    }
+
+    /**
+     * @param count
+     *            The number of games to play.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withGames(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Number of games is negative: " + count);
+        }
+        this.games = count;
+        return this;
+    }
+
+    /**
+     * @param name
+     *            The name of the bot strategy playing the games.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withBot(String name) {
+        BotStrategy.create(name, 0L);
+        this.botName = name;
+        return this;
+    }
+
+    /**
+     * @param batchSeed
+     *            The seed of the batch.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withSeed(long batchSeed) {
+        this.seed = batchSeed;
+        return this;
+    }
+
+    /**
+     * @param ticks
+     *            The maximum number of ticks of a game.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withMaxTicks(long ticks) {
+        this.maxTicks = ticks;
+        return this;
+    }
+
+    /**
+     * @param threads
+     *            The number of games played at the same time, at least 1.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + threads);
+        }
+        this.parallelism = threads;
+        return this;
+    }
+
+    /**
+     * Lets ghosts farther from the player than the given distance follow the
+     * corridors instead of running their AI, see
+     * {@link Ghost#setDetailDistance(int)}. Comparing the ghost AI time and
+     * the results of batches with and without this shows what the level of
+     * detail saves and what it costs in gameplay.
+     *
+     * @param distance
+     *            The distance in squares.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withDetailDistance(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Negative distance: " + distance);
+        }
+        this.detailDistance = distance;
+        return this;
+    }
+
+    /**
+     * Applies a command line option to this runner.
+     *
+     * @param option
+     *            The name of the option: <code>--map</code>,
+     *            <code>--games</code>, <code>--bot</code>, <code>--seed</code>,
+     *            <code>--max-ticks</code>, <code>--threads</code> or
+     *            <code>--detail-distance</code>.
+     * @param value
+     *            The value of the option.
+     * @return This runner, to allow chaining.
+     */
+    public BatchRunner withOption(String option, String value) {
+        switch (option) {
+            case "--map":
+                return withMap(value);
+            case "--games":
+                return withGames(Integer.parseInt(value));
+            case "--bot":
+                return withBot(value);
+            case "--seed":
+                return withSeed(Long.parseLong(value));
+            case "--max-ticks":
+                return withMaxTicks(Long.parseLong(value));
+            case "--threads":
+                return withParallelism(Integer.parseInt(value));
+            case "--detail-distance":
+                return withDetailDistance(Integer.parseInt(value));
+            default:
+                throw new IllegalArgumentException("Unknown batch option: " + option);
+        }
+    }
+
+    /**
+     * Plays all games of the batch.
+     *
+     * @return The report of the batch.
+     */
+    public BatchReport run() {
+        List<String> map = readMap();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<GameResult> results = pool.submit(() -> IntStream.range(0, games)
+                .parallel()
+                .mapToObj(game -> play(map, game))
+                .collect(Collectors.toList())).get();
+            return new BatchReport(results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while playing games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to play games", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a single game until it is won or lost, or until it takes too many
+     * ticks.
+     *
+     * @param map
+     *            The rows of the map to play.
+     * @param number
+     *            The number of the game within the batch.
+     * @return The result of the game.
+     */
+    GameResult play(List<String> map, int number) {
+        Game game = createGame(map, seed + number);
+        Player player = game.getPlayers().get(0);
+        BotStrategy bot = BotStrategy.create(botName, seed + number);
+        TickEngine engine = new TickEngine(game);
+        long playerTicks = engine.ticks(PLAYER_INTERVAL);
+
+        game.start();
+        while (game.isInProgress() && engine.getTick() < maxTicks) {
+            if (engine.getTick() % playerTicks == 0) {
+                Direction direction = bot.nextMove(player);
+                if (direction != null) {
+                    engine.queueMove(player, direction);
+                }
+            }
+            engine.step();
+        }
+        game.stop();
+
+        Level level = game.getLevel();
+        boolean won = player.isAlive() && level.remainingPellets() == 0;
+        return new GameResult(number, level.getSeed(), won, player.getScore(),
+            engine.getTick(), engine.getGhostAiNanos());
+    }
+
+    /**
+     * Creates a single player game.
+     *
+     * @param map
+     *            The rows of the map to play.
+     * @param gameSeed
+     *            The seed of the level.
+     * @return A new game that has not been started.
+     */
+    private Game createGame(List<String> map, long gameSeed) {
+        LevelFactory levelFactory = new LevelFactory(sprites, new GhostFactory(sprites))
+            .withRoutingTables()
+            .withDetailDistance(detailDistance)
+            .withSeed(gameSeed);
+        MapParser parser = new MapParser(levelFactory, new BoardFactory(sprites));
+        return new GameFactory(new PlayerFactory(sprites))
+            .createSinglePlayerGame(parser.parseMap(map));
+    }
+
+    /**
+     * Reads the rows of the map to play.
+     *
+     * @return The rows of the map, top row first.
+     */
+    private List<String> readMap() {
+        try (InputStream stream = BatchRunner.class.getResourceAsStream(mapName)) {
+            if (stream == null) {
+                throw new PacmanConfigurationException("Could not get resource for: " + mapName);
+            }
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(stream, StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new PacmanConfigurationException("Unable to read map " + mapName, e);
+        }
+    }
+}
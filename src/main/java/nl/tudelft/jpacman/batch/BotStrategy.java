@@ -0,0 +1,42 @@
+package nl.tudelft.jpacman.batch;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.Player;
+
+/**
+ * A strategy that plays Pac-Man instead of a human player.
+ */
+public interface BotStrategy {
+
+    /**
+     * Decides the next move of a player.
+     *
+     * Precondition: the player occupies a square.
+     *
+     * @param player
+     *            The player to move.
+     * @return The direction to move in, or <code>null</code> to stand still.
+     */
+    Direction nextMove(Player player);
+
+    /**
+     * Creates one of the built-in strategies by name.
+     *
+     * @param name
+     *            The name of the strategy: <code>random</code> or
+     *            <code>pellet</code>.
+     * @param seed
+     *            The seed of the random decisions of the strategy.
+     * @return A new strategy.
+     */
+    static BotStrategy create(String name, long seed) {
+        switch (name) {
+            case RandomBot.NAME:
+                return new RandomBot(seed);
+            case PelletBot.NAME:
+                return new PelletBot(seed);
+            default:
+                throw new IllegalArgumentException("Unknown bot strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nl.tudelft.jpacman.batch;
+
+/**
+ * The outcome of a single game played by a {@link BatchRunner}.
+ */
+public final class GameResult {
+
+    /**
+     * The number of the game within its batch.
+     */
+    private final int game;
+
+    /**
+     * The seed of the level that was played.
+     */
+    private final long seed;
+
+    /**
+     * <code>true</code> iff the player collected all pellets.
+     */
+    private final boolean won;
+
+    /**
+     * The final score of the player.
+     */
+    private final int score;
+
+    /**
+     * The number of ticks the game lasted.
+     */
+    private final long ticks;
+
+    /**
+     * The CPU time the ghosts spent deciding their moves, in nanoseconds.
+     */
+    private final long ghostAiNanos;
+
+    /**
+     * Creates a new result.
+     *
+     * @param game
+     *            The number of the game within its batch.
+     * @param seed
+     *            The seed of the level that was played.
+     * @param won
+     *            <code>true</code> iff the player collected all pellets.
+     * @param score
+     *            The final score of the player.
+     * @param ticks
+     *            The number of ticks the game lasted.
+     * @param ghostAiNanos
+     *            The CPU time the ghosts spent deciding their moves, in
+     *            nanoseconds.
+     */
+    public GameResult(int game, long seed, boolean won, int score, long ticks,
+                      long ghostAiNanos) {
+        this.game = game;
+        this.seed = seed;
+        this.won = won;
+        this.score = score;
+        this.ticks = ticks;
+        this.ghostAiNanos = ghostAiNanos;
+    }
+
+    /**
+     * @return The number of the game within its batch.
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * @return The seed of the level that was played.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return <code>true</code> iff the player collected all pellets.
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * @return The final score of the player.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The number of ticks the game lasted.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return The CPU time the ghosts spent deciding their moves, in nanoseconds.
+     */
+    public long getGhostAiNanos() {
+        return ghostAiNanos;
+    }
+}
@@ -0,0 +1,42 @@
+package nl.tudelft.jpacman.batch;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.Pellet;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.npc.ghost.Navigation;
+
+/**
+ * A bot that heads for the nearest pellet, ignoring the ghosts. It moves
+ * randomly when no pellet can be reached.
+ */
+public class PelletBot extends RandomBot {
+
+    /**
+     * The name of this strategy on the command line.
+     */
+    public static final String NAME = "pellet";
+
+    /**
+     * Creates a new pellet bot.
+     *
+     * @param seed
+     *            The seed of the random decisions of this bot.
+     */
+    public PelletBot(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public Direction nextMove(Player player) {
+        Unit pellet = Navigation.findNearest(Pellet.class, player.getSquare());
+        if (pellet != null) {
+            Direction direction = Navigation.firstStep(
+                player.getSquare(), pellet.getSquare(), player);
+            if (direction != null) {
+                return direction;
+            }
+        }
+        return randomMove(player);
+    }
+}
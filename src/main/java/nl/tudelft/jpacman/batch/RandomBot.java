@@ -0,0 +1,68 @@
+package nl.tudelft.jpacman.batch;
+
+import java.util.SplittableRandom;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.level.Player;
+
+/**
+ * A bot that keeps moving in its direction until it is blocked, and then
+ * turns into a random accessible direction.
+ */
+public class RandomBot implements BotStrategy {
+
+    /**
+     * The name of this strategy on the command line.
+     */
+    public static final String NAME = "random";
+
+    /**
+     * All directions, in a fixed order.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The source of the random decisions of this bot.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a new random bot.
+     *
+     * @param seed
+     *            The seed of the random decisions of this bot.
+     */
+    public RandomBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public Direction nextMove(Player player) {
+        Square square = player.getSquare();
+        if (square.getSquareAt(player.getDirection()).isAccessibleTo(player)) {
+            return player.getDirection();
+        }
+        return randomMove(player);
+    }
+
+    /**
+     * Picks a random accessible direction.
+     *
+     * @param player
+     *            The player to move.
+     * @return A direction the player can move in, or <code>null</code> if
+     *         the player is shut in.
+     */
+    protected Direction randomMove(Player player) {
+        Square square = player.getSquare();
+        int start = random.nextInt(DIRECTIONS.length);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            Direction direction = DIRECTIONS[(start + i) % DIRECTIONS.length];
+            if (square.getSquareAt(direction).isAccessibleTo(player)) {
+                return direction;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,10 @@
 package nl.tudelft.jpacman.board;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A top-down view of a matrix of {@link Square}s.
@@ -9,10 +14,56 @@ package nl.tudelft.jpacman.board;
 public class Board {
 
     /**
-     * The grid of squares with board[x][y] being the square at column x, row y.
+     * The degree of squares that have not been classified, see
+     * {@link #getDegree(Square)}.
+     */
+    public static final int UNCLASSIFIED = -1;
+
+    /**
+     * The degree of corridor squares, which have exactly two accessible
+     * neighbours.
+     */
+    public static final int CORRIDOR = 2;
+
+    /**
+     * The grid of squares with board[x][y] being the square at column x, row y,
+     * or <code>null</code> if a subclass keeps the squares itself.
      */
     private final Square[][] board;
 
+    /**
+     * The number of columns.
+     */
+    private final int width;
+
+    /**
+     * The number of rows.
+     */
+    private final int height;
+
+    /**
+     * The precomputed routes between the squares of this board, or
+     * <code>null</code> if they have not been computed.
+     */
+    private volatile RoutingTable routes;
+
+    /**
+     * The number of accessible neighbours of every square, by index, or
+     * <code>null</code> if the squares have not been classified.
+     */
+    private volatile byte[] degrees;
+
+    /**
+     * The units on this board, grouped by their class.
+     */
+    private final Map<Class<? extends Unit>, Set<Unit>> units = new ConcurrentHashMap<>();
+
+    /**
+     * The listener told about every change of the units on this board, or
+     * <code>null</code>.
+     */
+    private volatile OccupancyListener listener;
+
     /**
      * Creates a new board.
      *
@@ -24,7 +75,32 @@ public class Board {
     Board(Square[][] grid) {
         assert grid != null;
         this.board = grid;
+        this.width = grid.length;
+        this.height = grid[0].length;
         assert invariant() : "Initial grid cannot contain null squares";
+
+        for (int x = 0; x < getWidth(); x++) {
+            for (int y = 0; y < getHeight(); y++) {
+                grid[x][y].placeOn(this, indexOf(x, y));
+                grid[x][y].forEachOccupant(this::unitEntered);
+            }
+        }
+    }
+
+    /**
+     * Creates a new board that keeps its squares itself, see
+     * {@link CompactBoard}.
+     *
+     * @param columns
+     *            The number of columns.
+     * @param rows
+     *            The number of rows.
+     */
+    Board(int columns, int rows) {
+        assert columns > 0 && rows > 0;
+        this.board = null;
+        this.width = columns;
+        this.height = rows;
     }
 
     /**
@@ -32,6 +108,9 @@ public class Board {
      * @return false if any square on the board is null.
      */
     protected final boolean invariant() {
+        if (board == null) {
+            return true;
+        }
         for (Square[] row : board) {
             for (Square square : row) {
                 if (square == null) {
@@ -48,7 +127,7 @@ public class Board {
      * @return The width of this board.
      */
     public int getWidth() {
-        return board.length;
+        return width;
     }
 
     /**
@@ -57,7 +136,7 @@ public class Board {
      * @return The height of this board.
      */
     public int getHeight() {
-        return board[0].length;
+        return height;
     }
 
     /**
@@ -79,6 +158,288 @@ public class Board {
         return result;
     }
 
+    /**
+     * Returns the number of squares on this board.
+     *
+     * @return The number of squares on this board.
+     */
+    public int getSquareCount() {
+        return getWidth() * getHeight();
+    }
+
+    /**
+     * Returns the dense index of the given <code>x,y</code> position. Indices
+     * run row by row, i.e. <code>y * width + x</code>.
+     *
+     * @param x
+     *            The <code>x</code> position (column).
+     * @param y
+     *            The <code>y</code> position (row).
+     * @return The index of the square at the given position.
+     */
+    public int indexOf(int x, int y) {
+        assert withinBorders(x, y);
+        return y * getWidth() + x;
+    }
+
+    /**
+     * Returns the square with the given index.
+     *
+     * @param index
+     *            The index of the square, as given by {@link #indexOf(int, int)}.
+     * @return The square with the given index (never null).
+     */
+    public Square squareAt(int index) {
+        assert index >= 0 && index < getSquareCount();
+        return squareAt(index % getWidth(), index / getWidth());
+    }
+
+    /**
+     * Returns the index of the neighbour of a square, so that searches can
+     * walk the board by index without creating square objects.
+     *
+     * @param index
+     *            The index of the square.
+     * @param direction
+     *            The direction of the neighbour.
+     * @return The index of the neighbour in the given direction, or -1 if
+     *         the square is not linked to a square of this board there.
+     */
+    public int neighbourOf(int index, Direction direction) {
+        Square neighbour = squareAt(index).getSquareAt(direction);
+        if (neighbour == null || neighbour.getBoard() != this) {
+            return -1;
+        }
+        return neighbour.getIndex();
+    }
+
+    /**
+     * Determines whether a unit can occupy the square with the given index.
+     *
+     * @param index
+     *            The index of the square.
+     * @param unit
+     *            The unit to grant or deny access.
+     * @return <code>true</code> iff the unit can occupy the square.
+     */
+    public boolean isAccessibleAt(int index, Unit unit) {
+        return squareAt(index).isAccessibleTo(unit);
+    }
+
+    /**
+     * Returns the precomputed routes between the squares of this board.
+     *
+     * @return The routing table of this board, or <code>null</code> if none
+     *         has been computed.
+     */
+    public RoutingTable getRoutingTable() {
+        return routes;
+    }
+
+    /**
+     * Computes the next hop and distance between every pair of squares the
+     * traveller can access, so that shortest path queries no longer have to
+     * search the board. This is only feasible for boards with at most
+     * {@link RoutingTable#MAX_SQUARES} accessible squares.
+     *
+     * @param traveller
+     *            The unit whose access rights determine which squares can be
+     *            travelled. The table is valid for all units with the same
+     *            access rights.
+     * @return <code>true</code> iff a routing table is available afterwards.
+     */
+    public boolean precomputeRoutes(Unit traveller) {
+        routes = RoutingTable.build(this, traveller);
+        return routes != null;
+    }
+
+    /**
+     * Sets the number of accessible neighbours of every square, as counted
+     * by the factory creating this board.
+     *
+     * @param counts
+     *            The degree of every square, by index.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    void setDegrees(byte[] counts) {
+        assert counts.length == getSquareCount();
+        this.degrees = counts;
+    }
+
+    /**
+     * Returns the number of accessible neighbours of a square: 1 at a dead
+     * end, {@link #CORRIDOR} in a corridor and more at a junction.
+     *
+     * @param square
+     *            A square of this board.
+     * @return The degree of the square, or {@link #UNCLASSIFIED} if the
+     *         squares of this board have not been classified.
+     */
+    public int getDegree(Square square) {
+        byte[] counts = degrees;
+        if (counts == null) {
+            return UNCLASSIFIED;
+        }
+        return counts[square.getIndex()];
+    }
+
+    /**
+     * Determines whether a square lies in a corridor, where a unit that
+     * does not turn back can only go one way.
+     *
+     * @param square
+     *            A square of this board.
+     * @return <code>true</code> iff the square has exactly two accessible
+     *         neighbours.
+     */
+    public boolean isCorridor(Square square) {
+        return getDegree(square) == CORRIDOR;
+    }
+
+    /**
+     * Registers a unit that entered this board.
+     *
+     * @param unit
+     *            The unit that now occupies a square of this board.
+     */
+    void unitEntered(Unit unit) {
+        units.computeIfAbsent(unit.getClass(), key -> ConcurrentHashMap.newKeySet())
+            .add(unit);
+    }
+
+    /**
+     * Unregisters a unit that left this board.
+     *
+     * @param unit
+     *            The unit that no longer occupies a square of this board.
+     */
+    void unitLeft(Unit unit) {
+        Set<Unit> ofClass = units.get(unit.getClass());
+        if (ofClass != null) {
+            ofClass.remove(unit);
+        }
+    }
+
+    /**
+     * Sets the listener that is told about every unit occupying or vacating
+     * a square of this board, and about every unit on this board changing
+     * its direction. A board has at most one listener, usually its level.
+     *
+     * @param newListener
+     *            The new listener, or <code>null</code> to remove it.
+     */
+    public void setOccupancyListener(OccupancyListener newListener) {
+        this.listener = newListener;
+    }
+
+    /**
+     * Tells the listener that a unit occupied a square of this board.
+     *
+     * @param unit
+     *            The unit.
+     * @param square
+     *            The square it occupies now.
+     */
+    void unitOccupied(Unit unit, Square square) {
+        OccupancyListener current = listener;
+        if (current != null) {
+            current.occupied(unit, square);
+        }
+    }
+
+    /**
+     * Tells the listener that a unit vacated a square of this board.
+     *
+     * @param unit
+     *            The unit.
+     * @param square
+     *            The square it no longer occupies.
+     */
+    void unitVacated(Unit unit, Square square) {
+        OccupancyListener current = listener;
+        if (current != null) {
+            current.vacated(unit, square);
+        }
+    }
+
+    /**
+     * Tells the listener that a unit on this board changed its direction.
+     *
+     * @param unit
+     *            The unit, facing its new direction.
+     * @param previous
+     *            The direction it was facing before.
+     */
+    void unitTurned(Unit unit, Direction previous) {
+        OccupancyListener current = listener;
+        if (current != null) {
+            current.turned(unit, previous);
+        }
+    }
+
+    /**
+     * Returns all units of the given type on this board. This takes time
+     * proportional to the number of such units, rather than to the size of
+     * the board.
+     *
+     * @param type
+     *            The type of units to look for.
+     * @param <T>
+     *            The type of units to look for.
+     * @return A new list with the units of the given type on this board.
+     */
+    public <T extends Unit> List<T> unitsOf(Class<T> type) {
+        List<T> result = new ArrayList<>();
+        for (Map.Entry<Class<? extends Unit>, Set<Unit>> entry : units.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                for (Unit unit : entry.getValue()) {
+                    result.add(type.cast(unit));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the units of the given type on this board.
+     *
+     * @param type
+     *            The type of units to count.
+     * @return The number of units of the given type on this board.
+     */
+    public int countUnits(Class<? extends Unit> type) {
+        int count = 0;
+        for (Map.Entry<Class<? extends Unit>, Set<Unit>> entry : units.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) {
+                count += entry.getValue().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds a unit of the given type on this board. If there are several,
+     * the one on the square with the lowest index is returned, i.e. the first
+     * one in reading order.
+     *
+     * @param type
+     *            The type of unit to look for.
+     * @param <T>
+     *            The type of unit to look for.
+     * @return A unit of the given type, or <code>null</code> if there is none.
+     */
+    public <T extends Unit> T findAny(Class<T> type) {
+        T first = null;
+        int firstIndex = Integer.MAX_VALUE;
+        for (T unit : unitsOf(type)) {
+            if (unit.hasSquare() && unit.getSquare().getIndex() < firstIndex) {
+                first = unit;
+                firstIndex = unit.getSquare().getIndex();
+            }
+        }
+        return first;
+    }
+
     /**
      * Determines whether the given <code>x,y</code> position is on this board.
      *
@@ -91,4 +452,42 @@ public class Board {
     public boolean withinBorders(int x, int y) {
         return x >= 0 && x < getWidth() && y >= 0 && y < getHeight();
     }
+
+    /**
+     * A listener that is told about every change of the units on a board, so
+     * that it can keep state derived from them up to date incrementally. It
+     * is called on the thread changing the unit, right after the change.
+     */
+    public interface OccupancyListener {
+
+        /**
+         * A unit occupied a square.
+         *
+         * @param unit
+         *            The unit.
+         * @param square
+         *            The square it occupies now.
+         */
+        void occupied(Unit unit, Square square);
+
+        /**
+         * A unit vacated a square.
+         *
+         * @param unit
+         *            The unit.
+         * @param square
+         *            The square it no longer occupies.
+         */
+        void vacated(Unit unit, Square square);
+
+        /**
+         * A unit on the board changed its direction.
+         *
+         * @param unit
+         *            The unit, facing its new direction.
+         * @param previous
+         *            The direction it was facing before.
+         */
+        void turned(Unit unit, Direction previous);
+    }
 }
@@ -53,10 +53,64 @@ public class BoardFactory {
                 }
             }
         }
+        classify(board);
 
         return board;
     }
 
+    /**
+     * Counts the accessible neighbours of every square of a connected board,
+     * which tells corridors apart from junctions and dead ends. The squares
+     * created by this factory are accessible to all units or to none, so a
+     * single count serves every unit.
+     *
+     * @param board
+     *            The board to classify.
+     */
+    private static void classify(Board board) {
+        byte[] degrees = new byte[board.getSquareCount()];
+        for (int index = 0; index < degrees.length; index++) {
+            for (Direction dir : Direction.values()) {
+                if (board.isAccessibleAt(board.neighbourOf(index, dir), null)) {
+                    degrees[index]++;
+                }
+            }
+        }
+        board.setDegrees(degrees);
+    }
+
+    /**
+     * Creates a new compact board, which keeps its cells in flat arrays
+     * instead of square objects, and connects it.
+     *
+     * @param width
+     *            The number of columns.
+     * @param height
+     *            The number of rows.
+     * @param cellTypes
+     *            The type code of every cell, with the cell at position x,y at
+     *            index <code>y * width + x</code>; either
+     *            {@link CompactBoard#GROUND} or {@link CompactBoard#WALL}.
+     * @return A new compact board.
+     */
+    public CompactBoard createCompactBoard(int width, int height, byte[] cellTypes) {
+        if (width < 1 || height < 1 || cellTypes.length != width * height) {
+            throw new IllegalArgumentException("Cell types do not match a "
+                + width + "x" + height + " board");
+        }
+        for (byte type : cellTypes) {
+            if (type != CompactBoard.GROUND && type != CompactBoard.WALL) {
+                throw new IllegalArgumentException("Unknown cell type: " + type);
+            }
+        }
+        Sprite[] backgrounds = new Sprite[2];
+        backgrounds[CompactBoard.GROUND] = sprites.getGroundSprite();
+        backgrounds[CompactBoard.WALL] = sprites.getWallSprite();
+        CompactBoard board = new CompactBoard(width, height, cellTypes, backgrounds);
+        classify(board);
+        return board;
+    }
+
     /**
      * Creates a new square that can be occupied by any unit.
      *
@@ -0,0 +1,242 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import nl.tudelft.jpacman.sprite.Sprite;
+
+/**
+ * A board that keeps the state of its squares in flat arrays indexed by
+ * {@link #indexOf(int, int)}, rather than in a {@link Square} object per
+ * cell. This takes a few dozen bytes per cell, so that boards with millions
+ * of cells fit in memory.
+ *
+ * <p>
+ * The squares of a compact board are lightweight views that are created on
+ * demand. Two views of the same cell are equal, but not necessarily the same
+ * object, so squares of a compact board should always be compared with
+ * {@link Object#equals(Object)} or by their index. Searches walk the board
+ * with {@link #neighbourOf(int, Direction)} and
+ * {@link #isAccessibleAt(int, Unit)} instead, which read the flat arrays
+ * without creating views.
+ * </p>
+ */
+public final class CompactBoard extends Board {
+
+    /**
+     * The type code of a cell that can be occupied by any unit.
+     */
+    public static final byte GROUND = 0;
+
+    /**
+     * The type code of a cell that cannot be occupied by any unit.
+     */
+    public static final byte WALL = 1;
+
+    /**
+     * All directions, in the order of the neighbour indices of a cell.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The shift that turns a cell index into a word index of the passability.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The type code of every cell.
+     */
+    private final byte[] types;
+
+    /**
+     * The set of cells that can be occupied, one bit per cell.
+     */
+    private final long[] passable;
+
+    /**
+     * The index of the neighbour of every cell in every direction, at
+     * <code>index * 4 + direction.ordinal()</code>.
+     */
+    private final int[] neighbours;
+
+    /**
+     * The occupants of every cell, see {@link Square#occupantArray()}.
+     */
+    private final AtomicReferenceArray<Unit[]> occupants;
+
+    /**
+     * The background sprite of every type of cell, by type code.
+     */
+    private final Sprite[] sprites;
+
+    /**
+     * Creates a new compact board in which every cell is linked to its
+     * neighbours, wrapping around the borders.
+     *
+     * @param width
+     *            The number of columns.
+     * @param height
+     *            The number of rows.
+     * @param cellTypes
+     *            The type code of every cell, by index.
+     * @param typeSprites
+     *            The background sprite of every type of cell, by type code.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    CompactBoard(int width, int height, byte[] cellTypes, Sprite[] typeSprites) {
+        super(width, height);
+        assert cellTypes.length == width * height;
+        this.types = cellTypes;
+        this.sprites = typeSprites;
+        this.passable = new long[(cellTypes.length >>> WORD_SHIFT) + 1];
+        this.neighbours = new int[cellTypes.length * DIRECTIONS.length];
+        this.occupants = new AtomicReferenceArray<>(cellTypes.length);
+        for (int index = 0; index < cellTypes.length; index++) {
+            if (cellTypes[index] == GROUND) {
+                passable[index >>> WORD_SHIFT] |= 1L << index;
+            }
+            occupants.set(index, Square.NO_OCCUPANTS);
+            linkAround(index);
+        }
+    }
+
+    /**
+     * Links a cell to its neighbours, wrapping around the borders.
+     *
+     * @param index
+     *            The index of the cell.
+     */
+    private void linkAround(int index) {
+        int width = getWidth();
+        int height = getHeight();
+        int x = index % width;
+        int y = index / width;
+        for (Direction dir : DIRECTIONS) {
+            int dirX = (width + x + dir.getDeltaX()) % width;
+            int dirY = (height + y + dir.getDeltaY()) % height;
+            neighbours[index * DIRECTIONS.length + dir.ordinal()] = indexOf(dirX, dirY);
+        }
+    }
+
+    @Override
+    public Square squareAt(int x, int y) {
+        assert withinBorders(x, y);
+        return new Cell(this, indexOf(x, y));
+    }
+
+    @Override
+    public Square squareAt(int index) {
+        assert index >= 0 && index < getSquareCount();
+        return new Cell(this, index);
+    }
+
+    @Override
+    public boolean isAccessibleAt(int index, Unit unit) {
+        return isPassable(index);
+    }
+
+    /**
+     * Returns the type code of a cell.
+     *
+     * @param index
+     *            The index of the cell.
+     * @return The type code of the cell, e.g. {@link #GROUND}.
+     */
+    public byte typeOf(int index) {
+        return types[index];
+    }
+
+    /**
+     * Determines whether a cell can be occupied.
+     *
+     * @param index
+     *            The index of the cell.
+     * @return <code>true</code> iff units can occupy the cell.
+     */
+    public boolean isPassable(int index) {
+        return (passable[index >>> WORD_SHIFT] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the index of the neighbour of a cell.
+     *
+     * @param index
+     *            The index of the cell.
+     * @param direction
+     *            The direction of the neighbour.
+     * @return The index of the neighbour in the given direction.
+     */
+    @Override
+    public int neighbourOf(int index, Direction direction) {
+        return neighbours[index * DIRECTIONS.length + direction.ordinal()];
+    }
+
+    /**
+     * A view on a single cell of a compact board.
+     */
+    private static final class Cell extends Square {
+
+        /**
+         * The board keeping the state of this cell.
+         */
+        private final CompactBoard owner;
+
+        /**
+         * Creates a new view on a cell.
+         *
+         * @param board
+         *            The board keeping the state of the cell.
+         * @param index
+         *            The index of the cell.
+         */
+        Cell(CompactBoard board, int index) {
+            super(board, index);
+            this.owner = board;
+        }
+
+        @Override
+        public Square getSquareAt(Direction direction) {
+            return new Cell(owner, owner.neighbourOf(getIndex(), direction));
+        }
+
+        @Override
+        public void link(Square neighbour, Direction direction) {
+            assert owner.equals(neighbour.getBoard());
+            owner.neighbours[getIndex() * DIRECTIONS.length + direction.ordinal()] =
+                neighbour.getIndex();
+        }
+
+        @Override
+        Unit[] occupantArray() {
+            return owner.occupants.get(getIndex());
+        }
+
+        @Override
+        boolean replaceOccupants(Unit[] expected, Unit[] changed) {
+            return owner.occupants.compareAndSet(getIndex(), expected, changed);
+        }
+
+        @Override
+        public boolean isAccessibleTo(Unit unit) {
+            return owner.isPassable(getIndex());
+        }
+
+        @Override
+        public Sprite getSprite() {
+            return owner.sprites[owner.typeOf(getIndex())];
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Cell)) {
+                return false;
+            }
+            Cell cell = (Cell) other;
+            return cell.owner == owner && cell.getIndex() == getIndex();
+        }
+
+        @Override
+        public int hashCode() {
+            return getIndex();
+        }
+    }
+}
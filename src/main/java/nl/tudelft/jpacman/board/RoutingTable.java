@@ -0,0 +1,304 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An all-pairs table of shortest routes between the accessible squares of a
+ * {@link Board}. For every pair of squares it stores the first step of a
+ * shortest path and its length, so that routes can be looked up instead of
+ * searched for.
+ *
+ * <p>
+ * Next hops are packed as 2-bit direction ordinals and distances as shorts,
+ * which costs 2.25 bytes per pair of accessible squares. The table follows the
+ * links between squares, and therefore includes the wraparound links at the
+ * edges of the board.
+ * </p>
+ */
+public final class RoutingTable {
+
+    /**
+     * The maximum number of accessible squares for which a table is built,
+     * keeping the table within a few dozen megabytes.
+     */
+    public static final int MAX_SQUARES = 4096;
+
+    /**
+     * The number of bits used to store a single next hop.
+     */
+    private static final int HOP_BITS = 2;
+
+    /**
+     * The number of next hops packed in a single byte.
+     */
+    private static final int HOPS_PER_BYTE = Byte.SIZE / HOP_BITS;
+
+    /**
+     * The mask selecting a single next hop.
+     */
+    private static final int HOP_MASK = (1 << HOP_BITS) - 1;
+
+    /**
+     * The distance marking an unreachable square.
+     */
+    private static final short UNREACHABLE = -1;
+
+    /**
+     * All directions, in the order in which they are explored.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The board these routes are computed for.
+     */
+    private final Board board;
+
+    /**
+     * The node number for every square index, or -1 for inaccessible squares.
+     */
+    private final int[] nodeOf;
+
+    /**
+     * The number of accessible squares.
+     */
+    private final int nodes;
+
+    /**
+     * The packed next hops, one for every (from, to) pair of nodes.
+     */
+    private final byte[] hops;
+
+    /**
+     * The distances, one for every (from, to) pair of nodes.
+     */
+    private final short[] distances;
+
+    /**
+     * Creates a new, empty routing table.
+     *
+     * @param board
+     *            The board the routes are computed for.
+     * @param nodeOf
+     *            The node number for every square index.
+     * @param nodes
+     *            The number of nodes.
+     */
+    private RoutingTable(Board board, int[] nodeOf, int nodes) {
+        this.board = board;
+        this.nodeOf = nodeOf;
+        this.nodes = nodes;
+        int pairs = nodes * nodes;
+        this.hops = new byte[(pairs + HOPS_PER_BYTE - 1) / HOPS_PER_BYTE];
+        this.distances = new short[pairs];
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Computes the routes between all squares of the board that are
+     * accessible to the traveller.
+     *
+     * @param board
+     *            The board to compute the routes for.
+     * @param traveller
+     *            The unit whose access rights determine the accessible
+     *            squares.
+     * @return The routing table, or <code>null</code> if the board has more
+     *         than {@link #MAX_SQUARES} accessible squares.
+     */
+    static RoutingTable build(Board board, Unit traveller) {
+        assert board != null;
+        assert traveller != null;
+
+        int[] nodeOf = new int[board.getSquareCount()];
+        int[] squareOf = new int[nodeOf.length];
+        int nodes = 0;
+        for (int i = 0; i < nodeOf.length; i++) {
+            nodeOf[i] = -1;
+            if (board.squareAt(i).isAccessibleTo(traveller)) {
+                nodeOf[i] = nodes;
+                squareOf[nodes] = i;
+                nodes++;
+            }
+        }
+        if (nodes > MAX_SQUARES) {
+            return null;
+        }
+
+        RoutingTable table = new RoutingTable(board, nodeOf, nodes);
+        int[] neighbours = table.linkNodes(squareOf);
+        int[] queue = new int[nodes];
+        byte[] firstHop = new byte[nodes];
+        for (int from = 0; from < nodes; from++) {
+            table.search(from, neighbours, queue, firstHop);
+        }
+        return table;
+    }
+
+    /**
+     * Determines the accessible neighbours of every node.
+     *
+     * @param squareOf
+     *            The square index for every node.
+     * @return The neighbouring node for every node and direction, or -1 if
+     *         that neighbour is inaccessible.
+     */
+    private int[] linkNodes(int[] squareOf) {
+        int[] neighbours = new int[nodes * DIRECTIONS.length];
+        for (int node = 0; node < nodes; node++) {
+            Square square = board.squareAt(squareOf[node]);
+            for (Direction direction : DIRECTIONS) {
+                Square neighbour = square.getSquareAt(direction);
+                int target = -1;
+                if (neighbour != null && neighbour.getBoard() == board) {
+                    target = nodeOf[neighbour.getIndex()];
+                }
+                neighbours[node * DIRECTIONS.length + direction.ordinal()] = target;
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Fills the row of the table for a single origin by means of a breadth
+     * first search.
+     *
+     * @param from
+     *            The origin node.
+     * @param neighbours
+     *            The neighbours of every node.
+     * @param queue
+     *            Scratch space for the search queue.
+     * @param firstHop
+     *            Scratch space for the first hop towards every node.
+     */
+    private void search(int from, int[] neighbours, int[] queue, byte[] firstHop) {
+        int row = from * nodes;
+        distances[row + from] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int node = queue[head++];
+            short distance = distances[row + node];
+            for (Direction direction : DIRECTIONS) {
+                int next = neighbours[node * DIRECTIONS.length + direction.ordinal()];
+                if (next >= 0 && distances[row + next] == UNREACHABLE) {
+                    distances[row + next] = (short) (distance + 1);
+                    firstHop[next] = firstHop[node];
+                    if (node == from) {
+                        firstHop[next] = (byte) direction.ordinal();
+                    }
+                    setHop(row + next, firstHop[next]);
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a packed next hop.
+     *
+     * @param pair
+     *            The index of the (from, to) pair.
+     * @param ordinal
+     *            The ordinal of the direction of the next hop.
+     */
+    private void setHop(int pair, int ordinal) {
+        int shift = (pair % HOPS_PER_BYTE) * HOP_BITS;
+        int cell = pair / HOPS_PER_BYTE;
+        hops[cell] = (byte) ((hops[cell] & ~(HOP_MASK << shift)) | (ordinal << shift));
+    }
+
+    /**
+     * Returns the node for a square, or -1 if the square is not covered.
+     *
+     * @param square
+     *            The square to look up.
+     * @return The node of the square, or -1 if this table has no routes
+     *         from or to the square.
+     */
+    private int nodeOf(Square square) {
+        if (square.getBoard() != board) {
+            return -1;
+        }
+        return nodeOf[square.getIndex()];
+    }
+
+    /**
+     * Determines whether this table has routes for the given square.
+     *
+     * @param square
+     *            The square to test.
+     * @return <code>true</code> iff the square is an accessible square on
+     *         the board this table is built for.
+     */
+    public boolean covers(Square square) {
+        return nodeOf(square) >= 0;
+    }
+
+    /**
+     * Returns the length of the shortest path between two squares.
+     *
+     * @param from
+     *            The starting square.
+     * @param to
+     *            The destination.
+     * @return The number of steps on the shortest path, or -1 if there is no
+     *         such path.
+     */
+    public int distance(Square from, Square to) {
+        int source = nodeOf(from);
+        int target = nodeOf(to);
+        if (source < 0 || target < 0) {
+            return -1;
+        }
+        return distances[source * nodes + target];
+    }
+
+    /**
+     * Returns the first step of the shortest path between two squares.
+     *
+     * @param from
+     *            The starting square.
+     * @param to
+     *            The destination.
+     * @return The direction of the first step, or <code>null</code> if there
+     *         is no such path or both squares are the same.
+     */
+    public Direction nextHop(Square from, Square to) {
+        if (distance(from, to) <= 0) {
+            return null;
+        }
+        int pair = nodeOf(from) * nodes + nodeOf(to);
+        int shift = (pair % HOPS_PER_BYTE) * HOP_BITS;
+        return DIRECTIONS[(hops[pair / HOPS_PER_BYTE] >> shift) & HOP_MASK];
+    }
+
+    /**
+     * Returns a shortest path between two squares by following the next hops.
+     *
+     * @param from
+     *            The starting square.
+     * @param to
+     *            The destination.
+     * @return The shortest path to the destination or <code>null</code> if no
+     *         such path exists. When the destination is the starting square,
+     *         an empty list is returned.
+     */
+    public List<Direction> path(Square from, Square to) {
+        int distance = distance(from, to);
+        if (distance < 0) {
+            return null;
+        }
+        List<Direction> path = new ArrayList<>(distance);
+        Square current = from;
+        while (path.size() < distance) {
+            Direction direction = nextHop(current, to);
+            path.add(direction);
+            current = current.getSquareAt(direction);
+        }
+        return path;
+    }
+}
@@ -1,9 +1,11 @@
 package nl.tudelft.jpacman.board;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
 
@@ -17,24 +19,66 @@ import nl.tudelft.jpacman.sprite.Sprite;
 public abstract class Square {
 
     /**
-     * The units occupying this square, in order of appearance.
+     * The occupants of a square without any.
      */
-    private final List<Unit> occupants;
+    static final Unit[] NO_OCCUPANTS = new Unit[0];
+
+    /**
+     * Atomically replaces the occupants of a square.
+     */
+    private static final AtomicReferenceFieldUpdater<Square, Unit[]> OCCUPANTS =
+        AtomicReferenceFieldUpdater.newUpdater(Square.class, Unit[].class, "occupants");
+
+    /**
+     * The units occupying this square, in order of appearance. The array is
+     * never modified; every change publishes a new one, so that readers can
+     * traverse the occupants without copying or locking, even while they are
+     * being changed.
+     */
+    private volatile Unit[] occupants;
 
     /**
      * The collection of squares adjacent to this square.
      */
     private final Map<Direction, Square> neighbours;
 
+    /**
+     * The board this square is part of, or <code>null</code> if it has not
+     * been placed on a board yet.
+     */
+    private Board board;
+
+    /**
+     * The index of this square on its board, see {@link Board#indexOf(int, int)}.
+     */
+    private int index;
+
     /**
      * Creates a new, empty square.
      */
     protected Square() {
-        this.occupants = new ArrayList<>();
+        this.occupants = NO_OCCUPANTS;
         this.neighbours = new EnumMap<>(Direction.class);
         assert invariant();
     }
 
+    /**
+     * Creates a view on a square of which the board itself keeps the state.
+     * Such a view has no neighbours or occupants of its own, so its subclass
+     * overrides the methods that access them.
+     *
+     * @param owner
+     *            The board keeping the state of the square.
+     * @param position
+     *            The index of the square on the board.
+     */
+    Square(Board owner, int position) {
+        this.occupants = NO_OCCUPANTS;
+        this.neighbours = null;
+        this.board = owner;
+        this.index = position;
+    }
+
     /**
      * Returns the square adjacent to this square.
      *
@@ -60,15 +104,164 @@ public abstract class Square {
         assert invariant();
     }
 
+    /**
+     * Places this square on a board.
+     *
+     * @param owner
+     *            The board this square is part of.
+     * @param position
+     *            The index of this square on the board.
+     */
+    void placeOn(Board owner, int position) {
+        this.board = owner;
+        this.index = position;
+    }
+
+    /**
+     * Returns the board this square is part of.
+     *
+     * @return The board this square is part of, or <code>null</code> if it
+     *         has not been placed on a board yet.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the dense index of this square on its board, which lies between
+     * 0 (inclusive) and {@link Board#getSquareCount()} (exclusive).
+     *
+     * Precondition: this square is placed on a board.
+     *
+     * @return The index of this square on its board.
+     */
+    public int getIndex() {
+        assert board != null;
+        return index;
+    }
+
     /**
      * Returns an immutable list of units occupying this square, in the order in
      * which they occupied this square (i.e. oldest first.)
      *
+     * This copies the occupants, which makes it a safe snapshot to iterate
+     * while units move. To merely inspect the occupants, prefer
+     * {@link #forEachOccupant(Consumer)} and the other non-copying methods.
+     *
      * @return An immutable list of units occupying this square, in the order in
      *         which they occupied this square (i.e. oldest first.)
      */
     public List<Unit> getOccupants() {
-        return ImmutableList.copyOf(occupants);
+        return ImmutableList.copyOf(occupantArray());
+    }
+
+    /**
+     * Returns the number of units occupying this square.
+     *
+     * @return The number of occupants of this square.
+     */
+    public int getOccupantCount() {
+        return occupantArray().length;
+    }
+
+    /**
+     * Returns an occupant of this square, without copying the occupants.
+     * Units moving between two calls may shift the positions of the
+     * occupants, so this is only consistent with {@link #getOccupantCount()}
+     * while no units move, e.g. while the level holds the lock of this
+     * square.
+     *
+     * @param position
+     *            The position of the occupant, oldest first.
+     * @return The occupant at the given position.
+     */
+    public Unit getOccupant(int position) {
+        return occupantArray()[position];
+    }
+
+    /**
+     * Performs an action for every unit occupying this square, oldest first,
+     * without copying the occupants. The action sees the occupants as they
+     * were when this method was called, so it may move units itself.
+     *
+     * @param action
+     *            The action to perform for every occupant.
+     */
+    public void forEachOccupant(Consumer<? super Unit> action) {
+        for (Unit occupant : occupantArray()) {
+            action.accept(occupant);
+        }
+    }
+
+    /**
+     * Finds the oldest occupant of a certain type.
+     *
+     * @param type
+     *            The type of unit to look for.
+     * @param <T>
+     *            The type of unit to look for.
+     * @return The oldest occupant of the given type, or <code>null</code> if
+     *         no such unit occupies this square.
+     */
+    public <T extends Unit> T findOccupant(Class<T> type) {
+        for (Unit occupant : occupantArray()) {
+            if (type.isInstance(occupant)) {
+                return type.cast(occupant);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether a unit of a certain type occupies this square.
+     *
+     * @param type
+     *            The type of unit to look for.
+     * @return <code>true</code> iff a unit of the given type occupies this
+     *         square.
+     */
+    public boolean hasOccupant(Class<? extends Unit> type) {
+        return findOccupant(type) != null;
+    }
+
+    /**
+     * Determines whether a unit occupies this square.
+     *
+     * @param unit
+     *            The unit to look for.
+     * @return <code>true</code> iff the unit occupies this square.
+     */
+    public boolean isOccupiedBy(Unit unit) {
+        for (Unit occupant : occupantArray()) {
+            if (occupant == unit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the units occupying this square, in order of appearance. The
+     * returned array must not be modified.
+     *
+     * @return The occupants of this square.
+     */
+    Unit[] occupantArray() {
+        return occupants;
+    }
+
+    /**
+     * Replaces the occupants of this square, unless they were changed
+     * concurrently.
+     *
+     * @param expected
+     *            The occupants the change is based on.
+     * @param changed
+     *            The new occupants.
+     * @return <code>true</code> iff the occupants were replaced.
+     */
+    boolean replaceOccupants(Unit[] expected, Unit[] changed) {
+        return OCCUPANTS.compareAndSet(this, expected, changed);
     }
 
     /**
@@ -79,9 +272,15 @@ public abstract class Square {
      */
     void put(Unit occupant) {
         assert occupant != null;
-        assert !occupants.contains(occupant);
+        assert !isOccupiedBy(occupant);
 
-        occupants.add(occupant);
+        Unit[] current;
+        Unit[] changed;
+        do {
+            current = occupantArray();
+            changed = Arrays.copyOf(current, current.length + 1);
+            changed[current.length] = occupant;
+        } while (!replaceOccupants(current, changed));
     }
 
     /**
@@ -92,7 +291,53 @@ public abstract class Square {
      */
     void remove(Unit occupant) {
         assert occupant != null;
-        occupants.remove(occupant);
+        Unit[] current;
+        int position;
+        do {
+            current = occupantArray();
+            position = positionOf(current, occupant);
+            if (position < 0) {
+                return;
+            }
+        } while (!replaceOccupants(current, without(current, position)));
+    }
+
+    /**
+     * Finds the position of a unit among occupants.
+     *
+     * @param current
+     *            The occupants.
+     * @param occupant
+     *            The unit to look for.
+     * @return The position of the unit, or -1 if it is not among them.
+     */
+    private static int positionOf(Unit[] current, Unit occupant) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == occupant) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a copy of an array of occupants without one of them.
+     *
+     * @param current
+     *            The occupants.
+     * @param position
+     *            The position of the occupant to leave out.
+     * @return The remaining occupants, in the same order.
+     */
+    static Unit[] without(Unit[] current, int position) {
+        if (current.length == 1) {
+            return NO_OCCUPANTS;
+        }
+        Unit[] changed = new Unit[current.length - 1];
+        System.arraycopy(current, 0, changed, 0, position);
+        System.arraycopy(current, position + 1, changed, position,
+            changed.length - position);
+        return changed;
     }
 
     /**
@@ -103,8 +348,8 @@ public abstract class Square {
      *         square listed as the square they are currently occupying.
      */
     protected final boolean invariant(Square this) {
-        for (Unit occupant : occupants) {
-            if (occupant.hasSquare() && occupant.getSquare() != this) {
+        for (Unit occupant : occupantArray()) {
+            if (occupant.hasSquare() && !equals(occupant.getSquare())) {
                 return false;
             }
         }
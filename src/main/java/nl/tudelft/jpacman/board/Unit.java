@@ -9,6 +9,17 @@ import nl.tudelft.jpacman.sprite.Sprite;
  */
 public abstract class Unit {
 
+    /**
+     * The kind code of units that do not declare a kind of their own.
+     */
+    public static final int KIND_OTHER = 0;
+
+    /**
+     * The number of kind codes, i.e. every kind code lies between 0
+     * (inclusive) and this limit (exclusive).
+     */
+    public static final int KIND_LIMIT = 16;
+
     /**
      * The square this unit is currently occupying.
      */
@@ -31,7 +42,11 @@ public abstract class Unit {
      * @param newDirection The new direction this unit is facing.
      */
     public void setDirection(Direction newDirection) {
+        Direction previous = this.direction;
         this.direction = newDirection;
+        if (previous != newDirection && square != null && square.getBoard() != null) {
+            square.getBoard().unitTurned(this, previous);
+        }
     }
 
     /**
@@ -42,6 +57,17 @@ public abstract class Unit {
         return this.direction;
     }
 
+    /**
+     * Returns the kind of this unit, a small code that is the same for all
+     * units of a type and never changes. Collisions are dispatched on these
+     * codes, see {@link nl.tudelft.jpacman.level.CollisionMatrix}.
+     *
+     * @return The kind code of this unit, below {@link #KIND_LIMIT}.
+     */
+    public int getKind() {
+        return KIND_OTHER;
+    }
+
     /**
      * Returns the square this unit is currently occupying.
      * Precondition: <code>hasSquare()</code>.
@@ -73,11 +99,27 @@ public abstract class Unit {
     public void occupy(Square target) {
         assert target != null;
 
+        Board previousBoard = null;
         if (square != null) {
+            previousBoard = square.getBoard();
             square.remove(this);
+            if (previousBoard != null) {
+                previousBoard.unitVacated(this, square);
+            }
         }
         square = target;
         target.put(this);
+        if (target.getBoard() != null) {
+            target.getBoard().unitOccupied(this, target);
+        }
+        if (previousBoard != target.getBoard()) {
+            if (previousBoard != null) {
+                previousBoard.unitLeft(this);
+            }
+            if (target.getBoard() != null) {
+                target.getBoard().unitEntered(this);
+            }
+        }
         assert invariant();
     }
 
@@ -87,6 +129,10 @@ public abstract class Unit {
     public void leaveSquare() {
         if (square != null) {
             square.remove(this);
+            if (square.getBoard() != null) {
+                square.getBoard().unitVacated(this, square);
+                square.getBoard().unitLeft(this);
+            }
             square = null;
         }
         assert invariant();
@@ -101,7 +147,7 @@ public abstract class Unit {
      *         not occupying any square.
      */
     protected boolean invariant() {
-        return square == null || square.getOccupants().contains(this);
+        return square == null || square.isOccupiedBy(this);
     }
 
     /**
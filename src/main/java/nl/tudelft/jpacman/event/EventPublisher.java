@@ -0,0 +1,497 @@
+package nl.tudelft.jpacman.event;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the events of a level to subscribers without holding up the
+ * simulation. Every subscriber has a bounded buffer that events are added to
+ * by {@link #submit(GameEvent)}; the events are sent to the subscriber by a
+ * task on an executor as far as it has requested them. What happens when a
+ * buffer is full is chosen per subscriber, see {@link Overflow}.
+ */
+public class EventPublisher implements Flow.Publisher<GameEvent>, AutoCloseable {
+
+    /**
+     * The default number of events buffered per subscriber.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * What to do with an event for a subscriber whose buffer is full.
+     */
+    public enum Overflow {
+
+        /**
+         * Drop the new event.
+         */
+        DROP,
+
+        /**
+         * Replace a buffered event that the new event supersedes, see
+         * {@link GameEvent#supersedes(GameEvent)}, or drop the oldest
+         * buffered event if there is none.
+         */
+        CONFLATE,
+
+        /**
+         * Wait until the subscriber has taken an event from the buffer. This
+         * holds up the thread submitting the event, so it is meant for
+         * subscribers that must not miss any event, such as tests and
+         * recorders. Publishers whose events are submitted while the
+         * simulation waits for them, such as the publisher of a level, do
+         * not allow it.
+         */
+        BLOCK
+    }
+
+    /**
+     * The executor sending events to subscribers.
+     */
+    private final Executor executor;
+
+    /**
+     * The number of events buffered per subscriber.
+     */
+    private final int capacity;
+
+    /**
+     * <code>true</code> iff subscribers may ask for {@link Overflow#BLOCK}.
+     */
+    private final boolean blocking;
+
+    /**
+     * The current subscriptions.
+     */
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * <code>true</code> iff this publisher has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new publisher sending events on the common fork join pool,
+     * with buffers of {@link #DEFAULT_CAPACITY} events.
+     */
+    public EventPublisher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new publisher.
+     *
+     * @param executor
+     *            The executor sending events to subscribers. It must not run
+     *            tasks on the thread submitting them.
+     * @param capacity
+     *            The number of events buffered per subscriber, at least 1.
+     */
+    public EventPublisher(Executor executor, int capacity) {
+        this(executor, capacity, true);
+    }
+
+    /**
+     * Creates a new publisher.
+     *
+     * @param executor
+     *            The executor sending events to subscribers. It must not run
+     *            tasks on the thread submitting them.
+     * @param capacity
+     *            The number of events buffered per subscriber, at least 1.
+     * @param blocking
+     *            <code>true</code> iff subscribers may ask for
+     *            {@link Overflow#BLOCK}; <code>false</code> if events are
+     *            submitted where waiting would hold up the simulation.
+     */
+    public EventPublisher(Executor executor, int capacity, boolean blocking) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.blocking = blocking;
+    }
+
+    /**
+     * Adds a subscriber whose new events are dropped when its buffer is
+     * full.
+     *
+     * @param subscriber
+     *            The subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+        subscribe(subscriber, Overflow.DROP);
+    }
+
+    /**
+     * Adds a subscriber. It is sent
+     * {@link Flow.Subscriber#onSubscribe(Flow.Subscription)} on the executor,
+     * and then the events submitted from then on as far as it requests them.
+     * If this publisher has been closed, it is completed right away.
+     *
+     * @param subscriber
+     *            The subscriber.
+     * @param overflow
+     *            What to do with events when its buffer is full.
+     * @throws IllegalArgumentException
+     *             If the subscriber asks for {@link Overflow#BLOCK} and this
+     *             publisher does not allow it.
+     */
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber, Overflow overflow) {
+        assert subscriber != null;
+        assert overflow != null;
+        if (overflow == Overflow.BLOCK && !blocking) {
+            throw new IllegalArgumentException(
+                "Blocking subscribers would hold up the simulation");
+        }
+        BufferedSubscription subscription = new BufferedSubscription(subscriber, overflow);
+        subscriptions.add(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+        subscription.schedule();
+    }
+
+    /**
+     * @return <code>true</code> iff there are subscribers, so that events
+     *         need to be created at all.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * @return The number of events dropped or conflated for all current
+     *         subscribers together.
+     */
+    public long getDroppedCount() {
+        long dropped = 0L;
+        for (BufferedSubscription subscription : subscriptions) {
+            dropped += subscription.getDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Adds an event to the buffer of every subscriber. This only blocks for
+     * subscribers that asked for {@link Overflow#BLOCK}.
+     *
+     * @param event
+     *            The event.
+     */
+    public void submit(GameEvent event) {
+        assert event != null;
+        if (closed) {
+            return;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Completes every subscriber once it has received its buffered events.
+     * Events submitted afterwards are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * The buffer and demand of a subscriber. Signals are only sent by
+     * {@link #run()}, of which at most one runs at a time.
+     */
+    private final class BufferedSubscription implements Flow.Subscription, Runnable {
+
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super GameEvent> subscriber;
+
+        /**
+         * What to do with events when the buffer is full.
+         */
+        private final Overflow overflow;
+
+        /**
+         * The events not sent yet, guarded by this subscription.
+         */
+        private final ArrayDeque<GameEvent> buffer = new ArrayDeque<>();
+
+        /**
+         * <code>true</code> iff {@link #run()} is scheduled or running.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * The number of events requested and not sent yet.
+         */
+        private long demand;
+
+        /**
+         * The number of events dropped or conflated.
+         */
+        private long dropped;
+
+        /**
+         * <code>true</code> iff the subscriber has been sent
+         * {@link Flow.Subscriber#onSubscribe(Flow.Subscription)}; only
+         * accessed by {@link #run()}.
+         */
+        private boolean started;
+
+        /**
+         * <code>true</code> iff the subscriber is to be completed once the
+         * buffer is empty.
+         */
+        private boolean completing;
+
+        /**
+         * <code>true</code> iff no more signals are to be sent.
+         */
+        private boolean done;
+
+        /**
+         * The error to send the subscriber, or <code>null</code>.
+         */
+        private Throwable error;
+
+        /**
+         * Creates a new subscription.
+         *
+         * @param subscriber
+         *            The subscriber.
+         * @param overflow
+         *            What to do with events when the buffer is full.
+         */
+        BufferedSubscription(Flow.Subscriber<? super GameEvent> subscriber,
+                             Overflow overflow) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+        }
+
+        /**
+         * @return The number of events dropped or conflated.
+         */
+        synchronized long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Adds an event to the buffer, handling overflow.
+         *
+         * @param event
+         *            The event.
+         */
+        void offer(GameEvent event) {
+            synchronized (this) {
+                if (done || completing) {
+                    return;
+                }
+                if (buffer.size() >= capacity && !overflow(event)) {
+                    return;
+                }
+                buffer.add(event);
+            }
+            schedule();
+        }
+
+        /**
+         * Makes room for an event when the buffer is full.
+         *
+         * @param event
+         *            The new event.
+         * @return <code>true</code> iff the event is to be added to the
+         *         buffer.
+         */
+        private boolean overflow(GameEvent event) {
+            switch (overflow) {
+                case CONFLATE:
+                    dropped++;
+                    Iterator<GameEvent> buffered = buffer.iterator();
+                    while (buffered.hasNext()) {
+                        if (event.supersedes(buffered.next())) {
+                            buffered.remove();
+                            return true;
+                        }
+                    }
+                    buffer.poll();
+                    return true;
+                case BLOCK:
+                    awaitRoom();
+                    return !done;
+                default:
+                    dropped++;
+                    return false;
+            }
+        }
+
+        /**
+         * Waits until the buffer is not full or no more events are to be
+         * sent.
+         */
+        private void awaitRoom() {
+            boolean interrupted = false;
+            while (buffer.size() >= capacity && !done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (n <= 0L) {
+                    error = new IllegalArgumentException("Invalid request: " + n);
+                } else {
+                    demand += n;
+                    if (demand < 0L) {
+                        demand = Long.MAX_VALUE;
+                    }
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+                buffer.clear();
+                notifyAll();
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Completes the subscriber once the buffer is empty.
+         */
+        void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Schedules {@link #run()}, unless it is scheduled or running
+         * already.
+         */
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Sends the subscriber its pending signals, then checks whether new
+         * signals became pending in the meantime.
+         */
+        @Override
+        public void run() {
+            do {
+                if (!started) {
+                    started = true;
+                    subscriber.onSubscribe(this);
+                }
+                drain();
+                scheduled.set(false);
+            } while (hasPending() && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Sends the subscriber the buffered events it requested, and its
+         * error or completion.
+         */
+        private void drain() {
+            GameEvent event = next();
+            while (event != null) {
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+                event = next();
+            }
+            terminate();
+        }
+
+        /**
+         * Takes the next event to send from the buffer.
+         *
+         * @return The event, or <code>null</code> if there is none to send.
+         */
+        private synchronized GameEvent next() {
+            if (done || error != null || demand == 0L || buffer.isEmpty()) {
+                return null;
+            }
+            demand--;
+            notifyAll();
+            return buffer.poll();
+        }
+
+        /**
+         * Cancels this subscription because of an error, which is sent to
+         * the subscriber next.
+         *
+         * @param cause
+         *            The error.
+         */
+        private synchronized void fail(Throwable cause) {
+            if (error == null) {
+                error = cause;
+            }
+        }
+
+        /**
+         * Sends the subscriber its error or completion, if any.
+         */
+        private void terminate() {
+            Throwable failure;
+            synchronized (this) {
+                boolean completed = completing && buffer.isEmpty();
+                if (done || (error == null && !completed)) {
+                    return;
+                }
+                failure = error;
+            }
+            cancel();
+            if (failure == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(failure);
+            }
+        }
+
+        /**
+         * @return <code>true</code> iff there are signals to send.
+         */
+        private synchronized boolean hasPending() {
+            if (done) {
+                return false;
+            }
+            return error != null || (completing && buffer.isEmpty())
+                || (demand > 0L && !buffer.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.tudelft.jpacman.event;
+
+/**
+ * The reactive streams interfaces of <code>java.util.concurrent.Flow</code>,
+ * which is not available on the Java version this game targets. The
+ * interfaces and their contracts are the same, so that moving to the JDK
+ * interfaces only takes changing the imports.
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A producer of items that are received by subscribers.
+     *
+     * @param <T>
+     *            The type of the items.
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Adds a subscriber, which is sent
+         * {@link Subscriber#onSubscribe(Subscription)} before any items.
+         *
+         * @param subscriber
+         *            The subscriber.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. The methods of a subscriber are called one at a
+     * time, and items are only sent as far as they have been requested.
+     *
+     * @param <T>
+     *            The type of the items.
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Called before any other method, with the subscription through
+         * which items are requested.
+         *
+         * @param subscription
+         *            The new subscription.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next item.
+         *
+         * @param item
+         *            The item.
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the subscription failed. No other methods are called
+         * afterwards.
+         *
+         * @param throwable
+         *            The cause of the failure.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when no more items will be sent. No other methods are
+         * called afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and one of its subscribers.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds to the number of items the subscriber is ready to receive.
+         *
+         * @param n
+         *            The number of additional items, at least 1.
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items to the subscriber.
+         */
+        void cancel();
+    }
+}
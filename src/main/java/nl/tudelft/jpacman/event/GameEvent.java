@@ -0,0 +1,249 @@
+package nl.tudelft.jpacman.event;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * Something that happened in a level, as published by its
+ * {@link EventPublisher}. Events are immutable, but refer to the units
+ * involved, whose state may have changed by the time the event is received.
+ */
+public final class GameEvent {
+
+    /**
+     * The types of events.
+     */
+    public enum Type {
+
+        /**
+         * A unit moved to another square.
+         */
+        UNIT_MOVED,
+
+        /**
+         * A unit that moved collided with a unit on its new square.
+         */
+        COLLISION,
+
+        /**
+         * A pellet was eaten.
+         */
+        PELLET_EATEN,
+
+        /**
+         * The score of a player changed.
+         */
+        SCORE_CHANGED,
+
+        /**
+         * A player died.
+         */
+        PLAYER_DIED,
+
+        /**
+         * The level was won.
+         */
+        LEVEL_WON,
+
+        /**
+         * The level was lost.
+         */
+        LEVEL_LOST
+    }
+
+    /**
+     * The type of this event.
+     */
+    private final Type type;
+
+    /**
+     * The unit this event is about, or <code>null</code>.
+     */
+    private final Unit unit;
+
+    /**
+     * The other unit involved, or <code>null</code>.
+     */
+    private final Unit other;
+
+    /**
+     * The direction of a move, or <code>null</code>.
+     */
+    private final Direction direction;
+
+    /**
+     * The index of the square of a move, or -1.
+     */
+    private final int square;
+
+    /**
+     * The points of a score change or eaten pellet, or 0.
+     */
+    private final int points;
+
+    /**
+     * Creates a new event.
+     *
+     * @param type
+     *            The type of the event.
+     * @param unit
+     *            The unit the event is about, or <code>null</code>.
+     * @param other
+     *            The other unit involved, or <code>null</code>.
+     * @param direction
+     *            The direction of a move, or <code>null</code>.
+     * @param square
+     *            The index of the square of a move, or -1.
+     * @param points
+     *            The points of a score change or eaten pellet, or 0.
+     */
+    private GameEvent(Type type, Unit unit, Unit other, Direction direction, int square,
+                      int points) {
+        this.type = type;
+        this.unit = unit;
+        this.other = other;
+        this.direction = direction;
+        this.square = square;
+        this.points = points;
+    }
+
+    /**
+     * @param unit
+     *            The unit that moved.
+     * @param direction
+     *            The direction it moved in.
+     * @param square
+     *            The index of its new square.
+     * @return An event telling that the unit moved.
+     */
+    public static GameEvent unitMoved(Unit unit, Direction direction, int square) {
+        return new GameEvent(Type.UNIT_MOVED, unit, null, direction, square, 0);
+    }
+
+    /**
+     * @param collider
+     *            The unit that moved.
+     * @param collidee
+     *            The unit it collided with.
+     * @return An event telling that the units collided.
+     */
+    public static GameEvent collision(Unit collider, Unit collidee) {
+        return new GameEvent(Type.COLLISION, collider, collidee, null, -1, 0);
+    }
+
+    /**
+     * @param pellet
+     *            The pellet that was eaten.
+     * @param eater
+     *            The unit that ate it.
+     * @param points
+     *            The value of the pellet.
+     * @return An event telling that the pellet was eaten.
+     */
+    public static GameEvent pelletEaten(Unit pellet, Unit eater, int points) {
+        return new GameEvent(Type.PELLET_EATEN, pellet, eater, null, -1, points);
+    }
+
+    /**
+     * @param player
+     *            The player whose score changed.
+     * @param score
+     *            The new score.
+     * @return An event telling that the score of the player changed.
+     */
+    public static GameEvent scoreChanged(Unit player, int score) {
+        return new GameEvent(Type.SCORE_CHANGED, player, null, null, -1, score);
+    }
+
+    /**
+     * @param player
+     *            The player that died.
+     * @param killer
+     *            The unit it collided with.
+     * @return An event telling that the player died.
+     */
+    public static GameEvent playerDied(Unit player, Unit killer) {
+        return new GameEvent(Type.PLAYER_DIED, player, killer, null, -1, 0);
+    }
+
+    /**
+     * @param won
+     *            <code>true</code> if the level was won, <code>false</code> if
+     *            it was lost.
+     * @return An event telling that the level ended.
+     */
+    public static GameEvent levelEnded(boolean won) {
+        Type type = Type.LEVEL_LOST;
+        if (won) {
+            type = Type.LEVEL_WON;
+        }
+        return new GameEvent(type, null, null, null, -1, 0);
+    }
+
+    /**
+     * @return The type of this event.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The unit this event is about: the unit that moved or collided,
+     *         the pellet that was eaten or the player whose score changed or
+     *         who died; <code>null</code> if the level ended.
+     */
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return The other unit involved: the unit collided with, the unit that
+     *         ate a pellet or the unit that killed a player; otherwise
+     *         <code>null</code>.
+     */
+    public Unit getOther() {
+        return other;
+    }
+
+    /**
+     * @return The direction of a move, or <code>null</code>.
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return The index of the new square of a move, or -1.
+     */
+    public int getSquare() {
+        return square;
+    }
+
+    /**
+     * @return The new score of a score change, the value of an eaten pellet,
+     *         or 0.
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Determines whether this event makes an earlier event superfluous for
+     * subscribers that are only interested in the latest state, i.e. whether
+     * both events report a new position or score of the same unit.
+     *
+     * @param earlier
+     *            The earlier event.
+     * @return <code>true</code> iff this event supersedes the earlier one.
+     */
+    public boolean supersedes(GameEvent earlier) {
+        return type == earlier.type && unit == earlier.unit
+            && (type == Type.UNIT_MOVED || type == Type.SCORE_CHANGED);
+    }
+
+    @Override
+    public String toString() {
+        return type + "[" + unit + ", " + other + ", " + direction + ", " + square
+            + ", " + points + "]";
+    }
+}
@@ -0,0 +1,657 @@
+package nl.tudelft.jpacman.game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelSnapshot;
+import nl.tudelft.jpacman.level.NpcScheduler;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.replay.VarInts;
+
+/**
+ * A deterministic, fixed timestep clock for a {@link Game}. Simulation time
+ * advances in ticks: every tick first applies the player moves queued since
+ * the previous tick, in the order in which they were queued, and then moves
+ * every ghost that is due. The interval of a ghost is converted to a whole
+ * number of ticks.
+ *
+ * <p>
+ * The ghosts that are due decide their moves in parallel, on a pool of
+ * their own, so that every ghost sees the same state: the units as they are
+ * after the player moves of the tick. Since all moves of the game are made
+ * by this engine, nothing moves while the ghosts decide, and they do so
+ * without holding up moves. Should a unit be moved around the engine while
+ * the ghosts decide, as told by the move stamp of the level, the ghosts decide
+ * again while the level holds all moves. The moves are then applied in the
+ * order in which the ghosts were placed on the board. Since every ghost
+ * draws from its own random generator, the outcome does not depend on the
+ * number of threads. For the same reason, the ghosts always run their AI, see
+ * {@link Ghost#setAiBudgetEnforced(boolean)}.
+ * </p>
+ *
+ * <p>
+ * The engine replaces the {@link NpcScheduler} for the level of its game. It
+ * can be stepped by hand, run as fast as possible for batch evaluation with
+ * {@link #run(long)} and {@link #runUntilFinished(long)}, or run in real time
+ * for the user interface with {@link #startRealTime()}.
+ * </p>
+ */
+public class TickEngine {
+
+    /**
+     * The default duration of a tick in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+
+    /**
+     * The source of the CPU time of the threads deciding ghost moves.
+     */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The game this engine drives.
+     */
+    private final Game game;
+
+    /**
+     * The duration of a tick in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * The ghosts of the level, in the order in which they move.
+     */
+    private final List<Ghost> ghosts;
+
+    /**
+     * The tick at which each ghost moves next, or 0 if it has not been
+     * scheduled yet.
+     */
+    private final long[] nextGhostTick;
+
+    /**
+     * The indices of the ghosts that are due in the current tick.
+     */
+    private final int[] dueGhosts;
+
+    /**
+     * The moves decided by the ghosts that are due, by their position in
+     * {@link #dueGhosts}.
+     */
+    private final Direction[] plannedMoves;
+
+    /**
+     * The executor the ghosts decide their moves on.
+     */
+    private Executor aiExecutor = AiPool.POOL;
+
+    /**
+     * The player moves queued for the next tick.
+     */
+    private final Queue<QueuedMove> inputs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of ticks simulated so far.
+     */
+    private long tick;
+
+    /**
+     * The CPU time each ghost that is due spent deciding its move, by its
+     * position in {@link #dueGhosts}.
+     */
+    private final long[] decisionNanos;
+
+    /**
+     * The CPU time spent deciding the moves of the ghosts so far, in
+     * nanoseconds.
+     */
+    private long ghostAiNanos;
+
+    /**
+     * The task stepping this engine in real time, or <code>null</code>.
+     */
+    private ScheduledFuture<?> realTime;
+
+    /**
+     * The listener told about every tick, or <code>null</code>.
+     */
+    private TickListener listener;
+
+    /**
+     * Creates a new engine with ticks of {@link #DEFAULT_TICK_MILLIS}.
+     *
+     * @param game
+     *            The game to drive, which must not be in progress yet.
+     */
+    public TickEngine(Game game) {
+        this(game, DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Creates a new engine.
+     *
+     * @param game
+     *            The game to drive, which must not be in progress yet.
+     * @param tickMillis
+     *            The duration of a tick in milliseconds, at least 1.
+     */
+    public TickEngine(Game game, long tickMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.game = game;
+        this.tickMillis = tickMillis;
+        Level level = game.getLevel();
+        level.setNpcScheduling(false);
+        this.ghosts = level.getGhosts();
+        for (Ghost ghost : ghosts) {
+            ghost.setAiBudgetEnforced(false);
+        }
+        this.nextGhostTick = new long[ghosts.size()];
+        this.dueGhosts = new int[ghosts.size()];
+        this.plannedMoves = new Direction[ghosts.size()];
+        this.decisionNanos = new long[ghosts.size()];
+    }
+
+    /**
+     * @return The game this engine drives.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * @return The duration of a tick in milliseconds.
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Sets the listener that is told about the inputs applied in every tick
+     * and about every completed tick, for instance to record the game.
+     *
+     * @param newListener
+     *            The new listener, or <code>null</code> to remove it.
+     */
+    public synchronized void setTickListener(TickListener newListener) {
+        this.listener = newListener;
+    }
+
+    /**
+     * Sets the executor the ghosts decide their moves on, by default a fork
+     * join pool shared by the engines for this purpose only. One of the
+     * ghosts always decides on the thread stepping this engine.
+     *
+     * @param executor
+     *            The executor, e.g. <code>Runnable::run</code> to decide on
+     *            the stepping thread only.
+     */
+    public synchronized void setAiExecutor(Executor executor) {
+        assert executor != null;
+        this.aiExecutor = executor;
+    }
+
+    /**
+     * @return The number of ticks simulated so far.
+     */
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The CPU time spent deciding the moves of the ghosts so far, in
+     *         nanoseconds, summed over the threads they decided on. Where
+     *         the JVM cannot measure the CPU time of threads, this is the
+     *         wall clock time of the decisions.
+     */
+    public synchronized long getGhostAiNanos() {
+        return ghostAiNanos;
+    }
+
+    /**
+     * Converts a duration to a number of ticks.
+     *
+     * @param millis
+     *            The duration in milliseconds.
+     * @return The number of ticks closest to the duration, at least 1.
+     */
+    public long ticks(long millis) {
+        return Math.max(1L, Math.round((double) millis / tickMillis));
+    }
+
+    /**
+     * Queues a player move for the next tick.
+     *
+     * @param player
+     *            The player to move.
+     * @param direction
+     *            The direction to move in.
+     */
+    public void queueMove(Player player, Direction direction) {
+        assert player != null;
+        assert direction != null;
+        inputs.add(new QueuedMove(player, direction));
+    }
+
+    /**
+     * Simulates a single tick. Nothing happens while the game is not in
+     * progress, but the player moves queued so far are discarded.
+     */
+    public synchronized void step() {
+        if (!game.isInProgress()) {
+            inputs.clear();
+            return;
+        }
+        tick++;
+        for (QueuedMove input = inputs.poll(); input != null; input = inputs.poll()) {
+            if (listener != null) {
+                listener.inputApplied(tick, input.player, input.direction);
+            }
+            game.move(input.player, input.direction);
+        }
+        if (game.getLevel().isFrozen()) {
+            postponeGhosts();
+        } else {
+            moveGhosts();
+        }
+        if (listener != null) {
+            listener.tickCompleted(tick);
+        }
+    }
+
+    /**
+     * Moves every ghost that is due in this tick, and schedules its next move.
+     */
+    private void moveGhosts() {
+        int due = 0;
+        for (int i = 0; i < ghosts.size(); i++) {
+            if (nextGhostTick[i] == 0L) {
+                nextGhostTick[i] = tick + ticks(ghosts.get(i).getInterval() / 2);
+            }
+            if (nextGhostTick[i] <= tick) {
+                dueGhosts[due++] = i;
+            }
+        }
+        if (due == 0) {
+            return;
+        }
+        Level level = game.getLevel();
+        if (game.isInProgress()) {
+            planGhostMoves(due);
+        }
+        for (int k = 0; k < due; k++) {
+            Ghost ghost = ghosts.get(dueGhosts[k]);
+            if (plannedMoves[k] != null && game.isInProgress()) {
+                level.move(ghost, plannedMoves[k]);
+            }
+            plannedMoves[k] = null;
+            nextGhostTick[dueGhosts[k]] = tick + ticks(ghost.getInterval());
+        }
+    }
+
+    /**
+     * Lets the ghosts that are due decide their moves, without holding up
+     * moves. If a unit was moved meanwhile, the ghosts retract their moves
+     * and decide again while the level holds all moves.
+     *
+     * @param count
+     *            The number of ghosts that are due.
+     */
+    private void planGhostMoves(int count) {
+        Level level = game.getLevel();
+        long stamp = level.getMoveStamp();
+        decideGhostMoves(count);
+        if (!level.isUnmovedSince(stamp)) {
+            for (int k = 0; k < count; k++) {
+                ghosts.get(dueGhosts[k]).retractMove();
+            }
+            level.holdMoves(() -> decideGhostMoves(count));
+        }
+    }
+
+    /**
+     * Lets the ghosts that are due decide their moves in parallel, the last
+     * one on this thread.
+     *
+     * @param count
+     *            The number of ghosts that are due.
+     */
+    private void decideGhostMoves(int count) {
+        CompletableFuture<?>[] planning = new CompletableFuture<?>[count - 1];
+        for (int k = 0; k < count - 1; k++) {
+            int slot = k;
+            planning[k] = CompletableFuture.runAsync(() -> decideGhostMove(slot), aiExecutor);
+        }
+        decideGhostMove(count - 1);
+        CompletableFuture.allOf(planning).join();
+        for (int k = 0; k < count; k++) {
+            ghostAiNanos += decisionNanos[k];
+        }
+    }
+
+    /**
+     * Lets a ghost that is due decide its move, measuring the CPU time of
+     * the current thread it takes.
+     *
+     * @param slot
+     *            The position of the ghost in {@link #dueGhosts}.
+     */
+    private void decideGhostMove(int slot) {
+        long started = cpuTime();
+        plannedMoves[slot] = ghosts.get(dueGhosts[slot]).nextMove();
+        decisionNanos[slot] = cpuTime() - started;
+    }
+
+    /**
+     * @return The CPU time of the current thread in nanoseconds, or the wall
+     *         clock time if the JVM cannot measure it.
+     */
+    private static long cpuTime() {
+        if (THREADS.isCurrentThreadCpuTimeSupported()) {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Postpones the next move of every ghost by a tick, so that the ghosts
+     * keep the time remaining until their moves while the level is frozen.
+     */
+    private void postponeGhosts() {
+        for (int i = 0; i < nextGhostTick.length; i++) {
+            if (nextGhostTick[i] != 0L) {
+                nextGhostTick[i]++;
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the level and of the ghost timing of this engine.
+     *
+     * @return A snapshot that can be restored with {@link #restore(Snapshot)}.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(game.getLevel().snapshot(), tick, nextGhostTick.clone());
+    }
+
+    /**
+     * Restores the level and the ghost timing of this engine to a snapshot
+     * taken from it, discarding the player moves queued so far. A level that
+     * was stopped since is not started again.
+     *
+     * @param snapshot
+     *            A snapshot taken from this engine.
+     */
+    public synchronized void restore(Snapshot snapshot) {
+        game.getLevel().restore(snapshot.level);
+        inputs.clear();
+        tick = snapshot.tick;
+        System.arraycopy(snapshot.nextGhostTick, 0, nextGhostTick, 0, nextGhostTick.length);
+    }
+
+    /**
+     * Reads a snapshot of this engine written by
+     * {@link Snapshot#writeTo(ByteBuffer)}.
+     *
+     * @param buffer
+     *            The buffer to read from.
+     * @return The snapshot, which can be restored on this engine.
+     */
+    public Snapshot readSnapshot(ByteBuffer buffer) {
+        LevelSnapshot level = LevelSnapshot.readFrom(game.getLevel(), buffer);
+        long at = VarInts.getUnsigned(buffer);
+        long[] next = new long[VarInts.getUnsignedInt(buffer)];
+        if (next.length != nextGhostTick.length) {
+            throw new IllegalArgumentException("Snapshot does not match this engine.");
+        }
+        for (int i = 0; i < next.length; i++) {
+            next[i] = at + VarInts.getSigned(buffer);
+        }
+        return new Snapshot(level, at, next);
+    }
+
+    /**
+     * Simulates a number of ticks as fast as possible.
+     *
+     * @param count
+     *            The number of ticks to simulate.
+     */
+    public void run(long count) {
+        for (long i = 0; i < count; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Simulates ticks as fast as possible until the game is no longer in
+     * progress, i.e. until the level is won or lost.
+     *
+     * @param maxTicks
+     *            The maximum number of ticks to simulate.
+     * @return The number of ticks simulated.
+     */
+    public long runUntilFinished(long maxTicks) {
+        long count = 0;
+        while (count < maxTicks && game.isInProgress()) {
+            step();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Starts stepping this engine in real time, once every tick. If a tick
+     * fails, the game is stopped along with the clock, and the failure is
+     * handed to the uncaught exception handler of the stepping thread,
+     * instead of the clock silently stopping with the game still in
+     * progress.
+     */
+    public synchronized void startRealTime() {
+        if (realTime != null) {
+            return;
+        }
+        realTime = NpcScheduler.get().scheduleAtFixedRate(
+            this::stepInRealTime, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Simulates a tick for the real time clock, stopping the game and the
+     * clock if it fails.
+     */
+    private void stepInRealTime() {
+        try {
+            step();
+        } catch (RuntimeException e) {
+            stopRealTime();
+            game.stop();
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Stops stepping this engine in real time.
+     */
+    public synchronized void stopRealTime() {
+        if (realTime != null) {
+            realTime.cancel(false);
+            realTime = null;
+        }
+    }
+
+    /**
+     * The pool the ghosts of all engines decide their moves on, created when
+     * it is first used. It is separate from the common pool, so that the
+     * ghosts neither wait for nor delay other work, such as publishing
+     * events.
+     */
+    private static final class AiPool {
+
+        /**
+         * The pool, with a daemon thread per processor.
+         */
+        static final ForkJoinPool POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(), pool -> {
+                ForkJoinWorkerThread thread =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("jpacman-ai-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+
+        /**
+         * Not to be instantiated.
+         */
+        private AiPool() {
+        }
+    }
+
+    /**
+     * The state of a level and of the ghost timing of an engine at some tick.
+     */
+    public static final class Snapshot {
+
+        /**
+         * The state of the level.
+         */
+        private final LevelSnapshot level;
+
+        /**
+         * The tick at which the snapshot was taken.
+         */
+        private final long tick;
+
+        /**
+         * The tick at which each ghost would move next.
+         */
+        private final long[] nextGhostTick;
+
+        /**
+         * Creates a new snapshot.
+         *
+         * @param level
+         *            The state of the level.
+         * @param tick
+         *            The tick at which the snapshot is taken.
+         * @param nextGhostTick
+         *            The tick at which each ghost would move next.
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        Snapshot(LevelSnapshot level, long tick, long[] nextGhostTick) {
+            this.level = level;
+            this.tick = tick;
+            this.nextGhostTick = nextGhostTick;
+        }
+
+        /**
+         * @return The state of the level.
+         */
+        public LevelSnapshot getLevelSnapshot() {
+            return level;
+        }
+
+        /**
+         * @return The tick at which the snapshot was taken.
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * @return The maximum number of bytes {@link #writeTo(ByteBuffer)}
+         *         writes.
+         */
+        public int maxEncodedSize() {
+            return level.maxEncodedSize()
+                + (nextGhostTick.length + 1) * VarInts.MAX_LONG_BYTES + VarInts.MAX_INT_BYTES;
+        }
+
+        /**
+         * Writes this snapshot to a buffer, with the ghost timing relative to
+         * the tick of the snapshot.
+         *
+         * @param buffer
+         *            The buffer to write to, with room for at least
+         *            {@link #maxEncodedSize()} bytes.
+         */
+        public void writeTo(ByteBuffer buffer) {
+            level.writeTo(buffer);
+            VarInts.putUnsigned(buffer, tick);
+            VarInts.putUnsigned(buffer, nextGhostTick.length);
+            for (long next : nextGhostTick) {
+                VarInts.putSigned(buffer, next - tick);
+            }
+        }
+    }
+
+    /**
+     * A listener that is told about the progress of an engine. It is called
+     * on the thread stepping the engine, while the engine is locked.
+     */
+    public interface TickListener {
+
+        /**
+         * A queued player move is applied.
+         *
+         * @param tick
+         *            The tick in which the move is applied.
+         * @param player
+         *            The player to move.
+         * @param direction
+         *            The direction to move in.
+         */
+        void inputApplied(long tick, Player player, Direction direction);
+
+        /**
+         * A tick is completed, i.e. all inputs are applied and all ghosts
+         * that were due have moved.
+         *
+         * @param tick
+         *            The completed tick.
+         */
+        void tickCompleted(long tick);
+    }
+
+    /**
+     * A player move waiting for the next tick.
+     */
+    private static final class QueuedMove {
+
+        /**
+         * The player to move.
+         */
+        private final Player player;
+
+        /**
+         * The direction to move in.
+         */
+        private final Direction direction;
+
+        /**
+         * Creates a new queued move.
+         *
+         * @param player
+         *            The player to move.
+         * @param direction
+         *            The direction to move in.
+         */
+        QueuedMove(Player player, Direction direction) {
+            this.player = player;
+            this.direction = direction;
+        }
+    }
+}
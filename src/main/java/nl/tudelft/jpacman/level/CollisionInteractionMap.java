@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import nl.tudelft.jpacman.board.Unit;
 
@@ -15,12 +17,25 @@ import nl.tudelft.jpacman.board.Unit;
  */
 public class CollisionInteractionMap implements CollisionMap {
 
+    /**
+     * The handler of collisions for which no handler is listed.
+     */
+    private static final CollisionHandler<Unit, Unit> NO_HANDLER = (collider, collidee) -> {
+    };
+
     /**
      * The collection of collision handlers.
      */
     private final Map<Class<? extends Unit>,
         Map<Class<? extends Unit>, CollisionHandler<?, ?>>> handlers;
 
+    /**
+     * The handler resolved for every pair of collider and collidee class,
+     * filled on demand. It is cleared whenever a handler is added.
+     */
+    private final ConcurrentMap<Class<?>,
+        ConcurrentMap<Class<?>, CollisionHandler<?, ?>>> resolved = new ConcurrentHashMap<>();
+
     /**
      * Creates a new, empty collision map.
      */
@@ -75,6 +90,7 @@ public class CollisionInteractionMap implements CollisionMap {
         if (symetric) {
             addHandler(collidee, collider, new InverseCollisionHandler<>(handler));
         }
+        resolved.clear();
     }
 
     /**
@@ -87,7 +103,7 @@ public class CollisionInteractionMap implements CollisionMap {
      * @param handler
      *            The handler that handles the collision.
      */
-    private void addHandler(Class<? extends Unit> collider,
+    private synchronized void addHandler(Class<? extends Unit> collider,
                             Class<? extends Unit> collidee, CollisionHandler<?, ?> handler) {
         if (!handlers.containsKey(collider)) {
             handlers.put(collider, new HashMap<>());
@@ -115,23 +131,63 @@ public class CollisionInteractionMap implements CollisionMap {
     @Override
     public <C1 extends Unit, C2 extends Unit> void collide(C1 collider,
                                                            C2 collidee) {
-        Class<? extends Unit> colliderKey = getMostSpecificClass(handlers, collider.getClass());
-        if (colliderKey == null) {
-            return;
-        }
+        Class<? extends Unit> colliderClass = collider.getClass();
+        CollisionHandler<C1, C2> collisionHandler = (CollisionHandler<C1, C2>)
+            resolved.computeIfAbsent(colliderClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(collidee.getClass(),
+                    key -> resolve(colliderClass, key.asSubclass(Unit.class)));
+        collisionHandler.handleCollision(collider, collidee);
+    }
 
-        Map<Class<? extends Unit>, CollisionHandler<?, ?>> map = handlers.get(colliderKey);
-        Class<? extends Unit> collideeKey = getMostSpecificClass(map, collidee.getClass());
-        if (collideeKey == null) {
-            return;
+    /**
+     * Compiles this map into a matrix that dispatches on kind codes, see
+     * {@link CollisionMatrix}. Every kind is represented by the type that
+     * declares it, and the handlers are resolved for these types as
+     * {@link #collide(Unit, Unit)} would.
+     *
+     * @param kindTypes
+     *            The type declaring every kind code that should be handled.
+     * @return A new matrix with the handlers of this map.
+     */
+    @SuppressWarnings("unchecked")
+    public CollisionMatrix toMatrix(Map<Integer, Class<? extends Unit>> kindTypes) {
+        CollisionMatrix matrix = new CollisionMatrix();
+        for (Map.Entry<Integer, Class<? extends Unit>> collider : kindTypes.entrySet()) {
+            for (Map.Entry<Integer, Class<? extends Unit>> collidee : kindTypes.entrySet()) {
+                CollisionHandler<Unit, Unit> handler = (CollisionHandler<Unit, Unit>)
+                    resolve(collider.getValue(), collidee.getValue());
+                if (handler != NO_HANDLER) {
+                    matrix.onCollision(collider.getKey(), collidee.getKey(), false, handler);
+                }
+            }
         }
+        return matrix;
+    }
 
-        CollisionHandler<C1, C2> collisionHandler = (CollisionHandler<C1, C2>) map.get(collideeKey);
-        if (collisionHandler == null) {
-            return;
+    /**
+     * Finds the handler of the collision between two classes of units, based
+     * on the most specific listed classes they inherit.
+     *
+     * @param colliderClass
+     *            The class of the collider.
+     * @param collideeClass
+     *            The class of the collidee.
+     * @return The handler of the collision, or {@link #NO_HANDLER} if none
+     *         is listed.
+     */
+    private synchronized CollisionHandler<?, ?> resolve(Class<? extends Unit> colliderClass,
+                                                        Class<? extends Unit> collideeClass) {
+        Class<? extends Unit> colliderKey = getMostSpecificClass(handlers, colliderClass);
+        if (colliderKey == null) {
+            return NO_HANDLER;
         }
 
-        collisionHandler.handleCollision(collider, collidee);
+        Map<Class<? extends Unit>, CollisionHandler<?, ?>> map = handlers.get(colliderKey);
+        Class<? extends Unit> collideeKey = getMostSpecificClass(map, collideeClass);
+        if (collideeKey == null || map.get(collideeKey) == null) {
+            return NO_HANDLER;
+        }
+        return map.get(collideeKey);
     }
 
     /**
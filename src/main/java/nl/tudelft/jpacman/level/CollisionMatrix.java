@@ -0,0 +1,147 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.Arrays;
+
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.CollisionInteractionMap.CollisionHandler;
+
+/**
+ * A collision map that dispatches on the kind codes of units, see
+ * {@link Unit#getKind()}. The handlers are kept in a kind by kind matrix, so
+ * a collision costs a single array lookup, however many kinds of units
+ * there are.
+ *
+ * <p>
+ * A handler is registered for a pair of kinds, and is used for every unit of
+ * those kinds. The units passed to it are assumed to be of the types the
+ * handler expects, which holds as long as every kind code is declared by a
+ * single type.
+ * </p>
+ */
+public final class CollisionMatrix implements CollisionMap {
+
+    /**
+     * The handler of collisions for which no handler is registered.
+     */
+    private static final CollisionHandler<Unit, Unit> NO_HANDLER = (collider, collidee) -> {
+    };
+
+    /**
+     * The handler of every pair of kinds, at
+     * <code>colliderKind * KIND_LIMIT + collideeKind</code>.
+     */
+    private final CollisionHandler<?, ?>[] handlers;
+
+    /**
+     * Creates a new matrix without any handlers.
+     */
+    public CollisionMatrix() {
+        this.handlers = new CollisionHandler<?, ?>[Unit.KIND_LIMIT * Unit.KIND_LIMIT];
+        Arrays.fill(handlers, NO_HANDLER);
+    }
+
+    /**
+     * Adds a two-way collision interaction to this matrix, i.e. the handler
+     * will be used for both kinds of colliders.
+     *
+     * @param <C1>
+     *            The collider type.
+     * @param <C2>
+     *            The collidee (unit that was moved into) type.
+     *
+     * @param colliderKind
+     *            The kind code of the collider.
+     * @param collideeKind
+     *            The kind code of the collidee.
+     * @param handler
+     *            The handler that handles the collision.
+     * @return This matrix, to allow chaining.
+     */
+    public <C1 extends Unit, C2 extends Unit> CollisionMatrix onCollision(
+        int colliderKind, int collideeKind, CollisionHandler<C1, C2> handler) {
+        return onCollision(colliderKind, collideeKind, true, handler);
+    }
+
+    /**
+     * Adds a collision interaction to this matrix, replacing the one that was
+     * registered for the same kinds.
+     *
+     * @param <C1>
+     *            The collider type.
+     * @param <C2>
+     *            The collidee (unit that was moved into) type.
+     *
+     * @param colliderKind
+     *            The kind code of the collider.
+     * @param collideeKind
+     *            The kind code of the collidee.
+     * @param symmetric
+     *            <code>true</code> if this collision is used for both
+     *            C1 against C2 and vice versa;
+     *            <code>false</code> if only for C1 against C2.
+     * @param handler
+     *            The handler that handles the collision.
+     * @return This matrix, to allow chaining.
+     */
+    public <C1 extends Unit, C2 extends Unit> CollisionMatrix onCollision(
+        int colliderKind, int collideeKind, boolean symmetric,
+        CollisionHandler<C1, C2> handler) {
+        assert handler != null;
+        handlers[cell(colliderKind, collideeKind)] = handler;
+        if (symmetric) {
+            CollisionHandler<C2, C1> inverse =
+                (collider, collidee) -> handler.handleCollision(collidee, collider);
+            handlers[cell(collideeKind, colliderKind)] = inverse;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the position of the handler of a pair of kinds.
+     *
+     * @param colliderKind
+     *            The kind code of the collider.
+     * @param collideeKind
+     *            The kind code of the collidee.
+     * @return The position of the handler in the matrix.
+     * @throws IllegalArgumentException
+     *             If a kind code is negative or not below
+     *             {@link Unit#KIND_LIMIT}.
+     */
+    private static int cell(int colliderKind, int collideeKind) {
+        if (colliderKind < 0 || colliderKind >= Unit.KIND_LIMIT
+            || collideeKind < 0 || collideeKind >= Unit.KIND_LIMIT) {
+            throw new IllegalArgumentException("Kind codes out of range: "
+                + colliderKind + ", " + collideeKind);
+        }
+        return colliderKind * Unit.KIND_LIMIT + collideeKind;
+    }
+
+    /**
+     * Determines whether a handler is registered for a pair of kinds.
+     *
+     * @param colliderKind
+     *            The kind code of the collider.
+     * @param collideeKind
+     *            The kind code of the collidee.
+     * @return <code>true</code> iff collisions of the kinds are handled.
+     */
+    public boolean handles(int colliderKind, int collideeKind) {
+        return handlers[cell(colliderKind, collideeKind)] != NO_HANDLER;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException
+     *             If the kind code of a unit is not below
+     *             {@link Unit#KIND_LIMIT}.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <C1 extends Unit, C2 extends Unit> void collide(C1 collider, C2 collidee) {
+        CollisionHandler<C1, C2> handler = (CollisionHandler<C1, C2>)
+            handlers[cell(collider.getKind(), collidee.getKind())];
+        handler.handleCollision(collider, collidee);
+    }
+}
@@ -1,5 +1,8 @@
 package nl.tudelft.jpacman.level;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.npc.Ghost;
 
@@ -16,13 +19,26 @@ import nl.tudelft.jpacman.npc.Ghost;
  */
 public class DefaultPlayerInteractionMap implements CollisionMap {
 
-    private final CollisionMap collisions = defaultCollisions();
+    private final CollisionMap collisions = defaultCollisions().toMatrix(kindTypes());
 
     @Override
     public void collide(Unit mover, Unit movedInto) {
         collisions.collide(mover, movedInto);
     }
 
+    /**
+     * Returns the types declaring the kinds of units that collide.
+     *
+     * @return The type declaring every kind code.
+     */
+    private static Map<Integer, Class<? extends Unit>> kindTypes() {
+        Map<Integer, Class<? extends Unit>> kinds = new HashMap<>();
+        kinds.put(Player.KIND, Player.class);
+        kinds.put(Ghost.KIND, Ghost.class);
+        kinds.put(Pellet.KIND, Pellet.class);
+        return kinds;
+    }
+
     /**
      * Creates the default collisions Player-Ghost and Player-Pellet.
      *
@@ -0,0 +1,277 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.Arrays;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * The distance from every square of a {@link Board} to a single root square,
+ * as travelled by a unit. Units can reach the root by repeatedly stepping to
+ * the neighbour closer to it, see {@link #descend(Square)}.
+ *
+ * <p>
+ * A field is updated by its level whenever the root moves, which happens
+ * while the level holds the lock of the square the root leaves, so that the
+ * updates of a field are sequential. When the root takes a single step, the
+ * distance of every square changes by at most one, so the field is repaired
+ * from the previous one: every square is first assumed to be one step
+ * farther away, and a breadth first search from the new root only spreads
+ * through the squares that turn out to be closer. Only when the root jumps
+ * is the field searched again from scratch.
+ * </p>
+ * <p>
+ * The field is kept in two preallocated buffers: an update writes the buffer
+ * that is not current and then publishes it, so that updates do not
+ * allocate. Readers take no locks; they read the generation of the field
+ * before and after reading a buffer, and read again if the field was updated
+ * in between, so that they never use a buffer that is being rewritten.
+ * </p>
+ */
+public final class DistanceField {
+
+    /**
+     * The distance of squares that cannot reach the root.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * All directions, in the order in which they are explored.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The board this field covers.
+     */
+    private final Board board;
+
+    /**
+     * The unit whose access rights determine the squares that can be crossed.
+     */
+    private final Unit traveller;
+
+    /**
+     * Scratch space for the search queue, which is only used by
+     * {@link #update(Square)} and therefore never by two threads at once.
+     */
+    private final int[] queue;
+
+    /**
+     * The two buffers holding the distance to the root for every square
+     * index. The current one is selected by the {@link #generation}.
+     */
+    private final int[][] buffers;
+
+    /**
+     * The number of updates published so far. The current distances are in
+     * the buffer selected by its lowest bit.
+     */
+    private volatile long generation;
+
+    /**
+     * The square the distances are measured to.
+     */
+    private volatile Square root;
+
+    /**
+     * Creates a new field in which no square can reach the root yet.
+     *
+     * @param board
+     *            The board this field covers.
+     * @param traveller
+     *            The unit whose access rights determine the squares that can
+     *            be crossed. The field is valid for all units with the same
+     *            access rights.
+     */
+    DistanceField(Board board, Unit traveller) {
+        this.board = board;
+        this.traveller = traveller;
+        this.queue = new int[board.getSquareCount()];
+        this.buffers = new int[2][board.getSquareCount()];
+        for (int[] buffer : buffers) {
+            Arrays.fill(buffer, UNREACHABLE);
+        }
+    }
+
+    /**
+     * Recomputes the distances to a new root square, repairing the current
+     * distances if the root took a single step, and publishes them.
+     *
+     * @param newRoot
+     *            The new root of this field.
+     */
+    void update(Square newRoot) {
+        assert newRoot.getBoard() == board;
+
+        Square oldRoot = root;
+        if (newRoot.equals(oldRoot)) {
+            return;
+        }
+        long current = generation;
+        int[] previous = buffers[bufferOf(current)];
+        int[] next = buffers[bufferOf(current + 1L)];
+        if (oldRoot != null && isStep(newRoot.getIndex(), oldRoot.getIndex())) {
+            for (int index = 0; index < next.length; index++) {
+                next[index] = previous[index];
+                if (next[index] != UNREACHABLE) {
+                    next[index]++;
+                }
+            }
+        } else {
+            Arrays.fill(next, UNREACHABLE);
+        }
+        search(next, newRoot.getIndex());
+        this.root = newRoot;
+        this.generation = current + 1L;
+    }
+
+    /**
+     * Determines whether the distances to a new root can be repaired from
+     * those to the old root, i.e. whether every square is at most one step
+     * farther from the new root than from the old one.
+     *
+     * @param newIndex
+     *            The index of the new root.
+     * @param oldIndex
+     *            The index of the old root.
+     * @return <code>true</code> iff the old root is a neighbour of the new
+     *         root that can be crossed.
+     */
+    private boolean isStep(int newIndex, int oldIndex) {
+        for (Direction direction : DIRECTIONS) {
+            if (board.neighbourOf(newIndex, direction) == oldIndex) {
+                return board.isAccessibleAt(oldIndex, traveller);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lowers the distances of a field to those of the shortest paths from a
+     * root by means of a breadth first search, which only spreads through
+     * the squares whose distance it lowers.
+     *
+     * @param field
+     *            The distances to lower, which must not be lower than the
+     *            distances to the root.
+     * @param rootIndex
+     *            The index of the root.
+     */
+    private void search(int[] field, int rootIndex) {
+        int head = 0;
+        int tail = 0;
+        field[rootIndex] = 0;
+        queue[tail++] = rootIndex;
+        while (head < tail) {
+            int index = queue[head++];
+            int distance = field[index] + 1;
+            for (Direction direction : DIRECTIONS) {
+                int next = board.neighbourOf(index, direction);
+                if (next >= 0 && isFarther(field[next], distance)
+                    && board.isAccessibleAt(next, traveller)) {
+                    field[next] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param known
+     *            The distance of a square found so far.
+     * @param distance
+     *            A distance of the square that was found next.
+     * @return <code>true</code> iff the known distance is farther.
+     */
+    private static boolean isFarther(int known, int distance) {
+        return known == UNREACHABLE || known > distance;
+    }
+
+    /**
+     * @param updates
+     *            The number of updates published.
+     * @return The buffer holding the distances after these updates.
+     */
+    private static int bufferOf(long updates) {
+        return (int) (updates & 1L);
+    }
+
+    /**
+     * Returns the square the distances are measured to.
+     *
+     * @return The root of this field, or <code>null</code> if it has not been
+     *         computed yet.
+     */
+    public Square getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the number of steps from a square to the root.
+     *
+     * @param square
+     *            The square to measure from.
+     * @return The distance to the root, or {@link #UNREACHABLE} if the root
+     *         cannot be reached from the square.
+     */
+    public int distanceFrom(Square square) {
+        if (square.getBoard() != board) {
+            return UNREACHABLE;
+        }
+        long read;
+        int distance;
+        do {
+            read = generation;
+            distance = buffers[bufferOf(read)][square.getIndex()];
+        } while (read != generation);
+        return distance;
+    }
+
+    /**
+     * Returns the direction of the first step of a shortest path from a
+     * square to the root, by stepping to the neighbour closest to the root.
+     *
+     * @param square
+     *            The square to move from.
+     * @return The direction to move in, or <code>null</code> if the square
+     *         is the root itself or the root cannot be reached from it.
+     */
+    public Direction descend(Square square) {
+        if (square.getBoard() != board) {
+            return null;
+        }
+        long read;
+        Direction step;
+        do {
+            read = generation;
+            step = descend(buffers[bufferOf(read)], square.getIndex());
+        } while (read != generation);
+        return step;
+    }
+
+    /**
+     * Finds the neighbour of a square that is one step closer to the root.
+     *
+     * @param field
+     *            The distances to read.
+     * @param index
+     *            The index of the square to move from.
+     * @return The direction of the neighbour, or <code>null</code> if there
+     *         is none.
+     */
+    private Direction descend(int[] field, int index) {
+        if (field[index] <= 0) {
+            return null;
+        }
+        int target = field[index] - 1;
+        for (Direction direction : DIRECTIONS) {
+            int next = board.neighbourOf(index, direction);
+            if (next >= 0 && field[next] == target) {
+                return direction;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,458 @@
+package nl.tudelft.jpacman.level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.tudelft.jpacman.board.Direction;
+
+/**
+ * An append-only journal of the changes of a {@link Level}: every move it
+ * accepts, the outcome of every collision and every change of a score. The
+ * journal consists of segment files of fixed size records, which are mapped
+ * into memory, so that appending a record is a few memory writes.
+ *
+ * <p>
+ * Appending takes no lock: every record reserves its slot with an atomic
+ * increment and is written at the reserved position, so that concurrent
+ * moves in different parts of the board do not wait for each other. Each
+ * segment is preallocated and mapped by a background thread as soon as the
+ * segment before it is started, so that rolling to the next segment does
+ * not block the level either. The records can be read back with a
+ * {@link JournalReader}.
+ * </p>
+ *
+ * <p>
+ * A journal keeps the history of a single level. It never deletes or
+ * overwrites segments, and refuses to write to a directory that already
+ * holds any.
+ * </p>
+ *
+ * <p>
+ * A record consists of its sequence number (from 1), the time in
+ * milliseconds, its type, a direction and three numbers whose meaning depends
+ * on the type, see {@link #MOVE}, {@link #COLLISION} and {@link #SCORE}. The
+ * sequence number is written last, so that a record with sequence number 0
+ * has not been written completely.
+ * </p>
+ */
+public final class Journal implements Closeable {
+
+    /**
+     * The size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * The default number of records in a segment.
+     */
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+    /**
+     * The type of a move record: the unit, the index of its new square and
+     * its direction.
+     */
+    public static final byte MOVE = 1;
+
+    /**
+     * The type of a collision record: the collider, the collidee and the
+     * outcome bits, see {@link #COLLIDER_ON_BOARD} and friends.
+     */
+    public static final byte COLLISION = 2;
+
+    /**
+     * The type of a score record: the player, the points added and the new
+     * score.
+     */
+    public static final byte SCORE = 3;
+
+    /**
+     * The outcome bit telling that the collider is still on the board.
+     */
+    public static final int COLLIDER_ON_BOARD = 1;
+
+    /**
+     * The outcome bit telling that the collidee is still on the board.
+     */
+    public static final int COLLIDEE_ON_BOARD = 2;
+
+    /**
+     * The outcome bit telling that the collider is a living player.
+     */
+    public static final int COLLIDER_ALIVE = 4;
+
+    /**
+     * The outcome bit telling that the collidee is a living player.
+     */
+    public static final int COLLIDEE_ALIVE = 8;
+
+    /**
+     * The offset of the time in a record.
+     */
+    static final int TIME = 8;
+
+    /**
+     * The offset of the type in a record.
+     */
+    static final int TYPE = 16;
+
+    /**
+     * The offset of the direction ordinal in a record, -1 if none.
+     */
+    static final int DIRECTION = 17;
+
+    /**
+     * The offset of the unit number in a record.
+     */
+    static final int SUBJECT = 20;
+
+    /**
+     * The offset of the second number in a record.
+     */
+    static final int OTHER = 24;
+
+    /**
+     * The offset of the third number in a record.
+     */
+    static final int VALUE = 28;
+
+    /**
+     * The pattern of the names of segment files.
+     */
+    private static final String SEGMENT_GLOB = "journal-*.seg";
+
+    /**
+     * The directory holding the segments.
+     */
+    private final Path directory;
+
+    /**
+     * The number of records in a segment.
+     */
+    private final int segmentRecords;
+
+    /**
+     * The number of records that reserved a slot.
+     */
+    private final AtomicLong reserved = new AtomicLong();
+
+    /**
+     * The number of records written completely.
+     */
+    private final AtomicLong appended = new AtomicLong();
+
+    /**
+     * The highest number of a segment that is mapped or being mapped.
+     */
+    private final AtomicLong mappedAhead = new AtomicLong(-1L);
+
+    /**
+     * The segments that are mapped or being mapped and have free slots, by
+     * number.
+     */
+    private final ConcurrentMap<Long, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * <code>true</code> iff this journal has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The thread mapping and flushing segments.
+     */
+    private final ExecutorService mapper = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "jpacman-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a new journal in a directory without segments.
+     *
+     * @param directory
+     *            The directory to write the segments to.
+     * @param segmentRecords
+     *            The number of records in a segment.
+     * @throws IOException
+     *             If the directory already holds segments, or the first
+     *             segment could not be created.
+     */
+    private Journal(Path directory, int segmentRecords) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> existing = Files.newDirectoryStream(directory,
+            SEGMENT_GLOB)) {
+            if (existing.iterator().hasNext()) {
+                throw new FileAlreadyExistsException(directory.toString(), null,
+                    "The directory already holds a journal");
+            }
+        }
+        mappedAhead.set(0L);
+        segments.put(0L, new Segment(CompletableFuture.completedFuture(map(0L))));
+        mapAhead(1L);
+    }
+
+    /**
+     * Creates a new journal with segments of
+     * {@link #DEFAULT_SEGMENT_RECORDS} records.
+     *
+     * @param directory
+     *            The directory to write the segments to.
+     * @return The new journal.
+     * @throws IOException
+     *             If the directory already holds segments, or the first
+     *             segment could not be created.
+     */
+    public static Journal create(Path directory) throws IOException {
+        return create(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Creates a new journal in a directory that does not hold segments yet.
+     *
+     * @param directory
+     *            The directory to write the segments to.
+     * @param segmentRecords
+     *            The number of records in a segment, at least 2.
+     * @return The new journal.
+     * @throws IOException
+     *             If the directory already holds segments, or the first
+     *             segment could not be created.
+     */
+    public static Journal create(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords < 2 || segmentRecords > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Invalid segment size: " + segmentRecords);
+        }
+        return new Journal(directory, segmentRecords);
+    }
+
+    /**
+     * Returns the file of a segment.
+     *
+     * @param directory
+     *            The directory holding the segments.
+     * @param number
+     *            The number of the segment.
+     * @return The path of the segment file.
+     */
+    static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("journal-%08d.seg", number));
+    }
+
+    /**
+     * Creates and maps a segment file, filled with zeros. Mapping a segment
+     * that exists already keeps its records.
+     *
+     * @param number
+     *            The number of the segment.
+     * @return The mapped segment.
+     * @throws IOException
+     *             If the segment could not be created.
+     */
+    private MappedByteBuffer map(long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(directory, number),
+            StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0L,
+                (long) segmentRecords * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * @return The number of records written completely, which is the
+     *         sequence number of the last record once concurrent appends
+     *         are done, or 0 if there is none.
+     */
+    public long getSequence() {
+        return appended.get();
+    }
+
+    /**
+     * Appends a move record.
+     *
+     * @param unit
+     *            The number of the unit that moved.
+     * @param square
+     *            The index of its new square.
+     * @param direction
+     *            The direction it moved in.
+     */
+    void recordMove(int unit, int square, Direction direction) {
+        append(MOVE, (byte) direction.ordinal(), unit, square, 0);
+    }
+
+    /**
+     * Appends a collision record.
+     *
+     * @param collider
+     *            The number of the unit that moved.
+     * @param collidee
+     *            The number of the unit it collided with.
+     * @param outcome
+     *            The outcome bits.
+     */
+    void recordCollision(int collider, int collidee, int outcome) {
+        append(COLLISION, (byte) -1, collider, collidee, outcome);
+    }
+
+    /**
+     * Appends a score record.
+     *
+     * @param player
+     *            The number of the player.
+     * @param points
+     *            The points added.
+     * @param score
+     *            The new score of the player.
+     */
+    void recordScore(int player, int points, int score) {
+        append(SCORE, (byte) -1, player, points, score);
+    }
+
+    /**
+     * Appends a record at the slot it reserves. A record only waits if its
+     * segment is still being mapped, which happens only if a whole segment
+     * was written while the next one was mapped.
+     *
+     * @param type
+     *            The type of the record.
+     * @param direction
+     *            The direction ordinal, or -1.
+     * @param subject
+     *            The number of the unit.
+     * @param other
+     *            The second number.
+     * @param value
+     *            The third number.
+     */
+    private void append(byte type, byte direction, int subject, int other, int value) {
+        if (closed) {
+            return;
+        }
+        long slot = reserved.getAndIncrement();
+        long number = slot / segmentRecords;
+        int offset = (int) (slot % segmentRecords) * RECORD_SIZE;
+        if (offset == 0) {
+            mapAhead(number + 1);
+        }
+        Segment segment = segments.get(number);
+        if (segment == null) {
+            segment = segments.computeIfAbsent(number, this::prepare);
+        }
+        MappedByteBuffer buffer = segment.buffer.join();
+        buffer.putLong(offset + TIME, System.currentTimeMillis());
+        buffer.put(offset + TYPE, type);
+        buffer.put(offset + DIRECTION, direction);
+        buffer.putInt(offset + SUBJECT, subject);
+        buffer.putInt(offset + OTHER, other);
+        buffer.putInt(offset + VALUE, value);
+        buffer.putLong(offset, slot + 1);
+        appended.incrementAndGet();
+        if (segment.written.incrementAndGet() == segmentRecords) {
+            segments.remove(number);
+            flush(buffer);
+        }
+    }
+
+    /**
+     * Starts mapping a segment in the background, unless it is mapped or
+     * being mapped already, or has been written completely.
+     *
+     * @param number
+     *            The number of the segment.
+     */
+    private void mapAhead(long number) {
+        long known = mappedAhead.get();
+        if (known < number && mappedAhead.compareAndSet(known, number)) {
+            segments.computeIfAbsent(number, this::prepare);
+        }
+    }
+
+    /**
+     * Starts mapping a segment in the background.
+     *
+     * @param number
+     *            The number of the segment.
+     * @return The segment being mapped.
+     */
+    private Segment prepare(long number) {
+        mappedAhead.accumulateAndGet(number, Math::max);
+        return new Segment(CompletableFuture.supplyAsync(() -> {
+            try {
+                return map(number);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, mapper));
+    }
+
+    /**
+     * Flushes a segment that was written completely to disk in the
+     * background, or right away if this journal was closed meanwhile.
+     *
+     * @param buffer
+     *            The mapped segment.
+     */
+    private void flush(MappedByteBuffer buffer) {
+        try {
+            mapper.execute(buffer::force);
+        } catch (RejectedExecutionException e) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flushes the segments being written to disk and stops the background
+     * thread. Records appended concurrently or afterwards are lost.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.buffer.join().force();
+        }
+        mapper.shutdown();
+    }
+
+    /**
+     * A segment that is mapped or being mapped.
+     */
+    private static final class Segment {
+
+        /**
+         * The mapped segment, once it is mapped.
+         */
+        private final CompletableFuture<MappedByteBuffer> buffer;
+
+        /**
+         * The number of records written to the segment.
+         */
+        private final AtomicInteger written = new AtomicInteger();
+
+        /**
+         * Creates a new segment.
+         *
+         * @param buffer
+         *            The mapped segment, once it is mapped.
+         */
+        Segment(CompletableFuture<MappedByteBuffer> buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
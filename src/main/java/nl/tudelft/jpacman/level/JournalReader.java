@@ -0,0 +1,225 @@
+package nl.tudelft.jpacman.level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * Reads the records of a {@link Journal} in order of their sequence numbers,
+ * one at a time. The reader stops at the first record that has not been
+ * written completely, such as the end of the journal of a level that was
+ * still running or crashed.
+ */
+public final class JournalReader {
+
+    /**
+     * All directions, by ordinal.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The directory holding the segments.
+     */
+    private final Path directory;
+
+    /**
+     * The segment being read, or <code>null</code> if there is none.
+     */
+    private ByteBuffer segment;
+
+    /**
+     * The number of the segment being read.
+     */
+    private long segmentNumber;
+
+    /**
+     * The offset of the current record in the segment.
+     */
+    private int offset = -Journal.RECORD_SIZE;
+
+    /**
+     * The sequence number of the current record, or 0 if there is none.
+     */
+    private long sequence;
+
+    /**
+     * Creates a reader positioned before the first record.
+     *
+     * @param directory
+     *            The directory holding the segments of the journal.
+     * @throws IOException
+     *             If the first segment could not be read.
+     */
+    public JournalReader(Path directory) throws IOException {
+        this.directory = directory;
+        this.segment = load(0L);
+    }
+
+    /**
+     * Maps a segment, if it exists.
+     *
+     * @param number
+     *            The number of the segment.
+     * @return The mapped segment, or <code>null</code> if it does not exist.
+     * @throws IOException
+     *             If the segment could not be read.
+     */
+    private ByteBuffer load(long number) throws IOException {
+        Path file = Journal.segmentFile(directory, number);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        }
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return <code>true</code> iff there is a next record.
+     * @throws IOException
+     *             If the next segment could not be read.
+     */
+    public boolean next() throws IOException {
+        if (segment == null) {
+            return false;
+        }
+        offset += Journal.RECORD_SIZE;
+        if (offset + Journal.RECORD_SIZE > segment.capacity()) {
+            segment = load(++segmentNumber);
+            offset = 0;
+            if (segment == null) {
+                return false;
+            }
+        }
+        long number = segment.getLong(offset);
+        if (number != sequence + 1) {
+            segment = null;
+            return false;
+        }
+        sequence = number;
+        return true;
+    }
+
+    /**
+     * @return The sequence number of the current record.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The time of the current record in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return segment.getLong(offset + Journal.TIME);
+    }
+
+    /**
+     * @return The type of the current record, e.g. {@link Journal#MOVE}.
+     */
+    public byte getType() {
+        return segment.get(offset + Journal.TYPE);
+    }
+
+    /**
+     * @return The direction of the current move record, or <code>null</code>
+     *         for other records.
+     */
+    public Direction getDirection() {
+        byte ordinal = segment.get(offset + Journal.DIRECTION);
+        if (ordinal < 0) {
+            return null;
+        }
+        return DIRECTIONS[ordinal];
+    }
+
+    /**
+     * @return The number of the unit of the current record, see
+     *         {@link Level#getUnitNumber(Unit)}.
+     */
+    public int getSubject() {
+        return segment.getInt(offset + Journal.SUBJECT);
+    }
+
+    /**
+     * @return The second number of the current record: the square of a move,
+     *         the collidee of a collision or the points of a score change.
+     */
+    public int getOther() {
+        return segment.getInt(offset + Journal.OTHER);
+    }
+
+    /**
+     * @return The third number of the current record: the outcome of a
+     *         collision or the new score of a score change.
+     */
+    public int getValue() {
+        return segment.getInt(offset + Journal.VALUE);
+    }
+
+    /**
+     * Applies the remaining records to a level, reconstructing the state of
+     * the journaled level. The level must have been created from the same
+     * map, with the same players registered in the same order.
+     *
+     * @param level
+     *            The level to apply the records to.
+     * @return The number of records applied.
+     * @throws IOException
+     *             If a segment could not be read.
+     */
+    public long applyTo(Level level) throws IOException {
+        long applied = 0L;
+        while (next()) {
+            Unit subject = level.getUnit(getSubject());
+            switch (getType()) {
+                case Journal.MOVE:
+                    level.place(subject, getOther(), getDirection());
+                    break;
+                case Journal.COLLISION:
+                    applyOutcome(level, subject, (getValue() & Journal.COLLIDER_ON_BOARD) != 0,
+                        (getValue() & Journal.COLLIDER_ALIVE) != 0);
+                    applyOutcome(level, level.getUnit(getOther()),
+                        (getValue() & Journal.COLLIDEE_ON_BOARD) != 0,
+                        (getValue() & Journal.COLLIDEE_ALIVE) != 0);
+                    break;
+                case Journal.SCORE:
+                    ((Player) subject).setScore(getValue());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown record type: " + getType());
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Applies the outcome of a collision to one of the units.
+     *
+     * @param level
+     *            The level of the unit.
+     * @param unit
+     *            The unit.
+     * @param onBoard
+     *            Whether the unit remained on the board.
+     * @param alive
+     *            Whether the unit is a living player.
+     */
+    private static void applyOutcome(Level level, Unit unit, boolean onBoard, boolean alive) {
+        if (!onBoard) {
+            level.place(unit, -1, unit.getDirection());
+        }
+        if (unit instanceof Player && ((Player) unit).isAlive() != alive) {
+            ((Player) unit).setAlive(alive);
+        }
+    }
+}
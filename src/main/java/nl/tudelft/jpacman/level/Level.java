@@ -1,20 +1,31 @@
 package nl.tudelft.jpacman.level;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableList;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.event.EventPublisher;
+import nl.tudelft.jpacman.event.GameEvent;
 import nl.tudelft.jpacman.npc.Ghost;
 
 /**
@@ -26,15 +37,60 @@ import nl.tudelft.jpacman.npc.Ghost;
 @SuppressWarnings("PMD.TooManyMethods")
 public class Level {
 
+    /**
+     * The shift that turns a pellet number into a word index of the pellet
+     * set of a {@link LevelSnapshot}.
+     */
+    static final int WORD_SHIFT = 6;
+
+    /**
+     * All directions, by ordinal.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The offset in an undo frame of the search number of the moved unit.
+     */
+    private static final int FRAME_UNIT = 0;
+
+    /**
+     * The offset in an undo frame of the square the unit moved from.
+     */
+    private static final int FRAME_FROM = 1;
+
+    /**
+     * The offset in an undo frame of the former direction of the unit.
+     */
+    private static final int FRAME_DIRECTION = 2;
+
+    /**
+     * The offset in an undo frame of the number of the first pellet on the
+     * destination, or -1 if the unit did not move.
+     */
+    private static final int FRAME_PELLETS = 3;
+
+    /**
+     * The offset in an undo frame of the set of pellets eaten, one bit per
+     * pellet from the first pellet on the destination.
+     */
+    private static final int FRAME_EATEN = 4;
+
+    /**
+     * The offset in an undo frame of the score and life of every player.
+     */
+    private static final int FRAME_PLAYERS = 5;
+
     /**
      * The board of this level.
      */
     private final Board board;
 
     /**
-     * The lock that ensures moves are executed sequential.
+     * The locks of the squares of the board: a move locks the square it
+     * leaves and the square it enters, so that only moves involving the same
+     * squares are executed sequentially.
      */
-    private final Object moveLock = new Object();
+    private final StripedLocks squareLocks = new StripedLocks(StripedLocks.DEFAULT_STRIPES);
 
     /**
      * The lock that ensures starting and stopping can't interfere with each
@@ -43,9 +99,16 @@ public class Level {
     private final Object startStopLock = new Object();
 
     /**
-     * The NPCs of this level and, if they are running, their schedules.
+     * The NPCs of this level and, if they are running, their move tasks on
+     * the {@link NpcScheduler}.
+     */
+    private final Map<Ghost, NpcMoveTask> npcs;
+
+    /**
+     * The NPCs of this level, in the order in which they were placed on the
+     * board.
      */
-    private final Map<Ghost, ScheduledExecutorService> npcs;
+    private final List<Ghost> ghostList;
 
     /**
      * <code>true</code> iff this level is currently in progress, i.e. players
@@ -53,6 +116,18 @@ public class Level {
      */
     private boolean inProgress;
 
+    /**
+     * <code>true</code> iff the NPCs of this level are frozen, i.e. they do
+     * not move while the players can.
+     */
+    private volatile boolean frozen;
+
+    /**
+     * <code>true</code> iff the NPCs are moved by the {@link NpcScheduler};
+     * <code>false</code> if they are moved by an external clock.
+     */
+    private boolean npcScheduling = true;
+
     /**
      * The squares from which players can start this game.
      */
@@ -68,6 +143,12 @@ public class Level {
      */
     private final List<Player> players;
 
+    /**
+     * The distance from every square to each of the players, as travelled
+     * by the ghosts.
+     */
+    private final Map<Player, DistanceField> playerFields;
+
     /**
      * The table of possible collisions between units.
      */
@@ -79,7 +160,83 @@ public class Level {
     private final Set<LevelObserver> observers;
 
     /**
-     * Creates a new level for the board.
+     * <code>true</code> iff the observers have been told that this level is
+     * won or lost.
+     */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * The seed of the generator the ghosts draw their random decisions from.
+     */
+    private final long seed;
+
+    /**
+     * The pellets on the board when this level was created, by the index of
+     * their square, which are the pellets tracked by snapshots.
+     */
+    private final Pellet[] pellets;
+
+    /**
+     * The index of the square on which each pellet was placed.
+     */
+    private final int[] pelletSquares;
+
+    /**
+     * The hash of the state of this level, updated as units move.
+     */
+    private final ZobristHash hash;
+
+    /**
+     * The number of moves and placements of units started so far, see
+     * {@link #getMoveStamp()}.
+     */
+    private final AtomicLong movesStarted = new AtomicLong();
+
+    /**
+     * The number of moves and placements of units finished so far, see
+     * {@link #getMoveStamp()}.
+     */
+    private final AtomicLong movesFinished = new AtomicLong();
+
+    /**
+     * The number of every ghost, pellet and player, see
+     * {@link #getUnitNumber(Unit)}.
+     */
+    private final Map<Unit, Integer> unitNumbers = new ConcurrentHashMap<>();
+
+    /**
+     * The journal the changes of this level are appended to, or
+     * <code>null</code>.
+     */
+    private volatile Journal journal;
+
+    /**
+     * The publisher of the events of this level. Events are submitted while
+     * the mover holds the locks of its squares, so subscribers must not
+     * block.
+     */
+    private final EventPublisher events = new EventPublisher(
+        ForkJoinPool.commonPool(), EventPublisher.DEFAULT_CAPACITY, false);
+
+    /**
+     * <code>true</code> iff this level is being searched, see
+     * {@link #beginSearch()}.
+     */
+    private boolean searching;
+
+    /**
+     * The players and ghosts of this level while it is searched, by their
+     * number in the undo frames.
+     */
+    private Unit[] searchUnits;
+
+    /**
+     * The undo frames of the moves made while searching.
+     */
+    private final UndoStack undoStack = new UndoStack();
+
+    /**
+     * Creates a new level for the board, with a randomly chosen seed.
      *
      * @param board
      *            The board for the level.
@@ -92,21 +249,200 @@ public class Level {
      */
     public Level(Board board, List<Ghost> ghosts, List<Square> startPositions,
                  CollisionMap collisionMap) {
+        this(board, ghosts, startPositions, collisionMap,
+            ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a new level for the board. Every ghost gets its own generator,
+     * split in order from a generator with the given seed, so that levels
+     * with the same seed and the same inputs play out the same.
+     *
+     * @param board
+     *            The board for the level.
+     * @param ghosts
+     *            The ghosts on the board.
+     * @param startPositions
+     *            The squares on which players start on this board.
+     * @param collisionMap
+     *            The collection of collisions that should be handled.
+     * @param seed
+     *            The seed of the random decisions of the ghosts.
+     */
+    public Level(Board board, List<Ghost> ghosts, List<Square> startPositions,
+                 CollisionMap collisionMap, long seed) {
         assert board != null;
         assert ghosts != null;
         assert startPositions != null;
 
         this.board = board;
         this.inProgress = false;
-        this.npcs = new HashMap<>();
+        this.seed = seed;
+        this.npcs = new LinkedHashMap<>();
+        this.ghostList = ImmutableList.copyOf(ghosts);
+        SplittableRandom random = new SplittableRandom(seed);
         for (Ghost ghost : ghosts) {
             npcs.put(ghost, null);
+            ghost.setLevel(this);
+            ghost.setRandomState(random.nextLong());
         }
         this.startSquares = startPositions;
         this.startSquareIndex = 0;
         this.players = new ArrayList<>();
+        this.playerFields = new ConcurrentHashMap<>();
         this.collisions = collisionMap;
         this.observers = new HashSet<>();
+        List<Pellet> placed = new ArrayList<>(board.unitsOf(Pellet.class));
+        placed.sort(Comparator.comparingInt(pellet -> pellet.getSquare().getIndex()));
+        this.pellets = placed.toArray(new Pellet[placed.size()]);
+        this.pelletSquares = new int[pellets.length];
+        for (int i = 0; i < pellets.length; i++) {
+            pelletSquares[i] = pellets[i].getSquare().getIndex();
+        }
+        this.hash = new ZobristHash(seed);
+        for (Ghost ghost : ghosts) {
+            hash.add(ghost, false);
+        }
+        for (Pellet pellet : pellets) {
+            hash.add(pellet, false);
+        }
+        board.setOccupancyListener(hash);
+        for (Ghost ghost : ghostList) {
+            unitNumbers.put(ghost, unitNumbers.size());
+        }
+        for (Pellet pellet : pellets) {
+            unitNumbers.put(pellet, unitNumbers.size());
+        }
+    }
+
+    /**
+     * Returns the seed of the random decisions of the ghosts, with which this
+     * level can be replayed.
+     *
+     * @return The seed of this level.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a 64-bit Zobrist hash of the state of this level, covering the
+     * squares and directions of the players, the squares of the ghosts and
+     * the squares holding pellets. The hash is updated in constant time with
+     * every move, so reading it does not inspect the board. Equal states of
+     * levels with the same seed and board have equal hashes.
+     *
+     * @return The hash of the current state of this level.
+     */
+    public long getHash() {
+        return hash.value();
+    }
+
+    /**
+     * Returns a stamp with which the units of this level can be read without
+     * holding up moves: the units read were not moved while they were read
+     * if {@link #isUnmovedSince(long)} holds for the stamp afterwards. Unlike
+     * the hash, this also detects moves that are undone again.
+     *
+     * @return The stamp, to be taken before reading the units.
+     */
+    public long getMoveStamp() {
+        return movesFinished.get();
+    }
+
+    /**
+     * Determines whether no unit of this level has been moved or placed
+     * since a stamp was taken, and none was being moved when it was taken.
+     *
+     * @param stamp
+     *            A stamp taken with {@link #getMoveStamp()}.
+     * @return <code>true</code> iff no unit has been moved since.
+     */
+    public boolean isUnmovedSince(long stamp) {
+        return movesStarted.get() == stamp;
+    }
+
+    /**
+     * Returns the number of a unit of this level, which identifies it in a
+     * {@link Journal}. The ghosts are numbered first, in the order in which
+     * they were placed on the board, followed by the pellets, in the order
+     * of their squares, and by the players, in the order in which they
+     * registered.
+     *
+     * @param unit
+     *            The unit.
+     * @return The number of the unit, or -1 if it is not part of this level.
+     */
+    public int getUnitNumber(Unit unit) {
+        Integer number = unitNumbers.get(unit);
+        if (number == null) {
+            return -1;
+        }
+        return number;
+    }
+
+    /**
+     * Returns the unit with a number, see {@link #getUnitNumber(Unit)}.
+     *
+     * @param number
+     *            The number of the unit.
+     * @return The unit with the number.
+     */
+    public Unit getUnit(int number) {
+        if (number < ghostList.size()) {
+            return ghostList.get(number);
+        }
+        if (number < ghostList.size() + pellets.length) {
+            return pellets[number - ghostList.size()];
+        }
+        return players.get(number - ghostList.size() - pellets.length);
+    }
+
+    /**
+     * Appends every move this level accepts, the outcome of every collision
+     * and every change of the score of a player to a journal.
+     *
+     * @param newJournal
+     *            The journal, or <code>null</code> to stop journaling.
+     */
+    public void setJournal(Journal newJournal) {
+        this.journal = newJournal;
+    }
+
+    /**
+     * Returns the publisher of the events of this level: every move it
+     * accepts, every collision and its consequences, and the end of the
+     * level. Events are created only while there are subscribers, and sent to
+     * them on another thread, see {@link EventPublisher}. Moves made while
+     * searching are not published. Subscribers cannot ask for
+     * {@link EventPublisher.Overflow#BLOCK}, which would hold up moves.
+     *
+     * @return The publisher of the events of this level.
+     */
+    public EventPublisher getEvents() {
+        return events;
+    }
+
+    /**
+     * Journals and publishes a change of the score of a player, unless this
+     * level is being searched.
+     *
+     * @param player
+     *            The player.
+     * @param points
+     *            The points added.
+     */
+    void scoreChanged(Player player, int points) {
+        if (searching) {
+            return;
+        }
+        Journal log = journal;
+        if (log != null) {
+            log.recordScore(getUnitNumber(player), points, player.getScore());
+        }
+        if (events.hasSubscribers()) {
+            events.submit(GameEvent.scoreChanged(player, player.getScore()));
+        }
     }
 
     /**
@@ -144,11 +480,102 @@ public class Level {
         if (players.contains(player)) {
             return;
         }
-        players.add(player);
-        Square square = startSquares.get(startSquareIndex);
-        player.occupy(square);
-        startSquareIndex++;
-        startSquareIndex %= startSquares.size();
+        movesStarted.incrementAndGet();
+        try {
+            players.add(player);
+            unitNumbers.put(player, unitNumbers.size());
+            player.setLevel(this);
+            hash.add(player, true);
+            Square square = startSquares.get(startSquareIndex);
+            player.occupy(square);
+            startSquareIndex++;
+            startSquareIndex %= startSquares.size();
+            if (!npcs.isEmpty()) {
+                playerFields.put(player,
+                    new DistanceField(board, npcs.keySet().iterator().next()));
+            }
+            updateDistanceField(player);
+        } finally {
+            movesFinished.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the distance from every square to a player, as travelled by the
+     * ghosts of this level. The field is updated whenever the player moves.
+     *
+     * @param player
+     *            The player to measure the distances to.
+     * @return The distance field of the player, or <code>null</code> if the
+     *         player is not registered or this level has no ghosts.
+     */
+    public DistanceField getDistanceField(Player player) {
+        return playerFields.get(player);
+    }
+
+    /**
+     * Finds the player that can be reached in the least number of steps from
+     * the given square, as travelled by the ghosts of this level.
+     *
+     * @param square
+     *            The square to measure from.
+     * @return The nearest reachable player, or <code>null</code> if no player
+     *         can be reached. Of players at the same distance, the one that
+     *         registered first is returned.
+     */
+    public Player nearestPlayer(Square square) {
+        Player nearest = null;
+        int shortest = Integer.MAX_VALUE;
+        for (Player player : players) {
+            DistanceField field = playerFields.get(player);
+            if (field == null) {
+                continue;
+            }
+            int distance = field.distanceFrom(square);
+            if (distance != DistanceField.UNREACHABLE && distance < shortest) {
+                nearest = player;
+                shortest = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Returns the number of steps from a square to the nearest player, as
+     * travelled by the ghosts of this level.
+     *
+     * @param square
+     *            The square to measure from.
+     * @return The distance to the nearest reachable player, or
+     *         {@link DistanceField#UNREACHABLE} if no player can be reached.
+     */
+    public int distanceToNearestPlayer(Square square) {
+        int shortest = DistanceField.UNREACHABLE;
+        for (Player player : players) {
+            DistanceField field = playerFields.get(player);
+            if (field == null) {
+                continue;
+            }
+            int distance = field.distanceFrom(square);
+            if (distance != DistanceField.UNREACHABLE
+                && (shortest == DistanceField.UNREACHABLE || distance < shortest)) {
+                shortest = distance;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Recomputes the distance field of a player after it moved.
+     *
+     * @param player
+     *            The player that moved.
+     */
+    private void updateDistanceField(Player player) {
+        DistanceField field = playerFields.get(player);
+        if (field != null && player.hasSquare()) {
+            field.update(player.getSquare());
+        }
     }
 
     /**
@@ -178,20 +605,176 @@ public class Level {
             return;
         }
 
-        synchronized (moveLock) {
-            unit.setDirection(direction);
-            Square location = unit.getSquare();
-            Square destination = location.getSquareAt(direction);
-
-            if (destination.isAccessibleTo(unit)) {
-                List<Unit> occupants = destination.getOccupants();
-                unit.occupy(destination);
-                for (Unit occupant : occupants) {
-                    collisions.collide(unit, occupant);
-                }
+        Square location = unit.getSquare();
+        squareLocks.lock(location, location.getSquareAt(direction));
+        while (unit.getSquare() != location) {
+            squareLocks.unlock(location, location.getSquareAt(direction));
+            location = unit.getSquare();
+            squareLocks.lock(location, location.getSquareAt(direction));
+        }
+        Outcome outcome;
+        movesStarted.incrementAndGet();
+        try {
+            outcome = resolveMove(unit, location, direction);
+        } finally {
+            movesFinished.incrementAndGet();
+            squareLocks.unlock(location, location.getSquareAt(direction));
+        }
+        announce(outcome);
+    }
+
+    /**
+     * Moves a unit if possible and handles all collisions, while the square
+     * it leaves and the square it enters are locked. Collisions only involve
+     * the units on these squares, so they cannot interfere with concurrent
+     * moves elsewhere on the board.
+     *
+     * @param unit
+     *            The unit to move.
+     * @param location
+     *            The square of the unit.
+     * @param direction
+     *            The direction to move the unit in.
+     * @return The outcome of the level if this move ended it, which is
+     *         announced once the squares are unlocked.
+     */
+    private Outcome resolveMove(Unit unit, Square location, Direction direction) {
+        unit.setDirection(direction);
+        Square destination = location.getSquareAt(direction);
+
+        if (destination.isAccessibleTo(unit)) {
+            boolean occupied = destination.getOccupantCount() > 0;
+            unit.occupy(destination);
+            Journal log = journal;
+            if (log != null) {
+                log.recordMove(getUnitNumber(unit), destination.getIndex(), direction);
             }
-            updateObservers();
+            if (events.hasSubscribers()) {
+                events.submit(GameEvent.unitMoved(unit, direction, destination.getIndex()));
+            }
+            if (unit instanceof Player) {
+                updateDistanceField((Player) unit);
+            }
+            if (occupied) {
+                destination.forEachOccupant(occupant -> collide(unit, occupant));
+                return decideOutcome();
+            }
+        }
+        return Outcome.NONE;
+    }
+
+    /**
+     * Runs an action while no unit can move, so that the action sees the
+     * units of this level where they are, even if it reads the level from
+     * several threads. Moves made meanwhile wait until the action is done;
+     * the action itself must not move units.
+     *
+     * @param action
+     *            The action to run.
+     */
+    public void holdMoves(Runnable action) {
+        squareLocks.lockAll();
+        try {
+            action.run();
+        } finally {
+            squareLocks.unlockAll();
+        }
+    }
+
+    /**
+     * Handles the collision of a unit that moved with another unit on its
+     * square, and appends its outcome to the journal and publishes it.
+     *
+     * @param unit
+     *            The unit that moved.
+     * @param occupant
+     *            A unit on the square it moved to, which may be the unit
+     *            itself.
+     */
+    private void collide(Unit unit, Unit occupant) {
+        if (occupant == unit) {
+            return;
+        }
+        boolean unitAlive = isLivingPlayer(unit);
+        boolean occupantAlive = isLivingPlayer(occupant);
+        boolean publish = events.hasSubscribers();
+        if (publish) {
+            events.submit(GameEvent.collision(unit, occupant));
+        }
+        collisions.collide(unit, occupant);
+        Journal log = journal;
+        if (log != null) {
+            log.recordCollision(getUnitNumber(unit), getUnitNumber(occupant),
+                outcomeOf(unit, occupant));
+        }
+        if (publish) {
+            publishOutcome(unit, occupant, unitAlive, occupantAlive);
+        }
+    }
+
+    /**
+     * Encodes the outcome of a collision for the journal.
+     *
+     * @param unit
+     *            The unit that moved.
+     * @param occupant
+     *            The unit it collided with.
+     * @return The outcome bits, see {@link Journal#COLLIDER_ON_BOARD} and
+     *         friends.
+     */
+    private static int outcomeOf(Unit unit, Unit occupant) {
+        int outcome = 0;
+        if (unit.hasSquare()) {
+            outcome |= Journal.COLLIDER_ON_BOARD;
+        }
+        if (occupant.hasSquare()) {
+            outcome |= Journal.COLLIDEE_ON_BOARD;
+        }
+        if (isLivingPlayer(unit)) {
+            outcome |= Journal.COLLIDER_ALIVE;
         }
+        if (isLivingPlayer(occupant)) {
+            outcome |= Journal.COLLIDEE_ALIVE;
+        }
+        return outcome;
+    }
+
+    /**
+     * Publishes the pellet eaten and the players killed by a collision.
+     *
+     * @param unit
+     *            The unit that moved.
+     * @param occupant
+     *            The unit it collided with.
+     * @param unitAlive
+     *            Whether the unit that moved was a living player before.
+     * @param occupantAlive
+     *            Whether the other unit was a living player before.
+     */
+    private void publishOutcome(Unit unit, Unit occupant, boolean unitAlive,
+                                boolean occupantAlive) {
+        if (occupant instanceof Pellet && !occupant.hasSquare()) {
+            events.submit(GameEvent.pelletEaten(occupant, unit,
+                ((Pellet) occupant).getValue()));
+        }
+        if (unit instanceof Pellet && !unit.hasSquare()) {
+            events.submit(GameEvent.pelletEaten(unit, occupant, ((Pellet) unit).getValue()));
+        }
+        if (unitAlive && !isLivingPlayer(unit)) {
+            events.submit(GameEvent.playerDied(unit, occupant));
+        }
+        if (occupantAlive && !isLivingPlayer(occupant)) {
+            events.submit(GameEvent.playerDied(occupant, unit));
+        }
+    }
+
+    /**
+     * @param unit
+     *            A unit.
+     * @return <code>true</code> iff the unit is a living player.
+     */
+    private static boolean isLivingPlayer(Unit unit) {
+        return unit instanceof Player && ((Player) unit).isAlive();
     }
 
     /**
@@ -203,6 +786,7 @@ public class Level {
             if (isInProgress()) {
                 return;
             }
+            frozen = false;
             startNPCs();
             inProgress = true;
             updateObservers();
@@ -225,56 +809,109 @@ public class Level {
     
     
     /**
-     * Freezes this level, no longer allowing NPCs movement on the board
+     * Freezes this level, no longer allowing NPCs movement on the board.
+     * The pending moves of the NPCs are suspended in place, keeping the
+     * time that remains until each of them.
      */
     public void freeze() {
     	synchronized (startStopLock) {
-            if (!isInProgress()) {
+            if (!isInProgress() || frozen) {
                 return;
             }
-            stopNPCs();
+            frozen = true;
+            for (NpcMoveTask task : npcs.values()) {
+                if (task != null) {
+                    task.suspend();
+                }
+            }
             updateObservers();
         }
     }
     
 
     /**
-     * Unfreezes this level, allowing NPCs movement on the board
+     * Unfreezes this level, allowing NPCs movement on the board. Every NPC
+     * makes its pending move after the time that remained when the level was
+     * frozen.
      */
     public void unfreeze() {
     	synchronized (startStopLock) {
-            if (!isInProgress()) {
+            if (!isInProgress() || !frozen) {
                 return;
             }
-            startNPCs();
+            frozen = false;
+            for (NpcMoveTask task : npcs.values()) {
+                if (task != null) {
+                    task.resume();
+                }
+            }
             updateObservers();
         }
     }
+
+    /**
+     * Returns whether the NPCs of this level are frozen.
+     *
+     * @return <code>true</code> iff the NPCs are frozen and should not move.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Determines who moves the NPCs of this level. By default the
+     * {@link NpcScheduler} moves them in real time. An external clock, such
+     * as {@link nl.tudelft.jpacman.game.TickEngine}, disables this and moves
+     * the NPCs itself. This can only be changed while the level is not in
+     * progress.
+     *
+     * @param enabled
+     *            <code>true</code> if the NPCs are moved by the scheduler,
+     *            <code>false</code> if they are moved by an external clock.
+     */
+    public void setNpcScheduling(boolean enabled) {
+        synchronized (startStopLock) {
+            assert !isInProgress();
+            npcScheduling = enabled;
+        }
+    }
+
+    /**
+     * Returns the NPCs of this level, in the order in which they were placed
+     * on the board.
+     *
+     * @return An immutable list of the NPCs of this level.
+     */
+    public List<Ghost> getGhosts() {
+        return ghostList;
+    }
     
     /**
-     * Starts all NPC movement scheduling.
+     * Starts all NPC movement scheduling on the shared {@link NpcScheduler}.
      */
-    //change to private
     private void startNPCs() {
+        stopNPCs();
+        if (!npcScheduling) {
+            return;
+        }
         for (final Ghost npc : npcs.keySet()) {
-            ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
-
-            service.schedule(new NpcMoveTask(service, npc),
-                npc.getInterval() / 2, TimeUnit.MILLISECONDS);
-
-            npcs.put(npc, service);
+            NpcMoveTask task = new NpcMoveTask(npc);
+            npcs.put(npc, task);
+            task.schedule(npc.getInterval() / 2);
         }
     }
 
     /**
-     * Stops all NPC movement scheduling and interrupts any movements being
-     * executed.
+     * Stops all NPC movement scheduling. Movements being executed are
+     * completed, but not rescheduled.
      */
     private void stopNPCs() {
-        for (Entry<Ghost, ScheduledExecutorService> entry : npcs.entrySet()) {
-            ScheduledExecutorService schedule = entry.getValue();
-            assert schedule != null;
-            schedule.shutdownNow();
+        for (Entry<Ghost, NpcMoveTask> entry : npcs.entrySet()) {
+            NpcMoveTask task = entry.getValue();
+            if (task != null) {
+                task.cancel();
+                entry.setValue(null);
+            }
         }
     }
 
@@ -289,19 +926,59 @@ public class Level {
     }
 
     /**
-     * Updates the observers about the state of this level.
+     * Updates the observers about the state of this level. Observers are
+     * told only once that the level is won or lost.
      */
     private void updateObservers() {
+        announce(decideOutcome());
+    }
+
+    /**
+     * Determines whether this level has just been won or lost. Only the
+     * first caller to see the end of the level gets its outcome, so that it
+     * is announced once. Since players only die and pellets only disappear
+     * through collisions, only moves with collisions need to check. Every
+     * such move checks after its own collisions, and deaths are volatile, so
+     * of two concurrent moves killing the last two players, at least one
+     * sees both deaths.
+     *
+     * @return The outcome to announce, or {@link Outcome#NONE}.
+     */
+    private Outcome decideOutcome() {
+        if (finished.get()) {
+            return Outcome.NONE;
+        }
         if (!isAnyPlayerAlive()) {
-            for (LevelObserver observer : observers) {
-                observer.levelLost();
+            if (finished.compareAndSet(false, true)) {
+                return Outcome.LOST;
             }
+        } else if (remainingPellets() == 0 && finished.compareAndSet(false, true)) {
+            return Outcome.WON;
+        }
+        return Outcome.NONE;
+    }
+
+    /**
+     * Tells the observers and subscribers that this level was won or lost.
+     * Moves call this after unlocking their squares, so that observers can
+     * stop the game without holding up other moves or risking a deadlock.
+     *
+     * @param outcome
+     *            The outcome decided by {@link #decideOutcome()}.
+     */
+    private void announce(Outcome outcome) {
+        if (outcome == Outcome.NONE) {
+            return;
         }
-        if (remainingPellets() == 0) {
-            for (LevelObserver observer : observers) {
+        boolean won = outcome == Outcome.WON;
+        for (LevelObserver observer : observers) {
+            if (won) {
                 observer.levelWon();
+            } else {
+                observer.levelLost();
             }
         }
+        events.submit(GameEvent.levelEnded(won));
     }
 
     /**
@@ -321,24 +998,377 @@ public class Level {
     }
 
     /**
-     * Counts the pellets remaining on the board.
+     * Counts the pellets remaining on the board. The count is kept up to date
+     * by the unit index of the board as pellets are placed and eaten, so this
+     * does not inspect the squares of the board.
      *
      * @return The amount of pellets remaining on the board.
      */
     public int remainingPellets() {
-        Board board = getBoard();
-        int pellets = 0;
-        for (int x = 0; x < board.getWidth(); x++) {
-            for (int y = 0; y < board.getHeight(); y++) {
-                for (Unit unit : board.squareAt(x, y).getOccupants()) {
-                    if (unit instanceof Pellet) {
-                        pellets++;
-                    }
+        int pellets = board.countUnits(Pellet.class);
+        assert pellets >= 0;
+        return pellets;
+    }
+
+    /**
+     * Takes a snapshot of the dynamic state of this level: the squares and
+     * directions of the players and ghosts, the remaining pellets, and the
+     * scores and lives of the players, and the state of the random
+     * generator of every ghost, so that the ghosts make the same decisions
+     * after the snapshot is restored. Taking a snapshot does not change the
+     * state of this level, so a running game plays out the same whether it
+     * is snapshot or not. The timing of the ghosts is kept by the
+     * clock moving them, see {@link nl.tudelft.jpacman.game.TickEngine}.
+     *
+     * @return A snapshot of this level.
+     */
+    public LevelSnapshot snapshot() {
+        squareLocks.lockAll();
+        try {
+            int units = players.size() + npcs.size();
+            int[] squares = new int[units];
+            byte[] directions = new byte[units];
+            int[] scores = new int[players.size()];
+            boolean[] alive = new boolean[players.size()];
+            int unit = 0;
+            for (Player player : players) {
+                scores[unit] = player.getScore();
+                alive[unit] = player.isAlive();
+                record(player, unit++, squares, directions);
+            }
+            long[] ghostSeeds = new long[npcs.size()];
+            for (Ghost ghost : npcs.keySet()) {
+                ghostSeeds[unit - players.size()] = ghost.getRandomState();
+                record(ghost, unit++, squares, directions);
+            }
+            long[] remaining = new long[(pellets.length >>> WORD_SHIFT) + 1];
+            for (int i = 0; i < pellets.length; i++) {
+                if (pellets[i].hasSquare()) {
+                    remaining[i >>> WORD_SHIFT] |= 1L << i;
                 }
             }
+            return new LevelSnapshot(this, squares, directions, scores, alive,
+                ghostSeeds, remaining, finished.get());
+        } finally {
+            squareLocks.unlockAll();
         }
-        assert pellets >= 0;
-        return pellets;
+    }
+
+    /**
+     * Records the square and direction of a unit in a snapshot.
+     *
+     * @param unit
+     *            The unit to record.
+     * @param position
+     *            The position of the unit in the snapshot.
+     * @param squares
+     *            The squares of the units in the snapshot.
+     * @param directions
+     *            The directions of the units in the snapshot.
+     */
+    private static void record(Unit unit, int position, int[] squares, byte[] directions) {
+        squares[position] = -1;
+        if (unit.hasSquare()) {
+            squares[position] = unit.getSquare().getIndex();
+        }
+        directions[position] = (byte) unit.getDirection().ordinal();
+    }
+
+    /**
+     * Restores the dynamic state of this level to a snapshot taken from it.
+     * Units are only moved if they are not on the square of the snapshot, and
+     * no collisions are handled or observers notified. Players registered
+     * after the snapshot was taken cannot be restored.
+     *
+     * @param snapshot
+     *            A snapshot taken from this level.
+     */
+    public void restore(LevelSnapshot snapshot) {
+        if (snapshot.getLevel() != this || snapshot.playerCount() != players.size()
+            || snapshot.ghostCount() != npcs.size()) {
+            throw new IllegalArgumentException("Snapshot does not match this level.");
+        }
+        squareLocks.lockAll();
+        movesStarted.incrementAndGet();
+        try {
+            int unit = 0;
+            for (Player player : players) {
+                place(player, snapshot.squareOf(unit), DIRECTIONS[snapshot.directionOf(unit)]);
+                if (player.isAlive() != snapshot.isAlive(unit)) {
+                    player.setAlive(snapshot.isAlive(unit));
+                }
+                player.setScore(snapshot.scoreOf(unit++));
+            }
+            for (Ghost ghost : npcs.keySet()) {
+                place(ghost, snapshot.squareOf(unit), DIRECTIONS[snapshot.directionOf(unit)]);
+                ghost.setRandomState(snapshot.ghostSeedOf(unit++ - players.size()));
+            }
+            for (int i = 0; i < pellets.length; i++) {
+                if (!snapshot.hasPellet(i)) {
+                    pellets[i].leaveSquare();
+                } else if (!pellets[i].hasSquare()) {
+                    pellets[i].occupy(board.squareAt(pelletSquares[i]));
+                }
+            }
+            finished.set(snapshot.isFinished());
+            for (Player player : players) {
+                updateDistanceField(player);
+            }
+        } finally {
+            movesFinished.incrementAndGet();
+            squareLocks.unlockAll();
+        }
+    }
+
+    /**
+     * Puts a unit on a square of this board, without handling collisions,
+     * when a snapshot or journal is restored.
+     *
+     * @param unit
+     *            The unit to restore.
+     * @param index
+     *            The index of its square, or -1 to remove it from the board.
+     * @param direction
+     *            Its direction.
+     */
+    void place(Unit unit, int index, Direction direction) {
+        movesStarted.incrementAndGet();
+        try {
+            if (index < 0) {
+                unit.leaveSquare();
+            } else if (!unit.hasSquare() || unit.getSquare().getIndex() != index) {
+                unit.occupy(board.squareAt(index));
+            }
+            unit.setDirection(direction);
+        } finally {
+            movesFinished.incrementAndGet();
+        }
+    }
+
+    /**
+     * Puts this level in search mode, in which moves can be made with
+     * {@link #makeMove(Unit, Direction)} and undone exactly with
+     * {@link #unmakeMove()}. Search moves handle collisions like regular
+     * moves, but do not lock any squares, notify the observers or update
+     * the distance fields of the players. Only a level that is not in
+     * progress can be searched, from a single thread.
+     */
+    public void beginSearch() {
+        synchronized (startStopLock) {
+            if (isInProgress()) {
+                throw new IllegalStateException("Cannot search a level in progress.");
+            }
+            searchUnits = new Unit[players.size() + npcs.size()];
+            int unit = 0;
+            for (Player player : players) {
+                searchUnits[unit++] = player;
+            }
+            for (Ghost ghost : npcs.keySet()) {
+                searchUnits[unit++] = ghost;
+            }
+            undoStack.reset(FRAME_PLAYERS + 2 * players.size());
+            searching = true;
+        }
+    }
+
+    /**
+     * Ends search mode, undoing the moves that have not been undone yet and
+     * bringing the distance fields of the players up to date.
+     */
+    public void endSearch() {
+        synchronized (startStopLock) {
+            if (!searching) {
+                return;
+            }
+            while (undoStack.depth() > 0) {
+                unmakeMove();
+            }
+            searching = false;
+            searchUnits = null;
+            for (Player player : players) {
+                updateDistanceField(player);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> iff this level is in search mode.
+     */
+    public boolean isSearching() {
+        return searching;
+    }
+
+    /**
+     * @return The number of search moves that can be undone.
+     */
+    public int getSearchDepth() {
+        return undoStack.depth();
+    }
+
+    /**
+     * Makes a search move: moves the unit into the given direction if
+     * possible and handles all collisions, recording what is needed to undo
+     * the move.
+     *
+     * @param unit
+     *            The player or ghost to move.
+     * @param direction
+     *            The direction to move the unit in.
+     */
+    public void makeMove(Unit unit, Direction direction) {
+        assert unit != null;
+        assert direction != null;
+        assert unit.hasSquare();
+        checkSearching();
+        int frame = undoStack.push();
+        undoStack.set(frame + FRAME_UNIT, searchNumberOf(unit));
+        undoStack.set(frame + FRAME_FROM, unit.getSquare().getIndex());
+        undoStack.set(frame + FRAME_DIRECTION, unit.getDirection().ordinal());
+        undoStack.set(frame + FRAME_PELLETS, -1);
+        recordPlayers(frame);
+
+        unit.setDirection(direction);
+        Square destination = unit.getSquare().getSquareAt(direction);
+        if (!destination.isAccessibleTo(unit)) {
+            return;
+        }
+        int first = firstPelletOn(destination.getIndex());
+        int before = pelletsOnBoard(first, destination.getIndex());
+        unit.occupy(destination);
+        destination.forEachOccupant(occupant -> {
+            if (occupant != unit) {
+                collisions.collide(unit, occupant);
+            }
+        });
+        undoStack.set(frame + FRAME_PELLETS, first);
+        undoStack.set(frame + FRAME_EATEN,
+            before & ~pelletsOnBoard(first, destination.getIndex()));
+    }
+
+    /**
+     * Undoes the last search move that has not been undone yet.
+     */
+    public void unmakeMove() {
+        checkSearching();
+        int frame = undoStack.pop();
+        restorePellets(undoStack.get(frame + FRAME_PELLETS), undoStack.get(frame + FRAME_EATEN));
+        Unit unit = searchUnits[undoStack.get(frame + FRAME_UNIT)];
+        int from = undoStack.get(frame + FRAME_FROM);
+        if (unit.getSquare().getIndex() != from) {
+            unit.occupy(board.squareAt(from));
+        }
+        unit.setDirection(DIRECTIONS[undoStack.get(frame + FRAME_DIRECTION)]);
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            player.setScore(undoStack.get(frame + FRAME_PLAYERS + 2 * i));
+            boolean alive = undoStack.get(frame + FRAME_PLAYERS + 2 * i + 1) != 0;
+            if (player.isAlive() != alive) {
+                player.setAlive(alive);
+            }
+        }
+    }
+
+    /**
+     * Puts the pellets eaten by a search move back on the board.
+     *
+     * @param first
+     *            The number of the first pellet on the destination of the
+     *            move, or -1 if the unit did not move.
+     * @param eaten
+     *            The set of pellets eaten, one bit per pellet from the first.
+     */
+    private void restorePellets(int first, int eaten) {
+        if (first < 0) {
+            return;
+        }
+        for (int pellet = first, left = eaten; left != 0; pellet++, left >>>= 1) {
+            if ((left & 1) != 0) {
+                pellets[pellet].occupy(board.squareAt(pelletSquares[pellet]));
+            }
+        }
+    }
+
+    /**
+     * Ensures this level is in search mode.
+     */
+    private void checkSearching() {
+        if (!searching) {
+            throw new IllegalStateException("Level is not in search mode.");
+        }
+    }
+
+    /**
+     * Records the score and life of every player in an undo frame.
+     *
+     * @param frame
+     *            The offset of the frame.
+     */
+    private void recordPlayers(int frame) {
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            undoStack.set(frame + FRAME_PLAYERS + 2 * i, player.getScore());
+            int alive = 0;
+            if (player.isAlive()) {
+                alive = 1;
+            }
+            undoStack.set(frame + FRAME_PLAYERS + 2 * i + 1, alive);
+        }
+    }
+
+    /**
+     * Returns the number of the unit being searched.
+     *
+     * @param unit
+     *            A player or ghost of this level.
+     * @return The number of the unit in the undo frames.
+     */
+    private int searchNumberOf(Unit unit) {
+        for (int i = 0; i < searchUnits.length; i++) {
+            if (searchUnits[i] == unit) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unit is not a player or ghost of this level.");
+    }
+
+    /**
+     * Finds the first pellet that was placed on a square.
+     *
+     * @param index
+     *            The index of the square.
+     * @return The number of the first pellet on the square, or -1 if none.
+     */
+    private int firstPelletOn(int index) {
+        int pellet = Arrays.binarySearch(pelletSquares, index);
+        if (pellet < 0) {
+            return -1;
+        }
+        while (pellet > 0 && pelletSquares[pellet - 1] == index) {
+            pellet--;
+        }
+        return pellet;
+    }
+
+    /**
+     * Determines which of the pellets placed on a square are still on the
+     * board.
+     *
+     * @param first
+     *            The number of the first pellet on the square, or -1.
+     * @param index
+     *            The index of the square.
+     * @return The set of pellets on the board, one bit per pellet from the
+     *         first pellet on the square.
+     */
+    private int pelletsOnBoard(int first, int index) {
+        int present = 0;
+        for (int pellet = first; first >= 0 && pellet < pellets.length
+            && pelletSquares[pellet] == index; pellet++) {
+            if (pellets[pellet].hasSquare()) {
+                present |= 1 << (pellet - first);
+            }
+        }
+        return present;
     }
 
     /**
@@ -349,39 +1379,140 @@ public class Level {
     private final class NpcMoveTask implements Runnable {
 
         /**
-         * The service executing the task.
+         * The NPC to move.
          */
-        private final ScheduledExecutorService service;
+        private final Ghost npc;
 
         /**
-         * The NPC to move.
+         * The next scheduled execution of this task, if any.
          */
-        private final Ghost npc;
+        private ScheduledFuture<?> pending;
+
+        /**
+         * <code>true</code> iff this task should no longer run.
+         */
+        private boolean cancelled;
+
+        /**
+         * <code>true</code> iff this task is suspended while the level is
+         * frozen.
+         */
+        private boolean suspended;
+
+        /**
+         * The delay in milliseconds of the next execution, kept while this
+         * task is suspended.
+         */
+        private long remaining;
 
         /**
          * Creates a new task.
          *
-         * @param service
-         *            The service that executes the task.
          * @param npc
          *            The NPC to move.
          */
-        NpcMoveTask(ScheduledExecutorService service, Ghost npc) {
-            this.service = service;
+        NpcMoveTask(Ghost npc) {
             this.npc = npc;
         }
 
+        /**
+         * Schedules the next execution of this task, unless it is cancelled.
+         *
+         * @param delay
+         *            The delay in milliseconds.
+         */
+        synchronized void schedule(long delay) {
+            if (cancelled) {
+                return;
+            }
+            if (suspended) {
+                remaining = delay;
+                return;
+            }
+            pending = NpcScheduler.get().schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Suspends this task, removing its next execution from the scheduler
+         * but keeping the time that remains until it. If the task is being
+         * executed, its next execution is kept instead.
+         */
+        synchronized void suspend() {
+            if (cancelled || suspended) {
+                return;
+            }
+            suspended = true;
+            if (pending != null) {
+                long delay = pending.getDelay(TimeUnit.MILLISECONDS);
+                if (pending.cancel(false)) {
+                    remaining = Math.max(0L, delay);
+                }
+            }
+        }
+
+        /**
+         * Resumes this task, scheduling its next execution after the time
+         * that remained when it was suspended.
+         */
+        synchronized void resume() {
+            if (cancelled || !suspended) {
+                return;
+            }
+            suspended = false;
+            schedule(remaining);
+        }
+
+        /**
+         * Cancels this task, removing its next execution from the scheduler.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        /**
+         * @return <code>true</code> iff this task is cancelled.
+         */
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
         @Override
         public void run() {
+            if (isCancelled()) {
+                return;
+            }
             Direction nextMove = npc.nextMove();
             if (nextMove != null) {
                 move(npc, nextMove);
             }
-            long interval = npc.getInterval();
-            service.schedule(this, interval, TimeUnit.MILLISECONDS);
+            schedule(npc.getInterval());
         }
     }
 
+    /**
+     * The outcome of a move for the level as a whole.
+     */
+    private enum Outcome {
+
+        /**
+         * The level goes on, or had already ended.
+         */
+        NONE,
+
+        /**
+         * The move ate the last pellet.
+         */
+        WON,
+
+        /**
+         * The move killed the last player.
+         */
+        LOST
+    }
+
     /**
      * An observer that will be notified when the level is won or lost.
      *
@@ -3,6 +3,8 @@ package nl.tudelft.jpacman.level;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
@@ -46,6 +48,22 @@ public class LevelFactory {
      */
     private final GhostFactory ghostFact;
 
+    /**
+     * <code>true</code> iff created levels get a precomputed routing table.
+     */
+    private boolean routingTables;
+
+    /**
+     * The generator of the seeds of created levels, or <code>null</code> if
+     * every level gets a random seed.
+     */
+    private SplittableRandom seeds;
+
+    /**
+     * The detail distance of the ghosts of created levels.
+     */
+    private int detailDistance = Ghost.FULL_DETAIL;
+
     /**
      * Creates a new level factory.
      *
@@ -60,6 +78,51 @@ public class LevelFactory {
         this.ghostFact = ghostFactory;
     }
 
+    /**
+     * Lets this factory precompute a routing table for the board of every
+     * level it creates, so that the ghosts can look up their routes instead
+     * of searching for them. Boards that are too large for a table are left
+     * without one.
+     *
+     * @return This factory, to allow chaining.
+     */
+    public LevelFactory withRoutingTables() {
+        this.routingTables = true;
+        return this;
+    }
+
+    /**
+     * Seeds the levels created by this factory, so that the random decisions
+     * of their ghosts can be reproduced. The levels draw their seeds in turn
+     * from a generator with the given seed.
+     *
+     * @param seed
+     *            The seed of the sequence of created levels.
+     * @return This factory, to allow chaining.
+     */
+    public LevelFactory withSeed(long seed) {
+        this.seeds = new SplittableRandom(seed);
+        return this;
+    }
+
+    /**
+     * Lets the ghosts of the levels created by this factory follow the
+     * corridors instead of running their AI while they are farther from the
+     * players than the given distance, see
+     * {@link Ghost#setDetailDistance(int)}.
+     *
+     * @param distance
+     *            The distance in squares.
+     * @return This factory, to allow chaining.
+     */
+    public LevelFactory withDetailDistance(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Negative distance: " + distance);
+        }
+        this.detailDistance = distance;
+        return this;
+    }
+
     /**
      * Creates a new level from the provided data.
      *
@@ -73,11 +136,41 @@ public class LevelFactory {
      */
     public Level createLevel(Board board, List<Ghost> ghosts,
                              List<Square> startPositions) {
+        if (seeds == null) {
+            return createLevel(board, ghosts, startPositions,
+                ThreadLocalRandom.current().nextLong());
+        }
+        return createLevel(board, ghosts, startPositions, seeds.nextLong());
+    }
+
+    /**
+     * Creates a new level from the provided data, with the given seed for
+     * the random decisions of its ghosts.
+     *
+     * @param board
+     *            The board with all ghosts and pellets occupying their squares.
+     * @param ghosts
+     *            A list of all ghosts on the board.
+     * @param startPositions
+     *            A list of squares from which players may start the game.
+     * @param seed
+     *            The seed of the random decisions of the ghosts.
+     * @return A new level for the board.
+     */
+    public Level createLevel(Board board, List<Ghost> ghosts,
+                             List<Square> startPositions, long seed) {
 
         // We'll adopt the simple collision map for now.
         CollisionMap collisionMap = new PlayerCollisions();
 
-        return new Level(board, ghosts, startPositions, collisionMap);
+        if (routingTables && !ghosts.isEmpty()) {
+            board.precomputeRoutes(ghosts.get(0));
+        }
+        for (Ghost ghost : ghosts) {
+            ghost.setDetailDistance(detailDistance);
+        }
+
+        return new Level(board, ghosts, startPositions, collisionMap, seed);
     }
 
     /**
@@ -0,0 +1,263 @@
+package nl.tudelft.jpacman.level;
+
+import java.nio.ByteBuffer;
+
+import nl.tudelft.jpacman.replay.VarInts;
+
+/**
+ * The dynamic state of a {@link Level} at some moment, which can be restored
+ * with {@link Level#restore(LevelSnapshot)}. A snapshot only holds a few
+ * primitive arrays; the board, the units and the pellets are shared with the
+ * level it was taken from, and it can only be restored on that level.
+ *
+ * <p>
+ * The players come first in the arrays of units, in the order in which they
+ * were registered, followed by the ghosts in the order in which they were
+ * placed on the board.
+ * </p>
+ *
+ * <p>
+ * Snapshots can be written to and read from byte buffers, with the squares
+ * delta encoded and the counts and scores as variable length integers, see
+ * {@link VarInts}.
+ * </p>
+ */
+public final class LevelSnapshot {
+
+    /**
+     * The level this snapshot was taken from.
+     */
+    private final Level level;
+
+    /**
+     * The index of the square of every unit, or -1 if it had no square.
+     */
+    private final int[] squares;
+
+    /**
+     * The ordinal of the direction of every unit.
+     */
+    private final byte[] directions;
+
+    /**
+     * The score of every player.
+     */
+    private final int[] scores;
+
+    /**
+     * Whether every player was alive.
+     */
+    private final boolean[] alive;
+
+    /**
+     * The state of the random generator of every ghost.
+     */
+    private final long[] ghostSeeds;
+
+    /**
+     * The set of pellets still on the board, one bit per pellet of the level.
+     */
+    private final long[] pellets;
+
+    /**
+     * <code>true</code> iff the observers had been told the level was won or
+     * lost.
+     */
+    private final boolean finished;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param level
+     *            The level the snapshot is taken from.
+     * @param squares
+     *            The index of the square of every unit, or -1.
+     * @param directions
+     *            The ordinal of the direction of every unit.
+     * @param scores
+     *            The score of every player.
+     * @param alive
+     *            Whether every player was alive.
+     * @param ghostSeeds
+     *            The state of the random generator of every ghost.
+     * @param pellets
+     *            The set of pellets still on the board.
+     * @param finished
+     *            <code>true</code> iff the level was won or lost.
+     */
+    @SuppressWarnings({"checkstyle:parameternumber", "PMD.ArrayIsStoredDirectly"})
+    LevelSnapshot(Level level, int[] squares, byte[] directions, int[] scores,
+                  boolean[] alive, long[] ghostSeeds, long[] pellets, boolean finished) {
+        this.level = level;
+        this.squares = squares;
+        this.directions = directions;
+        this.scores = scores;
+        this.alive = alive;
+        this.ghostSeeds = ghostSeeds;
+        this.pellets = pellets;
+        this.finished = finished;
+    }
+
+    /**
+     * Returns the maximum number of bytes {@link #writeTo(ByteBuffer)} writes.
+     *
+     * @return The maximum size of this snapshot when encoded.
+     */
+    public int maxEncodedSize() {
+        final int counts = 4;
+        return counts * VarInts.MAX_INT_BYTES
+            + squares.length * (VarInts.MAX_INT_BYTES + 1)
+            + scores.length * (VarInts.MAX_INT_BYTES + 1)
+            + (ghostSeeds.length + pellets.length) * Long.BYTES + 1;
+    }
+
+    /**
+     * Writes this snapshot to a buffer. The level is not written.
+     *
+     * @param buffer
+     *            The buffer to write to, with room for at least
+     *            {@link #maxEncodedSize()} bytes.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        VarInts.putUnsigned(buffer, squares.length);
+        int previous = 0;
+        for (int unit = 0; unit < squares.length; unit++) {
+            VarInts.putSigned(buffer, squares[unit] - previous);
+            previous = squares[unit];
+            buffer.put(directions[unit]);
+        }
+        VarInts.putUnsigned(buffer, scores.length);
+        for (int player = 0; player < scores.length; player++) {
+            VarInts.putSigned(buffer, scores[player]);
+            buffer.put((byte) Boolean.compare(alive[player], false));
+        }
+        VarInts.putUnsigned(buffer, ghostSeeds.length);
+        for (long ghostSeed : ghostSeeds) {
+            buffer.putLong(ghostSeed);
+        }
+        VarInts.putUnsigned(buffer, pellets.length);
+        for (long word : pellets) {
+            buffer.putLong(word);
+        }
+        buffer.put((byte) Boolean.compare(finished, false));
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param level
+     *            The level the snapshot will be restored on, which must have
+     *            the same board and units as the level it was taken from.
+     * @param buffer
+     *            The buffer to read from.
+     * @return The snapshot.
+     */
+    public static LevelSnapshot readFrom(Level level, ByteBuffer buffer) {
+        int[] squares = new int[VarInts.getUnsignedInt(buffer)];
+        byte[] directions = new byte[squares.length];
+        int previous = 0;
+        for (int unit = 0; unit < squares.length; unit++) {
+            squares[unit] = previous + (int) VarInts.getSigned(buffer);
+            previous = squares[unit];
+            directions[unit] = buffer.get();
+        }
+        int[] scores = new int[VarInts.getUnsignedInt(buffer)];
+        boolean[] alive = new boolean[scores.length];
+        for (int player = 0; player < scores.length; player++) {
+            scores[player] = (int) VarInts.getSigned(buffer);
+            alive[player] = buffer.get() != 0;
+        }
+        long[] ghostSeeds = new long[VarInts.getUnsignedInt(buffer)];
+        for (int ghost = 0; ghost < ghostSeeds.length; ghost++) {
+            ghostSeeds[ghost] = buffer.getLong();
+        }
+        long[] pellets = new long[VarInts.getUnsignedInt(buffer)];
+        for (int word = 0; word < pellets.length; word++) {
+            pellets[word] = buffer.getLong();
+        }
+        return new LevelSnapshot(level, squares, directions, scores, alive,
+            ghostSeeds, pellets, buffer.get() != 0);
+    }
+
+    /**
+     * @return The level this snapshot was taken from.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The number of players in this snapshot.
+     */
+    int playerCount() {
+        return scores.length;
+    }
+
+    /**
+     * @return The number of ghosts in this snapshot.
+     */
+    int ghostCount() {
+        return ghostSeeds.length;
+    }
+
+    /**
+     * @param unit
+     *            The position of the unit, players first.
+     * @return The index of the square of the unit, or -1 if it had none.
+     */
+    int squareOf(int unit) {
+        return squares[unit];
+    }
+
+    /**
+     * @param unit
+     *            The position of the unit, players first.
+     * @return The ordinal of the direction of the unit.
+     */
+    int directionOf(int unit) {
+        return directions[unit];
+    }
+
+    /**
+     * @param player
+     *            The position of the player.
+     * @return The score of the player.
+     */
+    int scoreOf(int player) {
+        return scores[player];
+    }
+
+    /**
+     * @param player
+     *            The position of the player.
+     * @return Whether the player was alive.
+     */
+    boolean isAlive(int player) {
+        return alive[player];
+    }
+
+    /**
+     * @param ghost
+     *            The position of the ghost.
+     * @return The state of the random generator of the ghost.
+     */
+    long ghostSeedOf(int ghost) {
+        return ghostSeeds[ghost];
+    }
+
+    /**
+     * @param pellet
+     *            The position of the pellet among the pellets of the level.
+     * @return <code>true</code> iff the pellet was still on the board.
+     */
+    boolean hasPellet(int pellet) {
+        return (pellets[pellet >>> Level.WORD_SHIFT] & (1L << pellet)) != 0;
+    }
+
+    /**
+     * @return <code>true</code> iff the level was won or lost.
+     */
+    boolean isFinished() {
+        return finished;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 import nl.tudelft.jpacman.PacmanConfigurationException;
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.CompactBoard;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.npc.Ghost;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -31,6 +32,11 @@ public class MapParser {
      */
     private final BoardFactory boardCreator;
 
+    /**
+     * <code>true</code> iff parsed levels get a {@link CompactBoard}.
+     */
+    private boolean compactBoards;
+
     /**
      * Creates a new map parser.
      *
@@ -44,6 +50,17 @@ public class MapParser {
         this.boardCreator = boardFactory;
     }
 
+    /**
+     * Lets this parser create {@link CompactBoard}s, which keep their cells in
+     * flat arrays, so that very large maps fit in memory.
+     *
+     * @return This parser, to allow chaining.
+     */
+    public MapParser withCompactBoards() {
+        this.compactBoards = true;
+        return this;
+    }
+
     /**
      * Parses the text representation of the board into an actual level.
      *
@@ -62,6 +79,9 @@ public class MapParser {
      * @return The level as represented by this text.
      */
     public Level parseMap(char[][] map) {
+        if (compactBoards) {
+            return parseCompactMap(map);
+        }
         int width = map.length;
         int height = map[0].length;
 
@@ -86,6 +106,95 @@ public class MapParser {
         }
     }
 
+    /**
+     * Parses the text representation of the board into a level with a
+     * {@link CompactBoard}. The units are placed after the board is created,
+     * in the same order as {@link #parseMap(char[][])} does.
+     *
+     * @param map
+     *            The text representation of the board, with map[x][y]
+     *            representing the square at position x,y.
+     * @return The level as represented by this text.
+     */
+    private Level parseCompactMap(char[][] map) {
+        int width = map.length;
+        int height = map[0].length;
+        byte[] cellTypes = new byte[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                cellTypes[y * width + x] = cellType(map[x][y], x, y);
+            }
+        }
+        Board board = boardCreator.createCompactBoard(width, height, cellTypes);
+
+        List<Ghost> ghosts = new ArrayList<>();
+        List<Square> startPositions = new ArrayList<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                populate(board.squareAt(x, y), map[x][y], ghosts, startPositions);
+            }
+        }
+        return levelCreator.createLevel(board, ghosts, startPositions);
+    }
+
+    /**
+     * Determines the type of cell described by a character.
+     *
+     * @param c
+     *            Character describing the square type.
+     * @param x
+     *            x coordinate of the square.
+     * @param y
+     *            y coordinate of the square.
+     * @return The type code of the cell.
+     */
+    private static byte cellType(char c, int x, int y) {
+        switch (c) {
+            case '#':
+                return CompactBoard.WALL;
+            case ' ':
+            case '.':
+            case 'G':
+            case 'P':
+                return CompactBoard.GROUND;
+            default:
+                throw new PacmanConfigurationException("Invalid character at "
+                    + x + "," + y + ": " + c);
+        }
+    }
+
+    /**
+     * Places the units described by a character on a square of a board.
+     *
+     * @param square
+     *            The square described by the character.
+     * @param c
+     *            Character describing the square type.
+     * @param ghosts
+     *            List of all ghosts that were added to the map.
+     * @param startPositions
+     *            List of all start positions that were added
+     *            to the map.
+     */
+    private void populate(Square square, char c, List<Ghost> ghosts,
+                          List<Square> startPositions) {
+        switch (c) {
+            case '.':
+                levelCreator.createPellet().occupy(square);
+                break;
+            case 'G':
+                Ghost ghost = levelCreator.createGhost();
+                ghosts.add(ghost);
+                ghost.occupy(square);
+                break;
+            case 'P':
+                startPositions.add(square);
+                break;
+            default:
+                break;
+        }
+    }
+
     /**
      * Adds a square to the grid based on a given character. These
      * character come from the map files and describe the type
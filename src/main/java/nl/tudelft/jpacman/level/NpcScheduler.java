@@ -0,0 +1,91 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The scheduler that moves the NPCs of all levels in this process. All levels
+ * share a single pool of daemon threads, so that the number of threads does
+ * not grow with the number of levels or ghosts.
+ *
+ * <p>
+ * The pool size defaults to the number of available processors and can be
+ * set through the {@value #POOL_SIZE_PROPERTY} system property or with
+ * {@link #setPoolSize(int)}.
+ * </p>
+ */
+public final class NpcScheduler {
+
+    /**
+     * The system property holding the initial number of threads.
+     */
+    public static final String POOL_SIZE_PROPERTY = "jpacman.npc.threads";
+
+    /**
+     * The shared executor, created when it is first needed.
+     */
+    private static ScheduledThreadPoolExecutor executor;
+
+    private NpcScheduler() {
+    }
+
+    /**
+     * Returns the executor shared by all levels, creating it if needed. Other
+     * clocks driving the NPCs, such as a real time
+     * {@link nl.tudelft.jpacman.game.TickEngine}, run on it as well.
+     *
+     * @return The shared executor.
+     */
+    public static synchronized ScheduledThreadPoolExecutor get() {
+        if (executor == null) {
+            int poolSize = Integer.getInteger(POOL_SIZE_PROPERTY,
+                Runtime.getRuntime().availableProcessors());
+            executor = new ScheduledThreadPoolExecutor(Math.max(1, poolSize),
+                new NpcThreadFactory());
+            executor.setRemoveOnCancelPolicy(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Changes the number of threads moving the NPCs. This can be done at any
+     * time; running levels are not affected.
+     *
+     * @param poolSize
+     *            The new number of threads, at least 1.
+     */
+    public static void setPoolSize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+        }
+        get().setCorePoolSize(poolSize);
+    }
+
+    /**
+     * Returns the number of threads moving the NPCs.
+     *
+     * @return The number of threads moving the NPCs.
+     */
+    public static int getPoolSize() {
+        return get().getCorePoolSize();
+    }
+
+    /**
+     * Creates the daemon threads of the shared scheduler.
+     */
+    private static final class NpcThreadFactory implements ThreadFactory {
+
+        /**
+         * The number of threads created so far.
+         */
+        private final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "jpacman-npc-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -10,6 +10,11 @@ import nl.tudelft.jpacman.sprite.Sprite;
  */
 public class Pellet extends Unit {
 
+    /**
+     * The kind code of pellets.
+     */
+    public static final int KIND = 3;
+
     /**
      * The sprite of this unit.
      */
@@ -38,6 +43,11 @@ public class Pellet extends Unit {
         return value;
     }
 
+    @Override
+    public int getKind() {
+        return KIND;
+    }
+
     @Override
     public Sprite getSprite() {
         return image;
@@ -14,6 +14,11 @@ import nl.tudelft.jpacman.sprite.Sprite;
  */
 public class Player extends Unit {
 
+    /**
+     * The kind code of players.
+     */
+    public static final int KIND = 1;
+
     /**
      * The amount of points accumulated by this player.
      */
@@ -30,9 +35,16 @@ public class Player extends Unit {
     private final AnimatedSprite deathSprite;
 
     /**
-     * <code>true</code> iff this player is alive.
+     * <code>true</code> iff this player is alive. Volatile, since the level
+     * checks whether any player is alive after moves on other threads.
+     */
+    private volatile boolean alive;
+
+    /**
+     * The level this player is registered on, which is told about score
+     * changes, or <code>null</code>.
      */
-    private boolean alive;
+    private Level level;
 
     /**
      * Creates a new player with a score of 0 points.
@@ -84,6 +96,11 @@ public class Player extends Unit {
         return score;
     }
 
+    @Override
+    public int getKind() {
+        return KIND;
+    }
+
     @Override
     public Sprite getSprite() {
         if (isAlive()) {
@@ -101,5 +118,28 @@ public class Player extends Unit {
      */
     public void addPoints(int points) {
         score += points;
+        if (level != null) {
+            level.scoreChanged(this, points);
+        }
+    }
+
+    /**
+     * Sets the level this player is registered on.
+     *
+     * @param newLevel
+     *            The level.
+     */
+    void setLevel(Level newLevel) {
+        this.level = newLevel;
+    }
+
+    /**
+     * Sets the score of this player, when its level is restored.
+     *
+     * @param points
+     *            The new amount of points of this player.
+     */
+    void setScore(int points) {
+        score = points;
     }
 }
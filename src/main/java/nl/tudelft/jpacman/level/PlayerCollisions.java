@@ -6,9 +6,10 @@ import nl.tudelft.jpacman.npc.Ghost;
 /**
  * A simple implementation of a collision map for the JPacman player.
  * <p>
- * It uses a number of instanceof checks to implement the multiple dispatch for the 
- * collisionmap. For more realistic collision maps, this approach will not scale,
- * and the recommended approach is to use a {@link CollisionInteractionMap}.
+ * It dispatches collisions on the kind codes of the units through a
+ * {@link CollisionMatrix}, so new types of units only add entries to the
+ * matrix. For collisions that depend on the class hierarchy of the units,
+ * use a {@link CollisionInteractionMap}.
  *
  * @author Arie van Deursen, 2014
  *
@@ -16,41 +17,18 @@ import nl.tudelft.jpacman.npc.Ghost;
 
 public class PlayerCollisions implements CollisionMap {
 
+    /**
+     * The handlers of the collisions, by the kinds of the units involved.
+     */
+    private final CollisionMatrix collisions = new CollisionMatrix()
+        .onCollision(Player.KIND, Ghost.KIND, this::playerVersusGhost)
+        .onCollision(Player.KIND, Pellet.KIND, this::playerVersusPellet);
+
     @Override
     public void collide(Unit mover, Unit collidedOn) {
-        if (mover instanceof Player) {
-            playerColliding((Player) mover, collidedOn);
-        }
-        else if (mover instanceof Ghost) {
-            ghostColliding((Ghost) mover, collidedOn);
-        }
-        else if (mover instanceof Pellet) {
-            pelletColliding((Pellet) mover, collidedOn);
-        }
-    }
-
-    private void playerColliding(Player player, Unit collidedOn) {
-        if (collidedOn instanceof Ghost) {
-            playerVersusGhost(player, (Ghost) collidedOn);
-        }
-        if (collidedOn instanceof Pellet) {
-            playerVersusPellet(player, (Pellet) collidedOn);
-        }
+        collisions.collide(mover, collidedOn);
     }
 
-    private void ghostColliding(Ghost ghost, Unit collidedOn) {
-        if (collidedOn instanceof Player) {
-            playerVersusGhost((Player) collidedOn, ghost);
-        }
-    }
-
-    private void pelletColliding(Pellet pellet, Unit collidedOn) {
-        if (collidedOn instanceof Player) {
-            playerVersusPellet((Player) collidedOn, pellet);
-        }
-    }
-
-
     /**
      * Actual case of player bumping into ghost or vice versa.
      *
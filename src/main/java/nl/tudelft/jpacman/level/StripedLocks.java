@@ -0,0 +1,111 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import nl.tudelft.jpacman.board.Square;
+
+/**
+ * A fixed array of locks guarding the squares of a board, where each square
+ * is guarded by the lock at its index modulo the number of locks. A move
+ * locks the square it leaves and the square it enters, always in the order
+ * of the locks, so that moves in different parts of the board run in
+ * parallel and moves that share a lock cannot deadlock.
+ */
+final class StripedLocks {
+
+    /**
+     * The default number of locks.
+     */
+    static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * The locks.
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a new array of locks.
+     *
+     * @param count
+     *            The number of locks, a power of two.
+     */
+    StripedLocks(int count) {
+        if (count < 1 || Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("Not a power of two: " + count);
+        }
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the number of the lock guarding a square. Neighbouring squares
+     * in a row have consecutive indices, and so different locks.
+     *
+     * @param square
+     *            The square.
+     * @return The number of its lock.
+     */
+    private int stripeOf(Square square) {
+        return square.getIndex() & (stripes.length - 1);
+    }
+
+    /**
+     * Locks two squares, in the order of their locks.
+     *
+     * @param from
+     *            The square a unit leaves.
+     * @param to
+     *            The square it enters, which may be guarded by the same lock.
+     */
+    void lock(Square from, Square to) {
+        int first = stripeOf(from);
+        int second = stripeOf(to);
+        if (second < first) {
+            int swapped = first;
+            first = second;
+            second = swapped;
+        }
+        stripes[first].lock();
+        if (second != first) {
+            stripes[second].lock();
+        }
+    }
+
+    /**
+     * Unlocks two squares locked by {@link #lock(Square, Square)}.
+     *
+     * @param from
+     *            The square a unit leaves.
+     * @param to
+     *            The square it enters.
+     */
+    void unlock(Square from, Square to) {
+        int first = stripeOf(from);
+        int second = stripeOf(to);
+        stripes[first].unlock();
+        if (second != first) {
+            stripes[second].unlock();
+        }
+    }
+
+    /**
+     * Locks every square, in the order of the locks, to read or change the
+     * state of the whole board at once.
+     */
+    void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    /**
+     * Unlocks every square locked by {@link #lockAll()}.
+     */
+    void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.Arrays;
+
+/**
+ * A stack of fixed size frames of integers, used by {@link Level} to undo the
+ * moves made while searching. The buffer is reused, so that pushing and
+ * popping frames does not allocate once the stack has grown to the depth of
+ * the search.
+ */
+final class UndoStack {
+
+    /**
+     * The initial number of frames the buffer can hold.
+     */
+    private static final int INITIAL_FRAMES = 64;
+
+    /**
+     * The number of integers in a frame.
+     */
+    private int frameSize = 1;
+
+    /**
+     * The frames on the stack, bottom first.
+     */
+    private int[] data = new int[INITIAL_FRAMES];
+
+    /**
+     * The number of integers in use.
+     */
+    private int size;
+
+    /**
+     * Empties this stack and changes the size of its frames.
+     *
+     * @param newFrameSize
+     *            The number of integers in a frame, at least 1.
+     */
+    void reset(int newFrameSize) {
+        assert newFrameSize > 0;
+        frameSize = newFrameSize;
+        size = 0;
+        if (data.length < frameSize * INITIAL_FRAMES) {
+            data = new int[frameSize * INITIAL_FRAMES];
+        }
+    }
+
+    /**
+     * @return The number of frames on this stack.
+     */
+    int depth() {
+        return size / frameSize;
+    }
+
+    /**
+     * Pushes a new frame on this stack.
+     *
+     * @return The offset of the new frame.
+     */
+    int push() {
+        if (size + frameSize > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + frameSize));
+        }
+        int frame = size;
+        size += frameSize;
+        return frame;
+    }
+
+    /**
+     * Pops the top frame from this stack. Its values can be read until the
+     * next frame is pushed.
+     *
+     * @return The offset of the popped frame.
+     */
+    int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to undo.");
+        }
+        size -= frameSize;
+        return size;
+    }
+
+    /**
+     * @param offset
+     *            The offset of a value.
+     * @return The value at the offset.
+     */
+    int get(int offset) {
+        return data[offset];
+    }
+
+    /**
+     * @param offset
+     *            The offset of a value.
+     * @param value
+     *            The new value at the offset.
+     */
+    void set(int offset, int value) {
+        data[offset] = value;
+    }
+}
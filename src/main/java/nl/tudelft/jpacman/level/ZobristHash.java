@@ -0,0 +1,213 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.tudelft.jpacman.board.Board.OccupancyListener;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * A 64-bit Zobrist hash of the state of a level: the squares of the players
+ * and ghosts, the directions of the players and the squares holding pellets.
+ * The hash is the exclusive or of a key for every such feature, and is kept
+ * up to date in constant time as units occupy and vacate squares.
+ *
+ * <p>
+ * The keys are not stored in tables, but derived from the seed of the level
+ * by mixing the seed with the number of the unit and the index of the
+ * square, so that the hash takes no memory proportional to the board. Levels
+ * with the same seed, board and units hash equal states to the same value.
+ * </p>
+ *
+ * <p>
+ * Units in different parts of the board move concurrently, so keys are
+ * combined into the hash atomically. The hash can be read at any time.
+ * </p>
+ */
+final class ZobristHash implements OccupancyListener {
+
+    /**
+     * The number of all pellets in the keys.
+     */
+    private static final long PELLET = 0L;
+
+    /**
+     * The multiplier spreading unit numbers over the keys, the golden ratio.
+     */
+    private static final long UNIT_STRIDE = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The multiplier spreading square indices over the keys.
+     */
+    private static final long SQUARE_STRIDE = 0xc2b2ae3d27d4eb4fL;
+
+    /**
+     * The first multiplier of the mixing function.
+     */
+    private static final long MIX_FIRST = 0xbf58476d1ce4e5b9L;
+
+    /**
+     * The second multiplier of the mixing function.
+     */
+    private static final long MIX_SECOND = 0x94d049bb133111ebL;
+
+    /**
+     * The first shift of the mixing function.
+     */
+    private static final int SHIFT_FIRST = 30;
+
+    /**
+     * The second shift of the mixing function.
+     */
+    private static final int SHIFT_SECOND = 27;
+
+    /**
+     * The third shift of the mixing function.
+     */
+    private static final int SHIFT_THIRD = 31;
+
+    /**
+     * The seed the keys are derived from.
+     */
+    private final long seed;
+
+    /**
+     * The number of every player and ghost in the keys.
+     */
+    private final Map<Unit, Long> numbers = new ConcurrentHashMap<>();
+
+    /**
+     * The players, whose directions are part of the hash.
+     */
+    private final Map<Unit, Boolean> directed = new ConcurrentHashMap<>();
+
+    /**
+     * The current hash.
+     */
+    private final AtomicLong value = new AtomicLong();
+
+    /**
+     * Creates a new hash of an empty level.
+     *
+     * @param seed
+     *            The seed the keys are derived from.
+     */
+    ZobristHash(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return The current hash.
+     */
+    long value() {
+        return value.get();
+    }
+
+    /**
+     * Adds a unit to the hash, with its square and, if it is directed, its
+     * direction.
+     *
+     * @param unit
+     *            A player, ghost or pellet that is already on the board.
+     * @param directedUnit
+     *            <code>true</code> iff the direction of the unit is hashed.
+     */
+    void add(Unit unit, boolean directedUnit) {
+        if (!(unit instanceof Pellet)) {
+            numbers.putIfAbsent(unit, (long) numbers.size() + 1);
+        }
+        if (directedUnit) {
+            directed.put(unit, Boolean.TRUE);
+            toggleDirection(unit, unit.getDirection());
+        }
+        if (unit.hasSquare()) {
+            occupied(unit, unit.getSquare());
+        }
+    }
+
+    @Override
+    public void occupied(Unit unit, Square square) {
+        toggle(unit, square.getIndex());
+    }
+
+    @Override
+    public void vacated(Unit unit, Square square) {
+        toggle(unit, square.getIndex());
+    }
+
+    @Override
+    public void turned(Unit unit, Direction previous) {
+        if (directed.containsKey(unit)) {
+            toggleDirection(unit, previous);
+            toggleDirection(unit, unit.getDirection());
+        }
+    }
+
+    /**
+     * Adds the key of a unit on a square to the hash, or removes it.
+     *
+     * @param unit
+     *            The unit.
+     * @param index
+     *            The index of the square.
+     */
+    private void toggle(Unit unit, long index) {
+        if (unit instanceof Pellet) {
+            value.accumulateAndGet(key(PELLET, index), ZobristHash::xor);
+            return;
+        }
+        Long number = numbers.get(unit);
+        if (number != null) {
+            value.accumulateAndGet(key(number, index), ZobristHash::xor);
+        }
+    }
+
+    /**
+     * Adds the key of the direction of a unit to the hash, or removes it.
+     *
+     * @param unit
+     *            The unit.
+     * @param direction
+     *            The direction.
+     */
+    private void toggleDirection(Unit unit, Direction direction) {
+        Long number = numbers.get(unit);
+        if (number != null && direction != null) {
+            value.accumulateAndGet(key(number, -1L - direction.ordinal()),
+                ZobristHash::xor);
+        }
+    }
+
+    /**
+     * Combines a key with the hash.
+     *
+     * @param hash
+     *            The hash.
+     * @param key
+     *            The key.
+     * @return The exclusive or of both.
+     */
+    private static long xor(long hash, long key) {
+        return hash ^ key;
+    }
+
+    /**
+     * Derives the key of a feature.
+     *
+     * @param number
+     *            The number of the unit.
+     * @param index
+     *            The index of its square, or a negative number for its
+     *            direction.
+     * @return The key of the feature.
+     */
+    private long key(long number, long index) {
+        long mixed = seed + number * UNIT_STRIDE + index * SQUARE_STRIDE;
+        mixed = (mixed ^ (mixed >>> SHIFT_FIRST)) * MIX_FIRST;
+        mixed = (mixed ^ (mixed >>> SHIFT_SECOND)) * MIX_SECOND;
+        return mixed ^ (mixed >>> SHIFT_THIRD);
+    }
+}
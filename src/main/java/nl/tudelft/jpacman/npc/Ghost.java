@@ -1,15 +1,20 @@
 package nl.tudelft.jpacman.npc;
 
+import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.DistanceField;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.Player;
 import nl.tudelft.jpacman.sprite.Sprite;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A non-player unit.
@@ -17,6 +22,28 @@ import java.util.Random;
  * @author Jeroen Roosen
  */
 public abstract class Ghost extends Unit {
+    /**
+     * The kind code of ghosts.
+     */
+    public static final int KIND = 2;
+
+    /**
+     * The default time budget of a decision of the AI, in nanoseconds.
+     */
+    public static final long DEFAULT_AI_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+
+    /**
+     * The detail distance of ghosts that always run their AI, see
+     * {@link #setDetailDistance(int)}.
+     */
+    public static final int FULL_DETAIL = Integer.MAX_VALUE;
+
+    /**
+     * The number of cheap moves per cheap move that is compared to the move
+     * of the AI.
+     */
+    public static final int SAMPLE_INTERVAL = 16;
+
     /**
      * The sprite map, one sprite for each direction.
      */
@@ -32,17 +59,149 @@ public abstract class Ghost extends Unit {
      */
     private final int intervalVariation;
 
+    /**
+     * The level this ghost is playing on, or <code>null</code> if it is not
+     * part of a level.
+     */
+    private Level level;
+
+    /**
+     * The source of the random decisions of this ghost. Only the thread
+     * moving this ghost draws from it.
+     */
+    private GhostRandom random = new GhostRandom(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * How this ghost decided its moves so far.
+     */
+    private final GhostMetrics metrics = new GhostMetrics();
+
+    /**
+     * <code>true</code> iff the time budget of the AI is enforced.
+     */
+    private volatile boolean budgetEnforced = true;
+
+    /**
+     * The distance to the nearest player beyond which this ghost makes cheap
+     * moves instead of running its AI.
+     */
+    private volatile int detailDistance = FULL_DETAIL;
+
+    /**
+     * The time the AI took beyond its budget that has not been made up for
+     * yet, in nanoseconds. Only the thread moving this ghost accesses it.
+     */
+    private long aiDebt;
+
+    /**
+     * The nearest player when this ghost last moved, or <code>null</code>.
+     * Only the thread moving this ghost accesses it.
+     */
+    private Player target;
+
+    /**
+     * The distance to {@link #target} from the square this ghost last moved
+     * to.
+     */
+    private int targetDistance = DistanceField.UNREACHABLE;
+
+    /**
+     * The state of {@link #random} before this ghost decided its last move,
+     * see {@link #retractMove()}.
+     */
+    private long decidedRandomState;
+
+    /**
+     * The {@link #target} before this ghost decided its last move.
+     */
+    private Player decidedTarget;
+
+    /**
+     * The {@link #targetDistance} before this ghost decided its last move.
+     */
+    private int decidedTargetDistance;
+
+    /**
+     * The {@link #aiDebt} before this ghost decided its last move.
+     */
+    private long decidedAiDebt;
+
     /**
      * Calculates the next move for this unit and returns the direction to move
      * in.
      * <p>
      * Precondition: The NPC occupies a square (hasSquare() holds).
+     * <p>
+     * The AI is timed against the budget of this ghost, see
+     * {@link #getAiBudgetNanos()}. A decision that is already running cannot
+     * be cut short, so when it overruns its budget, the following decisions
+     * make up for it: they skip the AI and use {@link #fallbackMove()}, each
+     * saving a budget of time, until the overrun is made up for. This way a
+     * slow AI takes at most its budget per move on average, and does not
+     * back up the threads moving the ghosts.
+     * <p>
+     * Far from the players, beyond its detail distance, a ghost does not run
+     * its AI at all, but follows the corridors with {@link #fallbackMove()}.
+     * <p>
+     * In a corridor, the only move other than turning back is to go on, so
+     * a ghost only decides its moves at junctions and dead ends. In between
+     * it goes on without running its AI, unless its target changed: another
+     * player became the nearest, or the nearest player got farther away and
+     * may have to be followed back.
      *
      * @return The direction to move in, or <code>null</code> if no move could
      * be devised.
      */
     public Direction nextMove() {
-        return nextAiMove().orElseGet(this::randomMove);
+        decidedRandomState = random.getState();
+        decidedTarget = target;
+        decidedTargetDistance = targetDistance;
+        decidedAiDebt = aiDebt;
+        Player nearest = nearestPlayer();
+        boolean sameTarget = nearest != null && nearest == target
+            && distanceBetween(nearest, getSquare()) <= targetDistance;
+        Direction move = null;
+        if (sameTarget) {
+            move = corridorMove();
+        }
+        if (move == null) {
+            move = decideMove();
+        } else {
+            metrics.recordCorridorMove();
+        }
+        target = nearest;
+        Square destination = getSquare();
+        if (move != null) {
+            destination = destination.getSquareAt(move);
+        }
+        targetDistance = distanceBetween(nearest, destination);
+        return move;
+    }
+
+    /**
+     * Decides a move away from corridors, or when the target changed.
+     *
+     * @return The direction to move in, or <code>null</code> if no move could
+     * be devised.
+     */
+    private Direction decideMove() {
+        if (isFarFromPlayers()) {
+            return cheapMove();
+        }
+        long budget = getAiBudgetNanos();
+        if (aiDebt > 0L && budgetEnforced) {
+            aiDebt = Math.max(0L, aiDebt - budget);
+            metrics.recordFallback();
+            return fallbackMove();
+        }
+        long started = System.nanoTime();
+        Optional<Direction> move = nextAiMove();
+        long elapsed = System.nanoTime() - started;
+        metrics.recordDecision(elapsed, elapsed > budget);
+        if (elapsed > budget && budgetEnforced) {
+            aiDebt += elapsed - budget;
+        }
+        return move.orElseGet(this::randomMove);
     }
 
     /**
@@ -66,6 +225,241 @@ public abstract class Ghost extends Unit {
         this.moveInterval = moveInterval;
     }
 
+    /**
+     * Returns the distance from a square to a player, as travelled by the
+     * ghosts.
+     *
+     * @param player
+     *            The player, or <code>null</code>.
+     * @param square
+     *            The square to measure from.
+     * @return The distance in squares, or {@link DistanceField#UNREACHABLE}
+     *         if there is no player or no distance field for it.
+     */
+    private int distanceBetween(Player player, Square square) {
+        if (player == null) {
+            return DistanceField.UNREACHABLE;
+        }
+        DistanceField field = level.getDistanceField(player);
+        if (field == null) {
+            return DistanceField.UNREACHABLE;
+        }
+        return field.distanceFrom(square);
+    }
+
+    /**
+     * Finds the way on through the corridor this ghost is in, using the
+     * classification of the squares by the board.
+     *
+     * @return The only accessible direction other than back, or
+     *         <code>null</code> if this ghost is not in a corridor or has no
+     *         direction to go on in.
+     */
+    private Direction corridorMove() {
+        Direction heading = getDirection();
+        Square square = getSquare();
+        Board board = square.getBoard();
+        if (heading == null || board == null || !board.isCorridor(square)) {
+            return null;
+        }
+        Direction onwards = null;
+        for (Direction direction : Direction.values()) {
+            if (!isReverse(direction, heading)
+                && square.getSquareAt(direction).isAccessibleTo(this)) {
+                if (onwards != null) {
+                    return null;
+                }
+                onwards = direction;
+            }
+        }
+        return onwards;
+    }
+
+    /**
+     * Determines whether two directions are opposite.
+     *
+     * @param direction
+     *            The direction to check.
+     * @param heading
+     *            The direction it is compared to.
+     * @return <code>true</code> iff <code>direction</code> turns back from
+     *         <code>heading</code>.
+     */
+    private static boolean isReverse(Direction direction, Direction heading) {
+        return direction.getDeltaX() == -heading.getDeltaX()
+            && direction.getDeltaY() == -heading.getDeltaY();
+    }
+
+    /**
+     * Determines whether this ghost is beyond its detail distance from the
+     * players of its level, or cannot reach any of them.
+     *
+     * @return <code>true</code> iff this ghost makes cheap moves.
+     */
+    private boolean isFarFromPlayers() {
+        int limit = detailDistance;
+        if (limit == FULL_DETAIL || level == null) {
+            return false;
+        }
+        int distance = level.distanceToNearestPlayer(getSquare());
+        return distance == DistanceField.UNREACHABLE || distance > limit;
+    }
+
+    /**
+     * Makes a cheap move far from the players. Every
+     * {@link #SAMPLE_INTERVAL}th cheap move is compared to the move of the
+     * AI, to measure the fidelity of the cheap moves.
+     *
+     * @return The direction to move in, or <code>null</code> if this ghost
+     * is shut in.
+     */
+    private Direction cheapMove() {
+        Direction move = fallbackMove();
+        if (metrics.recordCheapMove() % SAMPLE_INTERVAL == 0) {
+            long started = System.nanoTime();
+            Optional<Direction> full = nextAiMove();
+            long elapsed = System.nanoTime() - started;
+            full.ifPresent(direction -> metrics.recordSample(direction == move, elapsed));
+        }
+        return move;
+    }
+
+    /**
+     * Sets the level of detail of the AI of this ghost: beyond the given
+     * distance from the nearest player, as travelled by the ghosts, the ghost
+     * follows the corridors instead of running its AI, since its exact moves
+     * matter little there. The distance is looked up in the distance fields
+     * of the level, so the check itself is cheap.
+     *
+     * @param distance
+     *            The distance in squares, or {@link #FULL_DETAIL} to always
+     *            run the AI.
+     */
+    public void setDetailDistance(int distance) {
+        assert distance >= 0;
+        this.detailDistance = distance;
+    }
+
+    /**
+     * Returns the time budget of a decision of the AI of this ghost.
+     * Subclasses whose AI is more or less expensive than usual override this.
+     *
+     * @return The budget in nanoseconds, {@link #DEFAULT_AI_BUDGET_NANOS} by
+     *         default.
+     */
+    protected long getAiBudgetNanos() {
+        return DEFAULT_AI_BUDGET_NANOS;
+    }
+
+    /**
+     * Enables or disables the time budget of the AI. Without a budget, every
+     * move is decided by the AI, so that the moves do not depend on the
+     * speed of the machine, as needed by a deterministic clock. Overruns are
+     * measured either way.
+     *
+     * @param enforced
+     *            <code>true</code> to make up for overruns by skipping the
+     *            AI, <code>false</code> to always run it.
+     */
+    public void setAiBudgetEnforced(boolean enforced) {
+        this.budgetEnforced = enforced;
+    }
+
+    /**
+     * @return How this ghost decided its moves so far.
+     */
+    public GhostMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the level this ghost is playing on, which gives its AI access to
+     * the state of the level.
+     *
+     * @param newLevel
+     *            The level this ghost is playing on.
+     */
+    public void setLevel(Level newLevel) {
+        this.level = newLevel;
+    }
+
+    /**
+     * Sets the state of the source of the random decisions of this ghost,
+     * typically drawn from the seeded generator of its level, or read with
+     * {@link #getRandomState()} to repeat the decisions from that point.
+     *
+     * @param state
+     *            The state of the generator this ghost draws its decisions
+     *            from.
+     */
+    public void setRandomState(long state) {
+        this.random = new GhostRandom(state);
+    }
+
+    /**
+     * Takes back the move this ghost decided last, without making it: the
+     * ghost forgets everything it learned while deciding it and draws the
+     * same random numbers again, so that deciding again gives the move it
+     * would have decided in the first place from the state of the level at
+     * that time. Only the thread moving this ghost may call this method.
+     */
+    public void retractMove() {
+        setRandomState(decidedRandomState);
+        target = decidedTarget;
+        targetDistance = decidedTargetDistance;
+        aiDebt = decidedAiDebt;
+    }
+
+    /**
+     * Returns the state of the source of the random decisions of this ghost,
+     * without drawing from it, so that reading it does not change the
+     * decisions of this ghost.
+     *
+     * @return The state of the generator this ghost draws its decisions
+     *         from.
+     */
+    public long getRandomState() {
+        return random.getState();
+    }
+
+    /**
+     * Returns the source of the random decisions of this ghost.
+     *
+     * @return The generator this ghost draws its decisions from.
+     */
+    protected GhostRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the level this ghost is playing on.
+     *
+     * @return The level of this ghost, or <code>null</code> if it is not part
+     *         of a level.
+     */
+    protected Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Finds the player that this ghost can reach in the least number of
+     * steps, using the distance fields maintained by its level.
+     *
+     * @return The nearest player, or <code>null</code> if this ghost is not
+     *         part of a level or cannot reach any player.
+     */
+    protected Player nearestPlayer() {
+        if (level == null) {
+            return null;
+        }
+        return level.nearestPlayer(getSquare());
+    }
+
+    @Override
+    public int getKind() {
+        return KIND;
+    }
+
     @Override
     public Sprite getSprite() {
         return sprites.get(getDirection());
@@ -77,7 +471,39 @@ public abstract class Ghost extends Unit {
      * @return The suggested delay between moves in milliseconds.
      */
     public long getInterval() {
-        return this.moveInterval + new Random().nextInt(this.intervalVariation);
+        return this.moveInterval + random.nextInt(this.intervalVariation);
+    }
+
+    /**
+     * Determines a move without running the AI, while this ghost makes up
+     * for an AI that overran its budget or is far from the players. By
+     * default, the ghost keeps following the path or corridor it was on by
+     * moving on in its current direction, and turns randomly where that is
+     * blocked, turning back only at dead ends.
+     *
+     * @return A direction in which the ghost can move, or <code>null</code> if
+     * the ghost is shut in by inaccessible squares.
+     */
+    protected Direction fallbackMove() {
+        Direction heading = getDirection();
+        Square square = getSquare();
+        if (heading == null) {
+            return randomMove();
+        }
+        if (square.getSquareAt(heading).isAccessibleTo(this)) {
+            return heading;
+        }
+        List<Direction> turns = new ArrayList<>();
+        for (Direction direction : Direction.values()) {
+            if (!isReverse(direction, heading)
+                && square.getSquareAt(direction).isAccessibleTo(this)) {
+                turns.add(direction);
+            }
+        }
+        if (turns.isEmpty()) {
+            return randomMove();
+        }
+        return turns.get(random.nextInt(turns.size()));
     }
 
     /**
@@ -97,7 +523,7 @@ public abstract class Ghost extends Unit {
         if (directions.isEmpty()) {
             return null;
         }
-        int i = new Random().nextInt(directions.size());
+        int i = random.nextInt(directions.size());
         return directions.get(i);
     }
 }
@@ -0,0 +1,214 @@
+package nl.tudelft.jpacman.npc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how a ghost decides its moves: how often it ran its AI and how long
+ * that took, how often the AI overran its time budget, and how often the
+ * ghost moved without running its AI, either to make up for overruns or
+ * because it was far from the players or following a corridor. Of the latter moves, a sample is
+ * compared to what the AI would have done, which measures what the cheap
+ * moves cost in fidelity. The counters are updated by the thread moving the
+ * ghost and can be read from any thread.
+ */
+public final class GhostMetrics {
+
+    /**
+     * The number of moves decided by the AI.
+     */
+    private final AtomicLong aiDecisions = new AtomicLong();
+
+    /**
+     * The total time spent in the AI, in nanoseconds.
+     */
+    private final AtomicLong aiNanos = new AtomicLong();
+
+    /**
+     * The longest time spent on a single decision, in nanoseconds.
+     */
+    private final AtomicLong maxAiNanos = new AtomicLong();
+
+    /**
+     * The number of decisions that took longer than the budget.
+     */
+    private final AtomicLong overruns = new AtomicLong();
+
+    /**
+     * The number of moves decided without the AI to make up for overruns.
+     */
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * The number of moves on through corridors without running the AI.
+     */
+    private final AtomicLong corridorMoves = new AtomicLong();
+
+    /**
+     * The number of cheap moves made far from the players.
+     */
+    private final AtomicLong cheapMoves = new AtomicLong();
+
+    /**
+     * The number of cheap moves compared to the move of the AI.
+     */
+    private final AtomicLong samples = new AtomicLong();
+
+    /**
+     * The number of compared cheap moves that matched the move of the AI.
+     */
+    private final AtomicLong matches = new AtomicLong();
+
+    /**
+     * The total time spent in the AI for comparisons, in nanoseconds.
+     */
+    private final AtomicLong sampleNanos = new AtomicLong();
+
+    /**
+     * Records a move decided by the AI.
+     *
+     * @param nanos
+     *            The time the decision took.
+     * @param overrun
+     *            <code>true</code> iff it took longer than the budget.
+     */
+    void recordDecision(long nanos, boolean overrun) {
+        aiDecisions.incrementAndGet();
+        aiNanos.addAndGet(nanos);
+        maxAiNanos.accumulateAndGet(nanos, Math::max);
+        if (overrun) {
+            overruns.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a move decided without the AI to make up for overruns.
+     */
+    void recordFallback() {
+        fallbacks.incrementAndGet();
+    }
+
+    /**
+     * Records a move on through a corridor without running the AI.
+     */
+    void recordCorridorMove() {
+        corridorMoves.incrementAndGet();
+    }
+
+    /**
+     * Records a cheap move made far from the players.
+     *
+     * @return The number of cheap moves so far, including this one.
+     */
+    long recordCheapMove() {
+        return cheapMoves.incrementAndGet();
+    }
+
+    /**
+     * Records the comparison of a cheap move to the move of the AI.
+     *
+     * @param match
+     *            <code>true</code> iff both moves are the same.
+     * @param nanos
+     *            The time the AI took.
+     */
+    void recordSample(boolean match, long nanos) {
+        samples.incrementAndGet();
+        sampleNanos.addAndGet(nanos);
+        if (match) {
+            matches.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return The number of moves decided by the AI.
+     */
+    public long getAiDecisions() {
+        return aiDecisions.get();
+    }
+
+    /**
+     * @return The total time spent in the AI, in nanoseconds.
+     */
+    public long getAiNanos() {
+        return aiNanos.get();
+    }
+
+    /**
+     * @return The longest time spent on a single decision, in nanoseconds.
+     */
+    public long getMaxAiNanos() {
+        return maxAiNanos.get();
+    }
+
+    /**
+     * @return The number of decisions that took longer than the budget.
+     */
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    /**
+     * @return The number of moves decided without the AI to make up for
+     *         overruns.
+     */
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    /**
+     * @return The number of moves on through corridors without running the
+     *         AI.
+     */
+    public long getCorridorMoves() {
+        return corridorMoves.get();
+    }
+
+    /**
+     * @return The number of cheap moves made far from the players.
+     */
+    public long getCheapMoves() {
+        return cheapMoves.get();
+    }
+
+    /**
+     * @return An estimate of the time saved by the cheap moves, in
+     *         nanoseconds: the number of cheap moves that were not compared
+     *         times the average time the AI took.
+     */
+    public long getEstimatedSavedNanos() {
+        long runs = getAiDecisions() + getSamples();
+        if (runs == 0L) {
+            return 0L;
+        }
+        long average = (getAiNanos() + sampleNanos.get()) / runs;
+        return (getCheapMoves() - getSamples()) * average;
+    }
+
+    /**
+     * @return The number of cheap moves compared to the move of the AI.
+     */
+    public long getSamples() {
+        return samples.get();
+    }
+
+    /**
+     * @return The fraction of compared cheap moves that matched the move of
+     *         the AI, or 1 if none were compared.
+     */
+    public double getFidelity() {
+        long compared = getSamples();
+        if (compared == 0L) {
+            return 1.0;
+        }
+        return (double) matches.get() / compared;
+    }
+
+    @Override
+    public String toString() {
+        return "GhostMetrics[decisions=" + getAiDecisions() + ", nanos=" + getAiNanos()
+            + ", max=" + getMaxAiNanos() + ", overruns=" + getOverruns()
+            + ", fallbacks=" + getFallbacks() + ", corridor=" + getCorridorMoves()
+            + ", cheap=" + getCheapMoves()
+            + ", fidelity=" + getFidelity() + "]";
+    }
+}
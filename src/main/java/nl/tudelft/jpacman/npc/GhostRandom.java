@@ -0,0 +1,98 @@
+package nl.tudelft.jpacman.npc;
+
+/**
+ * The source of the random decisions of a ghost: a SplitMix64 generator,
+ * the algorithm behind {@link java.util.SplittableRandom}, whose whole state
+ * is a single number. The state can be read at any time without drawing
+ * from the generator, so that snapshots of a level do not change the
+ * decisions of its ghosts, and a generator created with a state it read
+ * repeats the decisions from that point.
+ */
+public final class GhostRandom {
+
+    /**
+     * The increment of the state for every number drawn.
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The first multiplier of the mixing function.
+     */
+    private static final long MIX_FIRST = 0xBF58476D1CE4E5B9L;
+
+    /**
+     * The second multiplier of the mixing function.
+     */
+    private static final long MIX_SECOND = 0x94D049BB133111EBL;
+
+    /**
+     * The first shift of the mixing function.
+     */
+    private static final int SHIFT_FIRST = 30;
+
+    /**
+     * The second shift of the mixing function.
+     */
+    private static final int SHIFT_SECOND = 27;
+
+    /**
+     * The last shift of the mixing function.
+     */
+    private static final int SHIFT_LAST = 31;
+
+    /**
+     * The number of bits in an int.
+     */
+    private static final int INT_BITS = 32;
+
+    /**
+     * The state of the generator.
+     */
+    private long state;
+
+    /**
+     * Creates a new generator.
+     *
+     * @param initialState
+     *            The state to start from, e.g. a seed or a state read with
+     *            {@link #getState()}.
+     */
+    public GhostRandom(long initialState) {
+        this.state = initialState;
+    }
+
+    /**
+     * @return The state of this generator, without changing it.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Draws the next 64 random bits.
+     *
+     * @return A random long.
+     */
+    public long nextLong() {
+        state += GAMMA;
+        long mixed = (state ^ (state >>> SHIFT_FIRST)) * MIX_FIRST;
+        mixed = (mixed ^ (mixed >>> SHIFT_SECOND)) * MIX_SECOND;
+        return mixed ^ (mixed >>> SHIFT_LAST);
+    }
+
+    /**
+     * Draws a random number below a bound, drawing exactly one long from
+     * this generator, so that the state advances the same way for every
+     * bound.
+     *
+     * @param bound
+     *            The bound, which must be positive.
+     * @return A random number from 0 (inclusive) to the bound (exclusive).
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        return (int) (((nextLong() >>> INT_BITS) * bound) >>> INT_BITS);
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Optional;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.DistanceField;
 import nl.tudelft.jpacman.level.Player;
 import nl.tudelft.jpacman.npc.Ghost;
 import nl.tudelft.jpacman.sprite.Sprite;
@@ -94,6 +95,12 @@ public class Clyde extends Ghost {
     public Optional<Direction> nextAiMove() {
         assert hasSquare();
 
+        Player player = nearestPlayer();
+        if (player != null) {
+            DistanceField field = getLevel().getDistanceField(player);
+            return approach(field.descend(getSquare()), field.distanceFrom(getSquare()));
+        }
+
         Unit nearest = Navigation.findNearest(Player.class, getSquare());
         if (nearest == null) {
             return Optional.empty();
@@ -103,12 +110,28 @@ public class Clyde extends Ghost {
 
         List<Direction> path = Navigation.shortestPath(getSquare(), target, this);
         if (path != null && !path.isEmpty()) {
-            Direction direction = path.get(0);
-            if (path.size() <= SHYNESS) {
-                return Optional.ofNullable(OPPOSITES.get(direction));
-            }
-            return Optional.of(direction);
+            return approach(path.get(0), path.size());
         }
         return Optional.empty();
     }
+
+    /**
+     * Decides whether to follow the path to Pac-Man or to run away from him.
+     *
+     * @param direction
+     *            The first step towards Pac-Man, or <code>null</code> if
+     *            there is none.
+     * @param distance
+     *            The number of steps to Pac-Man.
+     * @return The direction to move in.
+     */
+    private Optional<Direction> approach(Direction direction, int distance) {
+        if (direction == null) {
+            return Optional.empty();
+        }
+        if (distance <= SHYNESS) {
+            return Optional.ofNullable(OPPOSITES.get(direction));
+        }
+        return Optional.of(direction);
+    }
 }
@@ -55,6 +55,19 @@ public class Inky extends Ghost {
         super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Inky searches twice as much as the other ghosts, for Blinky and for
+     * the square ahead of Pac-Man, so he gets twice the default budget.
+     * </p>
+     */
+    @Override
+    protected long getAiBudgetNanos() {
+        return 2 * DEFAULT_AI_BUDGET_NANOS;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -85,7 +98,10 @@ public class Inky extends Ghost {
     public Optional<Direction> nextAiMove() {
         assert hasSquare();
         Unit blinky = Navigation.findNearest(Blinky.class, getSquare());
-        Unit player = Navigation.findNearest(Player.class, getSquare());
+        Unit player = nearestPlayer();
+        if (player == null) {
+            player = Navigation.findNearest(Player.class, getSquare());
+        }
 
         if (blinky == null || player == null) {
             return Optional.empty();
@@ -102,13 +118,8 @@ public class Inky extends Ghost {
         }
 
         Square destination = followPath(firstHalf, playerDestination);
-        List<Direction> path = Navigation.shortestPath(getSquare(),
-            destination, this);
-
-        if (path != null && !path.isEmpty()) {
-            return Optional.ofNullable(path.get(0));
-        }
-        return Optional.empty();
+        return Optional.ofNullable(Navigation.firstStep(getSquare(),
+            destination, this));
     }
 
 
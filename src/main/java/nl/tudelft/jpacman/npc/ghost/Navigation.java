@@ -1,12 +1,11 @@
 package nl.tudelft.jpacman.npc.ghost;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.RoutingTable;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
 
@@ -24,7 +23,8 @@ public final class Navigation {
      * Calculates the shortest path. This is done by BFS. This search ensures
      * the traveller is allowed to occupy the squares on the way, or returns the
      * shortest path to the square regardless of terrain if no traveller is
-     * specified.
+     * specified. If the board has a {@link RoutingTable}, the path is looked
+     * up instead.
      *
      * @param from
      *            The starting square.
@@ -44,37 +44,82 @@ public final class Navigation {
         if (from.equals(to)) {
             return new ArrayList<>();
         }
+        RoutingTable routes = routesFrom(from, traveller);
+        if (routes != null) {
+            return routes.path(from, to);
+        }
+        if (from.getBoard() == null) {
+            return null;
+        }
 
-        List<Node> targets = new ArrayList<>();
-        Set<Square> visited = new HashSet<>();
-        targets.add(new Node(null, from, null));
-        while (!targets.isEmpty()) {
-            Node node = targets.remove(0);
-            Square square = node.getSquare();
-            if (square.equals(to)) {
-                return node.getPath();
-            }
-            visited.add(square);
-            addNewTargets(traveller, targets, visited, node, square);
+        SearchContext search = SearchContext.get();
+        if (!search.search(from, to, traveller)) {
+            return null;
         }
-        return null;
+        return search.path(to);
     }
 
-    private static void addNewTargets(Unit traveller, List<Node> targets,
-                                      Set<Square> visited, Node node, Square square) {
-        for (Direction direction : Direction.values()) {
-            Square target = square.getSquareAt(direction);
-            if (!visited.contains(target)
-                && (traveller == null || target.isAccessibleTo(traveller))) {
-                targets.add(new Node(direction, target, node));
-            }
+    /**
+     * Calculates the first step of the shortest path, see
+     * {@link #shortestPath(Square, Square, Unit)}. If the board has a
+     * {@link RoutingTable}, this is a single lookup. Otherwise the search
+     * reuses the scratch space of the current thread and does not allocate.
+     *
+     * @param from
+     *            The starting square.
+     * @param to
+     *            The destination.
+     * @param traveller
+     *            The traveller attempting to reach the destination, or
+     *            <code>null</code> to ignore terrain.
+     * @return The direction of the first step, or <code>null</code> if there
+     *         is no such path or the destination is the current square.
+     */
+    public static Direction firstStep(Square from, Square to, Unit traveller) {
+        RoutingTable routes = routesFrom(from, traveller);
+        if (routes != null) {
+            return routes.nextHop(from, to);
+        }
+        if (from.equals(to) || from.getBoard() == null) {
+            return null;
+        }
+
+        SearchContext search = SearchContext.get();
+        if (!search.search(from, to, traveller)) {
+            return null;
         }
+        return search.stepOfPath(to, 0);
     }
 
     /**
-     * Finds the nearest unit of the given type and returns its location. This
-     * method will perform a breadth first search starting from the given
-     * square.
+     * Returns the routing table that can answer queries from the given square.
+     *
+     * @param from
+     *            The starting square.
+     * @param traveller
+     *            The traveller, or <code>null</code> if terrain is ignored.
+     * @return The routing table of the board, or <code>null</code> if there
+     *         is none or it cannot be used for this query.
+     */
+    private static RoutingTable routesFrom(Square from, Unit traveller) {
+        Board board = from.getBoard();
+        if (traveller == null || board == null) {
+            return null;
+        }
+        RoutingTable routes = board.getRoutingTable();
+        if (routes == null || !routes.covers(from)) {
+            return null;
+        }
+        return routes;
+    }
+
+    /**
+     * Finds the nearest unit of the given type and returns its location,
+     * measuring distance in steps regardless of terrain. If the square is on a
+     * board, the units are taken from the board's unit index, so this takes
+     * time proportional to the number of units of the given type. Otherwise
+     * only the square itself is inspected. Of units at the same distance, the
+     * one on the square with the lowest index is returned.
      *
      * @param type
      *            The type of unit to search for.
@@ -85,31 +130,48 @@ public final class Navigation {
      */
     public static Unit findNearest(Class<? extends Unit> type,
                                              Square currentLocation) {
-        List<Square> toDo = new ArrayList<>();
-        Set<Square> visited = new HashSet<>();
-
-        toDo.add(currentLocation);
+        Board board = currentLocation.getBoard();
+        if (board == null) {
+            return findUnit(type, currentLocation);
+        }
 
-        while (!toDo.isEmpty()) {
-            Square square = toDo.remove(0);
-            Unit unit = findUnit(type, square);
-            if (unit != null) {
-                assert unit.hasSquare();
-                return unit;
-            }
-            visited.add(square);
-            for (Direction direction : Direction.values()) {
-                Square newTarget = square.getSquareAt(direction);
-                if (!visited.contains(newTarget) && !toDo.contains(newTarget)) {
-                    toDo.add(newTarget);
+        Unit nearest = null;
+        int shortest = Integer.MAX_VALUE;
+        for (Unit unit : board.unitsOf(type)) {
+            if (unit.hasSquare()) {
+                int distance = wrappedDistance(board, currentLocation, unit.getSquare());
+                if (distance < shortest || distance == shortest
+                    && unit.getSquare().getIndex() < nearest.getSquare().getIndex()) {
+                    nearest = unit;
+                    shortest = distance;
                 }
             }
         }
-        return null;
+        return nearest;
+    }
+
+    /**
+     * Returns the number of steps between two squares regardless of terrain,
+     * taking into account that the board wraps around at its edges.
+     *
+     * @param board
+     *            The board both squares are on.
+     * @param from
+     *            The first square.
+     * @param to
+     *            The second square.
+     * @return The number of steps between the squares.
+     */
+    private static int wrappedDistance(Board board, Square from, Square to) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        int dx = Math.abs(from.getIndex() % width - to.getIndex() % width);
+        int dy = Math.abs(from.getIndex() / width - to.getIndex() / width);
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
     }
 
     /**
-     *  Finds a subtype of Unit in a level.
+     *  Finds a subtype of Unit in a level, using the board's unit index.
      *  This method is very useful for finding the ghosts in the parsed map.
      *
      * @param clazz the type to search for.
@@ -119,16 +181,7 @@ public final class Navigation {
      * @return the first unit found of type clazz, or null.
      */
     public static <T extends Unit> T findUnitInBoard(Class<T> clazz, Board board) {
-        for (int y = 0; y < board.getHeight(); y++) {
-            for (int x = 0; x < board.getWidth(); x++) {
-                final T ghost = Navigation.findUnit(clazz, board.squareAt(x, y));
-                if (ghost != null) {
-                    return ghost;
-                }
-            }
-        }
-
-        return null;
+        return board.findAny(clazz);
     }
 
     /**
@@ -144,93 +197,9 @@ public final class Navigation {
      * @return A unit of type T, iff such a unit occupies this square, or
      *         <code>null</code> of none does.
      */
-    @SuppressWarnings("unchecked")
     public static <T extends Unit> T findUnit(Class<T> type, Square square) {
-        for (Unit unit : square.getOccupants()) {
-            if (type.isInstance(unit)) {
-                assert unit.hasSquare();
-                return (T) unit;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Helper class to keep track of the path.
-     *
-     * @author Jeroen Roosen
-     */
-    private static final class Node {
-
-        /**
-         * The direction for this node, which is <code>null</code> for the root
-         * node.
-         */
-        private final Direction direction;
-
-        /**
-         * The parent node, which is <code>null</code> for the root node.
-         */
-        private final Node parent;
-
-        /**
-         * The square associated with this node.
-         */
-        private final Square square;
-
-        /**
-         * Creates a new node.
-         *
-         * @param direction
-         *            The direction, which is <code>null</code> for the root
-         *            node.
-         * @param square
-         *            The square.
-         * @param parent
-         *            The parent node, which is <code>null</code> for the root
-         *            node.
-         */
-        Node(Direction direction, Square square, Node parent) {
-            this.direction = direction;
-            this.square = square;
-            this.parent = parent;
-        }
-
-        /**
-         * @return The direction for this node, or <code>null</code> if this
-         *         node is a root node.
-         */
-        private Direction getDirection() {
-            return direction;
-        }
-
-        /**
-         * @return The square for this node.
-         */
-        private Square getSquare() {
-            return square;
-        }
-
-        /**
-         * @return The parent node, or <code>null</code> if this node is a root
-         *         node.
-         */
-        private Node getParent() {
-            return parent;
-        }
-
-        /**
-         * Returns the list of values from the root of the tree to this node.
-         *
-         * @return The list of values from the root of the tree to this node.
-         */
-        private List<Direction> getPath() {
-            if (parent == null) {
-                return new ArrayList<>();
-            }
-            List<Direction> path = parent.getPath();
-            path.add(getDirection());
-            return path;
-        }
+        T unit = square.findOccupant(type);
+        assert unit == null || unit.hasSquare();
+        return unit;
     }
 }
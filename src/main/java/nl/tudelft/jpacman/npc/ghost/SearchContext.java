@@ -0,0 +1,263 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * Reusable scratch space for breadth first searches over the square indices
+ * of a {@link Board}. A context is bound to a single thread, see
+ * {@link #get()}, and only grows when a larger board is searched, so that
+ * searches do not allocate once it is warmed up.
+ */
+final class SearchContext {
+
+    /**
+     * The number of bits in a word of the visited set.
+     */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /**
+     * The shift that turns a square index into a word index.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * All directions, in the order in which they are explored.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The search context of every thread.
+     */
+    private static final ThreadLocal<SearchContext> CONTEXTS =
+        ThreadLocal.withInitial(SearchContext::new);
+
+    /**
+     * The ring buffer holding the square indices still to be expanded.
+     */
+    private int[] queue = new int[0];
+
+    /**
+     * The position of the first element in the queue.
+     */
+    private int head;
+
+    /**
+     * The number of elements in the queue.
+     */
+    private int size;
+
+    /**
+     * The square index each visited square was reached from.
+     */
+    private int[] parent = new int[0];
+
+    /**
+     * The ordinal of the direction each visited square was reached in.
+     */
+    private byte[] via = new byte[0];
+
+    /**
+     * The set of visited square indices.
+     */
+    private long[] visited = new long[0];
+
+    /**
+     * The board currently being searched.
+     */
+    private Board board;
+
+    /**
+     * Creates a new, empty search context.
+     */
+    private SearchContext() {
+    }
+
+    /**
+     * Returns the search context of the current thread.
+     *
+     * @return The search context of the current thread.
+     */
+    static SearchContext get() {
+        return CONTEXTS.get();
+    }
+
+    /**
+     * Starts a new search from a square, growing the scratch space if needed.
+     *
+     * @param from
+     *            The square to start from, which must be placed on a board.
+     */
+    private void start(Square from) {
+        board = from.getBoard();
+        int squares = board.getSquareCount();
+        if (parent.length < squares) {
+            queue = new int[squares];
+            parent = new int[squares];
+            via = new byte[squares];
+            visited = new long[(squares + WORD_BITS - 1) / WORD_BITS];
+        } else {
+            Arrays.fill(visited, 0, (squares + WORD_BITS - 1) / WORD_BITS, 0L);
+        }
+        head = 0;
+        size = 0;
+        int index = from.getIndex();
+        parent[index] = -1;
+        markVisited(index);
+        push(index);
+    }
+
+    /**
+     * Runs a breadth first search until the destination is reached.
+     *
+     * @param from
+     *            The starting square.
+     * @param to
+     *            The destination.
+     * @param traveller
+     *            The traveller, or <code>null</code> to ignore terrain.
+     * @return <code>true</code> iff the destination was reached.
+     */
+    boolean search(Square from, Square to, Unit traveller) {
+        start(from);
+        if (to.getBoard() != board) {
+            return false;
+        }
+        int target = to.getIndex();
+        while (size > 0) {
+            int index = pop();
+            if (index == target) {
+                return true;
+            }
+            expand(index, traveller);
+        }
+        return false;
+    }
+
+    /**
+     * Adds all unvisited neighbours of a square to the queue.
+     *
+     * @param index
+     *            The index of the square to expand.
+     * @param traveller
+     *            The traveller, or <code>null</code> to ignore terrain.
+     */
+    private void expand(int index, Unit traveller) {
+        for (Direction direction : DIRECTIONS) {
+            int next = board.neighbourOf(index, direction);
+            if (next < 0) {
+                continue;
+            }
+            if (!isVisited(next)
+                && (traveller == null || board.isAccessibleAt(next, traveller))) {
+                markVisited(next);
+                parent[next] = index;
+                via[next] = (byte) direction.ordinal();
+                push(next);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of steps from the start of the last search to a
+     * square it reached.
+     *
+     * @param to
+     *            A square reached by the last search.
+     * @return The length of the path to the square.
+     */
+    int pathLength(Square to) {
+        int length = 0;
+        for (int index = to.getIndex(); parent[index] >= 0; index = parent[index]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the direction of the <code>step</code>-th step of the path from
+     * the start of the last search to a square it reached.
+     *
+     * @param to
+     *            A square reached by the last search.
+     * @param step
+     *            The step, between 0 and {@link #pathLength(Square)}.
+     * @return The direction of the step.
+     */
+    Direction stepOfPath(Square to, int step) {
+        int index = to.getIndex();
+        for (int i = pathLength(to) - 1; i > step; i--) {
+            index = parent[index];
+        }
+        return DIRECTIONS[via[index]];
+    }
+
+    /**
+     * Reconstructs the path from the start of the last search to a square it
+     * reached.
+     *
+     * @param to
+     *            A square reached by the last search.
+     * @return The directions of the path, first step first.
+     */
+    List<Direction> path(Square to) {
+        List<Direction> path = new ArrayList<>(pathLength(to));
+        for (int index = to.getIndex(); parent[index] >= 0; index = parent[index]) {
+            path.add(DIRECTIONS[via[index]]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Determines whether a square was visited by the current search.
+     *
+     * @param index
+     *            The index of the square.
+     * @return <code>true</code> iff the square was visited.
+     */
+    private boolean isVisited(int index) {
+        return (visited[index >>> WORD_SHIFT] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks a square as visited by the current search.
+     *
+     * @param index
+     *            The index of the square.
+     */
+    private void markVisited(int index) {
+        visited[index >>> WORD_SHIFT] |= 1L << index;
+    }
+
+    /**
+     * Adds a square to the end of the queue.
+     *
+     * @param index
+     *            The index of the square.
+     */
+    private void push(int index) {
+        queue[(head + size) % queue.length] = index;
+        size++;
+    }
+
+    /**
+     * Removes the square at the front of the queue.
+     * Precondition: the queue is not empty.
+     *
+     * @return The index of the square.
+     */
+    private int pop() {
+        int index = queue[head];
+        head = (head + 1) % queue.length;
+        size--;
+        return index;
+    }
+}
@@ -0,0 +1,390 @@
+package nl.tudelft.jpacman.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A log written by a {@link ReplayRecorder}. Reading a replay indexes its
+ * player moves and keyframes, without decoding the keyframes themselves, so
+ * that a {@link Replayer} can seek to any tick.
+ */
+public final class Replay {
+
+    /**
+     * The first bytes of every log, "JPRP".
+     */
+    static final int MAGIC = 0x4a505250;
+
+    /**
+     * The version of the format of the log.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The tag of a record holding a player move.
+     */
+    static final byte INPUT = 0;
+
+    /**
+     * The tag of a record holding a keyframe.
+     */
+    static final byte KEYFRAME = 1;
+
+    /**
+     * The tag of the last record.
+     */
+    static final byte END = 2;
+
+    /**
+     * The initial capacity of the indices.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The log.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The seed of the recorded level.
+     */
+    private final long seed;
+
+    /**
+     * The name of the recorded map.
+     */
+    private final String mapName;
+
+    /**
+     * The duration of a tick in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * The number of players in the recorded game.
+     */
+    private final int playerCount;
+
+    /**
+     * The tick of every player move.
+     */
+    private long[] inputTicks = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of the player of every move.
+     */
+    private int[] inputPlayers = new int[INITIAL_CAPACITY];
+
+    /**
+     * The ordinal of the direction of every move.
+     */
+    private byte[] inputDirections = new byte[INITIAL_CAPACITY];
+
+    /**
+     * The number of player moves.
+     */
+    private int inputCount;
+
+    /**
+     * The tick of every keyframe.
+     */
+    private long[] keyframeTicks = new long[INITIAL_CAPACITY];
+
+    /**
+     * The hash of the level at every keyframe.
+     */
+    private long[] keyframeHashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The position of every keyframe in the log.
+     */
+    private int[] keyframeOffsets = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of keyframes.
+     */
+    private int keyframeCount;
+
+    /**
+     * The last recorded tick.
+     */
+    private long lastTick;
+
+    /**
+     * Reads a log.
+     *
+     * @param log
+     *            The log, from its position to its limit.
+     */
+    private Replay(ByteBuffer log) {
+        this.data = log.slice();
+        if (data.getInt() != MAGIC || VarInts.getUnsigned(data) != VERSION) {
+            throw new IllegalArgumentException("Not a replay of a supported version.");
+        }
+        this.seed = data.getLong();
+        byte[] name = new byte[VarInts.getUnsignedInt(data)];
+        data.get(name);
+        this.mapName = new String(name, StandardCharsets.UTF_8);
+        this.tickMillis = VarInts.getUnsigned(data);
+        this.playerCount = VarInts.getUnsignedInt(data);
+        index();
+        if (keyframeCount == 0) {
+            throw new IllegalArgumentException("Replay has no keyframes.");
+        }
+    }
+
+    /**
+     * Reads a log from a buffer.
+     *
+     * @param log
+     *            The log, from the position to the limit of the buffer.
+     * @return The replay.
+     */
+    public static Replay read(ByteBuffer log) {
+        return new Replay(log);
+    }
+
+    /**
+     * Reads a log from a file, which is mapped into memory.
+     *
+     * @param file
+     *            The file holding the log.
+     * @return The replay.
+     * @throws IOException
+     *             If the file could not be read.
+     */
+    public static Replay read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Indexes the records of the log.
+     */
+    private void index() {
+        byte tag = INPUT;
+        while (tag != END && data.hasRemaining()) {
+            tag = data.get();
+            lastTick += VarInts.getUnsigned(data);
+            if (tag == INPUT) {
+                addInput(VarInts.getUnsignedInt(data), data.get());
+            } else if (tag == KEYFRAME) {
+                long hash = data.getLong();
+                int length = VarInts.getUnsignedInt(data);
+                addKeyframe(hash, data.position());
+                data.position(data.position() + length);
+            } else if (tag != END) {
+                throw new IllegalArgumentException("Unknown record: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Adds a player move at the last tick to the index.
+     *
+     * @param player
+     *            The number of the player.
+     * @param direction
+     *            The ordinal of the direction.
+     */
+    private void addInput(int player, byte direction) {
+        if (inputCount == inputTicks.length) {
+            inputTicks = Arrays.copyOf(inputTicks, inputCount * 2);
+            inputPlayers = Arrays.copyOf(inputPlayers, inputCount * 2);
+            inputDirections = Arrays.copyOf(inputDirections, inputCount * 2);
+        }
+        inputTicks[inputCount] = lastTick;
+        inputPlayers[inputCount] = player;
+        inputDirections[inputCount] = direction;
+        inputCount++;
+    }
+
+    /**
+     * Adds a keyframe at the last tick to the index.
+     *
+     * @param hash
+     *            The hash of the level at the keyframe.
+     * @param offset
+     *            The position of the keyframe in the log.
+     */
+    private void addKeyframe(long hash, int offset) {
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeHashes = Arrays.copyOf(keyframeHashes, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = lastTick;
+        keyframeHashes[keyframeCount] = hash;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    /**
+     * @return The seed of the recorded level.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The name of the recorded map.
+     */
+    public String getMapName() {
+        return mapName;
+    }
+
+    /**
+     * @return The duration of a tick in milliseconds.
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @return The number of players in the recorded game.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * @return The tick of the first keyframe, the first tick that can be
+     *         replayed.
+     */
+    public long getFirstTick() {
+        return keyframeTicks[0];
+    }
+
+    /**
+     * @return The last recorded tick.
+     */
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * @return The number of keyframes.
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * Finds the last keyframe at or before a tick.
+     *
+     * @param tick
+     *            The tick, at least the first tick.
+     * @return The number of the keyframe.
+     */
+    int keyframeBefore(long tick) {
+        int found = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+        if (found < 0) {
+            found = -found - 2;
+        }
+        assert found >= 0;
+        return found;
+    }
+
+    /**
+     * Finds the keyframe at a tick.
+     *
+     * @param tick
+     *            The tick.
+     * @return The number of the keyframe, or a negative number if there is
+     *         no keyframe at the tick.
+     */
+    int keyframeAt(long tick) {
+        return Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+    }
+
+    /**
+     * @param keyframe
+     *            The number of a keyframe.
+     * @return The tick of the keyframe.
+     */
+    long keyframeTick(int keyframe) {
+        return keyframeTicks[keyframe];
+    }
+
+    /**
+     * @param keyframe
+     *            The number of a keyframe.
+     * @return The hash of the level at the keyframe.
+     */
+    long keyframeHash(int keyframe) {
+        return keyframeHashes[keyframe];
+    }
+
+    /**
+     * @param keyframe
+     *            The number of a keyframe.
+     * @return A new buffer positioned at the encoded keyframe.
+     */
+    ByteBuffer keyframeData(int keyframe) {
+        ByteBuffer keyframeData = data.duplicate();
+        keyframeData.position(keyframeOffsets[keyframe]);
+        return keyframeData;
+    }
+
+    /**
+     * Finds the first player move after a tick.
+     *
+     * @param tick
+     *            The tick.
+     * @return The number of the first move after the tick, or the number of
+     *         moves if there is none.
+     */
+    int firstInputAfter(long tick) {
+        int low = 0;
+        int high = inputCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (inputTicks[middle] <= tick) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The number of player moves.
+     */
+    int inputCount() {
+        return inputCount;
+    }
+
+    /**
+     * @param input
+     *            The number of a player move.
+     * @return The tick of the move.
+     */
+    long inputTick(int input) {
+        return inputTicks[input];
+    }
+
+    /**
+     * @param input
+     *            The number of a player move.
+     * @return The number of the player moving.
+     */
+    int inputPlayer(int input) {
+        return inputPlayers[input];
+    }
+
+    /**
+     * @param input
+     *            The number of a player move.
+     * @return The ordinal of the direction of the move.
+     */
+    int inputDirection(int input) {
+        return inputDirections[input];
+    }
+}
@@ -0,0 +1,281 @@
+package nl.tudelft.jpacman.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.game.TickEngine;
+import nl.tudelft.jpacman.game.TickEngine.TickListener;
+import nl.tudelft.jpacman.level.Player;
+
+/**
+ * Records a game driven by a {@link TickEngine} as a compact binary log that
+ * can be played back with a {@link Replayer}. The log holds the seed and map
+ * of the level, every player move with the tick in which it was applied, and
+ * a keyframe with the full state of the game every so many ticks. Ticks are
+ * delta encoded and all counts are variable length integers, see
+ * {@link VarInts}.
+ *
+ * <p>
+ * Records are collected in a direct buffer and written to the channel when
+ * the buffer is full, so that recording costs little more than encoding.
+ * Taking a keyframe does not change the game, see
+ * {@link nl.tudelft.jpacman.level.Level#snapshot()}, so a recorded game plays
+ * out the same as one that is not recorded.
+ * </p>
+ */
+public class ReplayRecorder implements TickListener, Closeable {
+
+    /**
+     * The default number of ticks between keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1000;
+
+    /**
+     * The size of the write buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The maximum size of a record without a keyframe.
+     */
+    private static final int MAX_RECORD = 1 + 3 * VarInts.MAX_LONG_BYTES + Long.BYTES;
+
+    /**
+     * The engine being recorded.
+     */
+    private final TickEngine engine;
+
+    /**
+     * The players of the game, by their number in the log.
+     */
+    private final List<Player> players;
+
+    /**
+     * The channel the log is written to.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The records not written to the channel yet.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * The number of ticks between keyframes.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * The buffer keyframes are encoded in, grown as needed.
+     */
+    private ByteBuffer keyframe = ByteBuffer.allocate(0);
+
+    /**
+     * The tick of the last record.
+     */
+    private long lastTick;
+
+    /**
+     * <code>true</code> iff the log is complete.
+     */
+    private boolean closed;
+
+    /**
+     * Starts recording an engine, writing the header and a first keyframe.
+     * The recorder becomes the tick listener of the engine.
+     *
+     * @param engine
+     *            The engine to record.
+     * @param mapName
+     *            The name of the map of the game, with which the replayer
+     *            recreates the game.
+     * @param channel
+     *            The channel to write the log to, which is closed when the
+     *            recording is closed.
+     * @param keyframeInterval
+     *            The number of ticks between keyframes, at least 1.
+     * @throws IOException
+     *             If the log could not be written.
+     */
+    public ReplayRecorder(TickEngine engine, String mapName, WritableByteChannel channel,
+                          int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: "
+                + keyframeInterval);
+        }
+        this.engine = engine;
+        this.players = engine.getGame().getPlayers();
+        this.channel = channel;
+        this.keyframeInterval = keyframeInterval;
+        this.lastTick = engine.getTick();
+        writeHeader(mapName);
+        writeKeyframe(lastTick);
+        engine.setTickListener(this);
+    }
+
+    /**
+     * Starts recording an engine to a file, with keyframes every
+     * {@link #DEFAULT_KEYFRAME_INTERVAL} ticks.
+     *
+     * @param engine
+     *            The engine to record.
+     * @param mapName
+     *            The name of the map of the game.
+     * @param file
+     *            The file to write the log to, which is replaced if it exists.
+     * @return The recorder, which must be closed to complete the log.
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static ReplayRecorder record(TickEngine engine, String mapName, Path file)
+        throws IOException {
+        return new ReplayRecorder(engine, mapName, FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE), DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Writes the header of the log.
+     *
+     * @param mapName
+     *            The name of the map of the game.
+     * @throws IOException
+     *             If the header could not be written.
+     */
+    private void writeHeader(String mapName) throws IOException {
+        byte[] name = mapName.getBytes(StandardCharsets.UTF_8);
+        reserve(MAX_RECORD + name.length);
+        buffer.putInt(Replay.MAGIC);
+        VarInts.putUnsigned(buffer, Replay.VERSION);
+        buffer.putLong(engine.getGame().getLevel().getSeed());
+        VarInts.putUnsigned(buffer, name.length);
+        buffer.put(name);
+        VarInts.putUnsigned(buffer, engine.getTickMillis());
+        VarInts.putUnsigned(buffer, players.size());
+    }
+
+    @Override
+    public void inputApplied(long tick, Player player, Direction direction) {
+        try {
+            reserve(MAX_RECORD);
+            startRecord(Replay.INPUT, tick);
+            VarInts.putUnsigned(buffer, players.indexOf(player));
+            buffer.put((byte) direction.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void tickCompleted(long tick) {
+        if (tick % keyframeInterval != 0) {
+            return;
+        }
+        try {
+            writeKeyframe(tick);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a keyframe with the current state of the game, and the hash of
+     * the level to verify replays with.
+     *
+     * @param tick
+     *            The current tick.
+     * @throws IOException
+     *             If the keyframe could not be written.
+     */
+    private void writeKeyframe(long tick) throws IOException {
+        TickEngine.Snapshot snapshot = engine.snapshot();
+        if (keyframe.capacity() < snapshot.maxEncodedSize()) {
+            keyframe = ByteBuffer.allocate(snapshot.maxEncodedSize());
+        }
+        keyframe.clear();
+        snapshot.writeTo(keyframe);
+        keyframe.flip();
+        reserve(MAX_RECORD);
+        startRecord(Replay.KEYFRAME, tick);
+        buffer.putLong(engine.getGame().getLevel().getHash());
+        VarInts.putUnsigned(buffer, keyframe.remaining());
+        if (keyframe.remaining() > buffer.remaining()) {
+            flush();
+            while (keyframe.hasRemaining()) {
+                channel.write(keyframe);
+            }
+        } else {
+            buffer.put(keyframe);
+        }
+    }
+
+    /**
+     * Writes the tag and tick of a record.
+     *
+     * @param tag
+     *            The type of the record.
+     * @param tick
+     *            The tick of the record.
+     */
+    private void startRecord(byte tag, long tick) {
+        buffer.put(tag);
+        VarInts.putUnsigned(buffer, tick - lastTick);
+        lastTick = tick;
+    }
+
+    /**
+     * Makes room in the write buffer.
+     *
+     * @param bytes
+     *            The number of bytes that will be put in the buffer.
+     * @throws IOException
+     *             If the buffer could not be written.
+     */
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the records in the buffer to the channel.
+     *
+     * @throws IOException
+     *             If the records could not be written.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Stops recording, completing the log and closing its channel.
+     *
+     * @throws IOException
+     *             If the log could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        engine.setTickListener(null);
+        reserve(MAX_RECORD);
+        startRecord(Replay.END, engine.getTick());
+        flush();
+        channel.close();
+    }
+}
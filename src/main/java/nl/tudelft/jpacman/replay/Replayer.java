@@ -0,0 +1,226 @@
+package nl.tudelft.jpacman.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.game.Game;
+import nl.tudelft.jpacman.game.GameFactory;
+import nl.tudelft.jpacman.game.TickEngine;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+/**
+ * Plays back a {@link Replay} on a game of its own, as fast as possible and
+ * without a user interface. Seeking to a tick restores the last keyframe at
+ * or before it, unless the game is already between that keyframe and the
+ * tick, and re-simulates the recorded player moves from there.
+ *
+ * <p>
+ * Whenever the simulation reaches a keyframe, the hash of the level is
+ * compared with the recorded hash, so that a replay that no longer matches
+ * the game, for instance because the rules or the AI changed, is detected.
+ * </p>
+ */
+public class Replayer {
+
+    /**
+     * All directions, by ordinal.
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The replay being played back.
+     */
+    private final Replay replay;
+
+    /**
+     * The game the replay is played back on.
+     */
+    private final Game game;
+
+    /**
+     * The engine driving the game.
+     */
+    private final TickEngine engine;
+
+    /**
+     * The players of the game, by their number in the replay.
+     */
+    private final List<Player> players;
+
+    /**
+     * The number of the next player move to apply.
+     */
+    private int nextInput;
+
+    /**
+     * Creates a new replayer, positioned at the first keyframe.
+     *
+     * @param replay
+     *            The replay to play back.
+     * @param games
+     *            Creates the game to play back on, given the seed of the
+     *            level. It must create the game the recorded game was
+     *            created with, with a level with the given seed.
+     */
+    public Replayer(Replay replay, LongFunction<Game> games) {
+        this.replay = replay;
+        this.game = games.apply(replay.getSeed());
+        this.players = game.getPlayers();
+        if (game.getLevel().getSeed() != replay.getSeed()
+            || players.size() != replay.getPlayerCount()) {
+            throw new IllegalArgumentException("Game does not match the replay.");
+        }
+        this.engine = new TickEngine(game, replay.getTickMillis());
+        restore(0);
+    }
+
+    /**
+     * Opens a replay of a game on one of the maps of the launcher, see
+     * {@link MapParser#parseMap(String)}.
+     *
+     * @param file
+     *            The file holding the replay.
+     * @param sprites
+     *            The sprites of the game, such as
+     *            {@link nl.tudelft.jpacman.sprite.HeadlessSprites}.
+     * @return A replayer of the file.
+     * @throws IOException
+     *             If the file could not be read.
+     */
+    public static Replayer open(Path file, PacManSprites sprites) throws IOException {
+        Replay replay = Replay.read(file);
+        return new Replayer(replay, seed -> createGame(replay.getMapName(), seed, sprites));
+    }
+
+    /**
+     * Creates a single player game on a map, with a level with the given
+     * seed.
+     *
+     * @param mapName
+     *            The name of the map resource.
+     * @param seed
+     *            The seed of the level.
+     * @param sprites
+     *            The sprites of the game.
+     * @return The new game.
+     */
+    private static Game createGame(String mapName, long seed, PacManSprites sprites) {
+        LevelFactory levelFactory = new LevelFactory(sprites, new GhostFactory(sprites)) {
+            @Override
+            public Level createLevel(Board board, List<Ghost> ghosts,
+                                     List<Square> startPositions) {
+                return createLevel(board, ghosts, startPositions, seed);
+            }
+        };
+        MapParser parser = new MapParser(levelFactory, new BoardFactory(sprites));
+        try {
+            return new GameFactory(new PlayerFactory(sprites))
+                .createSinglePlayerGame(parser.parseMap(mapName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The game the replay is played back on.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * @return The engine driving the game.
+     */
+    public TickEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return The replay being played back.
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Brings the game to the state it had at the end of a tick.
+     *
+     * @param tick
+     *            The tick, between the first and the last tick of the replay.
+     */
+    public void seek(long tick) {
+        if (tick < replay.getFirstTick() || tick > replay.getLastTick()) {
+            throw new IllegalArgumentException("Tick out of range: " + tick);
+        }
+        int keyframe = replay.keyframeBefore(tick);
+        if (engine.getTick() > tick || engine.getTick() < replay.keyframeTick(keyframe)) {
+            restore(keyframe);
+        }
+        while (engine.getTick() < tick) {
+            step();
+        }
+    }
+
+    /**
+     * Simulates the next tick with the recorded player moves, and restores
+     * the keyframe at the tick if there is one.
+     */
+    private void step() {
+        if (!game.isInProgress()) {
+            throw new IllegalStateException("Replay diverged: game ended at tick "
+                + engine.getTick());
+        }
+        long tick = engine.getTick() + 1;
+        while (nextInput < replay.inputCount() && replay.inputTick(nextInput) == tick) {
+            engine.queueMove(players.get(replay.inputPlayer(nextInput)),
+                DIRECTIONS[replay.inputDirection(nextInput)]);
+            nextInput++;
+        }
+        engine.step();
+        int keyframe = replay.keyframeAt(tick);
+        if (keyframe >= 0) {
+            verify(keyframe);
+            restore(keyframe);
+        }
+    }
+
+    /**
+     * Restores the game to a keyframe, starting it if it was not running.
+     *
+     * @param keyframe
+     *            The number of the keyframe.
+     */
+    private void restore(int keyframe) {
+        engine.restore(engine.readSnapshot(replay.keyframeData(keyframe)));
+        verify(keyframe);
+        game.start();
+        nextInput = replay.firstInputAfter(engine.getTick());
+    }
+
+    /**
+     * Verifies that the level matches a keyframe.
+     *
+     * @param keyframe
+     *            The number of the keyframe.
+     */
+    private void verify(int keyframe) {
+        if (game.getLevel().getHash() != replay.keyframeHash(keyframe)) {
+            throw new IllegalStateException("Replay diverged at tick "
+                + replay.keyframeTick(keyframe));
+        }
+    }
+}
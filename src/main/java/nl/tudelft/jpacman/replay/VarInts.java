@@ -0,0 +1,121 @@
+package nl.tudelft.jpacman.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of integers in byte buffers, as used by replays.
+ * Every byte holds seven bits of the value, least significant first, and has
+ * its high bit set if more bytes follow. Signed values, such as deltas, are
+ * zigzag encoded first, so that small negative values take few bytes too.
+ */
+public final class VarInts {
+
+    /**
+     * The maximum number of bytes of an encoded long.
+     */
+    public static final int MAX_LONG_BYTES = 10;
+
+    /**
+     * The maximum number of bytes of an encoded int.
+     */
+    public static final int MAX_INT_BYTES = 5;
+
+    /**
+     * The number of value bits in a byte.
+     */
+    private static final int BITS = 7;
+
+    /**
+     * The bits of a byte holding the value.
+     */
+    private static final int VALUE_MASK = 0x7f;
+
+    /**
+     * The bit of a byte telling that more bytes follow.
+     */
+    private static final int MORE = 0x80;
+
+    /**
+     * The shift that moves the sign bit of a long to the lowest bit.
+     */
+    private static final int SIGN_SHIFT = 63;
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes a non-negative value.
+     *
+     * @param buffer
+     *            The buffer to write to.
+     * @param value
+     *            The value, which is treated as unsigned.
+     */
+    public static void putUnsigned(ByteBuffer buffer, long value) {
+        long rest = value;
+        while ((rest & ~VALUE_MASK) != 0) {
+            buffer.put((byte) ((rest & VALUE_MASK) | MORE));
+            rest >>>= BITS;
+        }
+        buffer.put((byte) rest);
+    }
+
+    /**
+     * Writes a signed value.
+     *
+     * @param buffer
+     *            The buffer to write to.
+     * @param value
+     *            The value.
+     */
+    public static void putSigned(ByteBuffer buffer, long value) {
+        putUnsigned(buffer, (value << 1) ^ (value >> SIGN_SHIFT));
+    }
+
+    /**
+     * Reads a value written by {@link #putUnsigned(ByteBuffer, long)}.
+     *
+     * @param buffer
+     *            The buffer to read from.
+     * @return The value.
+     */
+    public static long getUnsigned(ByteBuffer buffer) {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            byte next = buffer.get();
+            value |= (long) (next & VALUE_MASK) << shift;
+            if ((next & MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length integer.");
+    }
+
+    /**
+     * Reads a value written by {@link #putSigned(ByteBuffer, long)}.
+     *
+     * @param buffer
+     *            The buffer to read from.
+     * @return The value.
+     */
+    public static long getSigned(ByteBuffer buffer) {
+        long encoded = getUnsigned(buffer);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Reads a value written by {@link #putUnsigned(ByteBuffer, long)} that
+     * must fit in an int.
+     *
+     * @param buffer
+     *            The buffer to read from.
+     * @return The value.
+     */
+    public static int getUnsignedInt(ByteBuffer buffer) {
+        long value = getUnsigned(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value does not fit in an int: " + value);
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,23 @@
+package nl.tudelft.jpacman.sprite;
+
+/**
+ * Pac-Man sprites that are never drawn. No images are loaded, so games can
+ * be created and played without a display, e.g. in a batch of simulations.
+ */
+public class HeadlessSprites extends PacManSprites {
+
+    /**
+     * The sprite that stands in for every image.
+     */
+    private static final Sprite EMPTY = new EmptySprite();
+
+    /**
+     * Returns an empty sprite instead of loading the image.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Sprite loadSprite(String resource) {
+        return EMPTY;
+    }
+}
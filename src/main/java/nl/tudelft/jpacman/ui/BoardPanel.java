@@ -113,8 +113,7 @@ class BoardPanel extends JPanel {
      */
     private void render(Square square, Graphics graphics, int x, int y, int width, int height) {
         square.getSprite().draw(graphics, x, y, width, height);
-        for (Unit unit : square.getOccupants()) {
-            unit.getSprite().draw(graphics, x, y, width, height);
-        }
+        square.forEachOccupant(
+            unit -> unit.getSprite().draw(graphics, x, y, width, height));
     }
 }
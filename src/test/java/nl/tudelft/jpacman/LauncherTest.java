@@ -0,0 +1,57 @@
+package nl.tudelft.jpacman;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.awt.event.KeyEvent;
+
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.game.Game;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+import nl.tudelft.jpacman.ui.Action;
+import nl.tudelft.jpacman.ui.PacManUiBuilder;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests how the {@link Launcher} wires the game to its engine, without
+ * showing the user interface.
+ */
+class LauncherTest {
+
+    /**
+     * Verifies that the arrow keys queue the moves of the player on the
+     * engine of the game, which makes them in its next tick.
+     */
+    @Test
+    void keysQueueMovesOnTheEngine() {
+        Launcher launcher = new Launcher() {
+            @Override
+            protected PacManSprites getSpriteStore() {
+                return new HeadlessSprites();
+            }
+        };
+        Game game = launcher.makeGame();
+        assertThat(launcher.getEngine().getGame()).isSameAs(game);
+
+        PacManUiBuilder builder = spy(new PacManUiBuilder());
+        launcher.addSinglePlayerKeys(builder);
+        ArgumentCaptor<Action> right = ArgumentCaptor.forClass(Action.class);
+        verify(builder).addKey(eq(KeyEvent.VK_RIGHT), right.capture());
+
+        game.start();
+        Player player = game.getPlayers().get(0);
+        Square start = player.getSquare();
+        right.getValue().doAction();
+        assertThat(player.getSquare()).isSameAs(start);
+
+        launcher.getEngine().step();
+        assertThat(player.getSquare()).isNotSameAs(start);
+        game.stop();
+    }
+}
@@ -0,0 +1,96 @@
+package nl.tudelft.jpacman.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the headless games played by a {@link BatchRunner}.
+ */
+class BatchRunnerTest {
+
+    /**
+     * The number of games in the batches under test.
+     */
+    private static final int GAMES = 6;
+
+    /**
+     * Creates a runner for a small batch.
+     *
+     * @return A new runner.
+     */
+    private static BatchRunner runner() {
+        return new BatchRunner(new HeadlessSprites())
+            .withGames(GAMES)
+            .withSeed(1L)
+            .withMaxTicks(5_000L)
+            .withParallelism(2);
+    }
+
+    /**
+     * Verifies that a batch plays every game.
+     */
+    @Test
+    void playsAllGames() {
+        BatchReport report = runner().run();
+        assertThat(report.getResults()).hasSize(GAMES);
+        for (int i = 0; i < GAMES; i++) {
+            GameResult result = report.getResults().get(i);
+            assertThat(result.getGame()).isEqualTo(i);
+            assertThat(result.getTicks()).isBetween(1L, 5_000L);
+            assertThat(result.getScore()).isGreaterThan(0);
+        }
+    }
+
+    /**
+     * Verifies that batches with the same settings give the same results.
+     */
+    @Test
+    void reproducible() {
+        BatchReport first = runner().run();
+        BatchReport second = runner().withParallelism(1).run();
+        for (int i = 0; i < GAMES; i++) {
+            GameResult one = first.getResults().get(i);
+            GameResult other = second.getResults().get(i);
+            assertThat(one.getSeed()).isEqualTo(other.getSeed());
+            assertThat(one.getScore()).isEqualTo(other.getScore());
+            assertThat(one.getTicks()).isEqualTo(other.getTicks());
+        }
+    }
+
+    /**
+     * Verifies the layout of the reports.
+     *
+     * @throws IOException
+     *             Never.
+     */
+    @Test
+    void reports() throws IOException {
+        BatchReport report = runner().withGames(2).withBot(RandomBot.NAME).run();
+        StringWriter csv = new StringWriter();
+        report.writeCsv(csv);
+        assertThat(csv.toString().split("\n")).hasSize(3);
+        assertThat(csv.toString()).startsWith("game,seed,won,score,ticks,ghost_ai_ms\n");
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        assertThat(json.toString()).startsWith("{\"games\":2,").contains("\"results\":[{");
+    }
+
+    /**
+     * Verifies that unknown options are rejected.
+     */
+    @Test
+    void unknownOption() {
+        assertThatThrownBy(() -> runner().withOption("--speed", "1"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> runner().withBot("smart"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -86,4 +86,29 @@ class BoardFactoryTest {
         assertThat(s1.getSquareAt(Direction.SOUTH)).isEqualTo(s2);
         assertThat(s2.getSquareAt(Direction.SOUTH)).isEqualTo(s1);
     }
+
+    /**
+     * Verifies that the factory counts the accessible neighbours of every
+     * square, wrapping around the borders, to tell corridors from junctions
+     * and dead ends.
+     */
+    @Test
+    void classifiesSquares() {
+        Square[][] grid = new Square[5][3];
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[x].length; y++) {
+                boolean open = y == 1 && x > 0 && x < grid.length - 1 || x == 2;
+                if (open) {
+                    grid[x][y] = factory.createGround();
+                } else {
+                    grid[x][y] = factory.createWall();
+                }
+            }
+        }
+        Board board = factory.createBoard(grid);
+        assertThat(board.getDegree(grid[1][1])).isEqualTo(1);
+        assertThat(board.getDegree(grid[2][1])).isEqualTo(4);
+        assertThat(board.isCorridor(grid[2][0])).isTrue();
+        assertThat(board.isCorridor(grid[2][1])).isFalse();
+    }
 }
@@ -0,0 +1,92 @@
+package nl.tudelft.jpacman.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the square views of a {@link CompactBoard}.
+ */
+class CompactBoardTest {
+
+    /**
+     * The board under test: a 3x2 board with a wall in the top left corner.
+     */
+    private CompactBoard board;
+
+    /**
+     * Creates the board under test.
+     */
+    @BeforeEach
+    void setUp() {
+        BoardFactory factory = new BoardFactory(mock(PacManSprites.class));
+        board = factory.createCompactBoard(3, 2, new byte[] {
+            CompactBoard.WALL, CompactBoard.GROUND, CompactBoard.GROUND,
+            CompactBoard.GROUND, CompactBoard.GROUND, CompactBoard.GROUND});
+    }
+
+    /**
+     * Verifies that views on the same cell are equal.
+     */
+    @Test
+    void viewsAreEqual() {
+        Square square = board.squareAt(1, 0);
+        assertThat(board.squareAt(1)).isEqualTo(square);
+        assertThat(board.squareAt(1)).hasSameHashCodeAs(square);
+        assertThat(square.getBoard()).isSameAs(board);
+        assertThat(square.getIndex()).isEqualTo(1);
+        assertThat(board.squareAt(2, 0)).isNotEqualTo(square);
+    }
+
+    /**
+     * Verifies that cells are linked to their neighbours around the borders.
+     */
+    @Test
+    void neighboursWrapAround() {
+        Square square = board.squareAt(0, 0);
+        assertThat(square.getSquareAt(Direction.WEST)).isEqualTo(board.squareAt(2, 0));
+        assertThat(square.getSquareAt(Direction.NORTH)).isEqualTo(board.squareAt(0, 1));
+        assertThat(board.neighbourOf(0, Direction.EAST)).isEqualTo(1);
+    }
+
+    /**
+     * Verifies that walls cannot be occupied.
+     */
+    @Test
+    void passability() {
+        BasicUnit unit = new BasicUnit();
+        assertThat(board.squareAt(0, 0).isAccessibleTo(unit)).isFalse();
+        assertThat(board.squareAt(1, 0).isAccessibleTo(unit)).isTrue();
+        assertThat(board.typeOf(0)).isEqualTo(CompactBoard.WALL);
+    }
+
+    /**
+     * Verifies that the board keeps the occupants of its cells.
+     */
+    @Test
+    void occupants() {
+        BasicUnit unit = new BasicUnit();
+        unit.occupy(board.squareAt(1, 1));
+        assertThat(board.squareAt(1, 1).getOccupants()).containsExactly(unit);
+        assertThat(board.findAny(BasicUnit.class)).isEqualTo(unit);
+
+        unit.occupy(unit.getSquare().getSquareAt(Direction.EAST));
+        assertThat(board.squareAt(1, 1).getOccupantCount()).isZero();
+        assertThat(board.squareAt(2, 1).isOccupiedBy(unit)).isTrue();
+    }
+
+    /**
+     * Verifies that unknown cell types are rejected.
+     */
+    @Test
+    void unknownCellType() {
+        BoardFactory factory = new BoardFactory(mock(PacManSprites.class));
+        assertThatThrownBy(() -> factory.createCompactBoard(1, 1, new byte[] {2}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -58,4 +58,34 @@ class OccupantTest {
         assertThat(unit.getSquare()).isEqualTo(target);
         assertThat(target.getOccupants()).contains(unit);
     }
+
+    /**
+     * Verifies that the board indexes the units occupying its squares, also
+     * when they were placed before the board was created.
+     */
+    @Test
+    void boardIndexesOccupants() {
+        Square first = new BasicSquare();
+        Square second = new BasicSquare();
+        unit.occupy(second);
+        Board board = new Board(new Square[][]{{first, second}});
+        assertThat(board.countUnits(BasicUnit.class)).isEqualTo(1);
+        assertThat(board.findAny(Unit.class)).isEqualTo(unit);
+
+        unit.occupy(first);
+        assertThat(board.unitsOf(Unit.class)).containsExactly(unit);
+    }
+
+    /**
+     * Verifies that a unit leaving the board is removed from its index.
+     */
+    @Test
+    void boardForgetsLeavingUnit() {
+        Square square = new BasicSquare();
+        Board board = new Board(new Square[][]{{square}});
+        unit.occupy(square);
+        unit.leaveSquare();
+        assertThat(board.countUnits(Unit.class)).isZero();
+        assertThat(board.findAny(BasicUnit.class)).isNull();
+    }
 }
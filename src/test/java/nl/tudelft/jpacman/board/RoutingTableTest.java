@@ -0,0 +1,101 @@
+package nl.tudelft.jpacman.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the routes looked up in a {@link RoutingTable}.
+ */
+class RoutingTableTest {
+
+    /**
+     * The factory creating the boards.
+     */
+    private BoardFactory factory;
+
+    /**
+     * Resets the factory.
+     */
+    @BeforeEach
+    void setUp() {
+        factory = new BoardFactory(mock(PacManSprites.class));
+    }
+
+    /**
+     * Creates a board from rows of text, '#' being a wall and anything else
+     * ground, and computes its routes.
+     *
+     * @param rows
+     *            The rows of the board, top row first.
+     * @return The board with a routing table.
+     */
+    private Board routedBoard(String... rows) {
+        Square[][] grid = new Square[rows[0].length()][rows.length];
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < rows.length; y++) {
+                if (rows[y].charAt(x) == '#') {
+                    grid[x][y] = factory.createWall();
+                } else {
+                    grid[x][y] = factory.createGround();
+                }
+            }
+        }
+        Board board = factory.createBoard(grid);
+        assertThat(board.precomputeRoutes(new BasicUnit())).isTrue();
+        return board;
+    }
+
+    /**
+     * Verifies that a path around a corner is found.
+     */
+    @Test
+    void cornerPath() {
+        Board board = routedBoard("####", "#  #", "## #", "####");
+        RoutingTable routes = board.getRoutingTable();
+        assertThat(routes.path(board.squareAt(1, 1), board.squareAt(2, 2)))
+            .containsExactly(Direction.EAST, Direction.SOUTH);
+        assertThat(routes.distance(board.squareAt(1, 1), board.squareAt(2, 2)))
+            .isEqualTo(2);
+    }
+
+    /**
+     * Verifies that routes use the links wrapping around the board.
+     */
+    @Test
+    void wrapsAround() {
+        Board board = routedBoard(" ### ");
+        RoutingTable routes = board.getRoutingTable();
+        assertThat(routes.nextHop(board.squareAt(0, 0), board.squareAt(4, 0)))
+            .isEqualTo(Direction.WEST);
+        assertThat(routes.distance(board.squareAt(0, 0), board.squareAt(4, 0)))
+            .isEqualTo(1);
+    }
+
+    /**
+     * Verifies that unreachable squares have no route.
+     */
+    @Test
+    void unreachable() {
+        Board board = routedBoard("#####", "# # #", "#####");
+        RoutingTable routes = board.getRoutingTable();
+        assertThat(routes.path(board.squareAt(1, 1), board.squareAt(3, 1))).isNull();
+        assertThat(routes.nextHop(board.squareAt(1, 1), board.squareAt(3, 1))).isNull();
+        assertThat(routes.covers(board.squareAt(0, 0))).isFalse();
+    }
+
+    /**
+     * Verifies that the route to the current square is empty.
+     */
+    @Test
+    void sameSquare() {
+        Board board = routedBoard("  ");
+        RoutingTable routes = board.getRoutingTable();
+        assertThat(routes.path(board.squareAt(0, 0), board.squareAt(0, 0))).isEmpty();
+        assertThat(routes.nextHop(board.squareAt(0, 0), board.squareAt(0, 0))).isNull();
+    }
+}
@@ -1,5 +1,8 @@
 package nl.tudelft.jpacman.board;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -62,4 +65,41 @@ class SquareTest {
 
         assertThat(square.getOccupants()).containsSequence(o1, o2);
     }
+
+    /**
+     * Assert that the occupants can be inspected without copying them.
+     */
+    @Test
+    void testInspectOccupants() {
+        Unit o1 = mock(Unit.class);
+        BasicUnit o2 = new BasicUnit();
+        square.put(o1);
+        square.put(o2);
+
+        assertThat(square.getOccupantCount()).isEqualTo(2);
+        assertThat(square.getOccupant(1)).isEqualTo(o2);
+        assertThat(square.hasOccupant(BasicUnit.class)).isTrue();
+        assertThat(square.findOccupant(BasicUnit.class)).isEqualTo(o2);
+        assertThat(square.isOccupiedBy(o1)).isTrue();
+    }
+
+    /**
+     * Assert that visiting the occupants sees them as they were, even when
+     * the visitor removes them.
+     */
+    @Test
+    void testVisitWhileLeaving() {
+        Unit o1 = mock(Unit.class);
+        Unit o2 = mock(Unit.class);
+        square.put(o1);
+        square.put(o2);
+
+        List<Unit> visited = new ArrayList<>();
+        square.forEachOccupant(occupant -> {
+            visited.add(occupant);
+            square.remove(occupant);
+        });
+        assertThat(visited).containsExactly(o1, o2);
+        assertThat(square.getOccupantCount()).isZero();
+    }
 }
@@ -0,0 +1,339 @@
+package nl.tudelft.jpacman.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests publishing game events with the different overflow policies.
+ */
+class EventPublisherTest {
+
+    /**
+     * The number of seconds to wait for events.
+     */
+    private static final long TIMEOUT = 5L;
+
+    /**
+     * The executor sending the events.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Creates the executor.
+     */
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Stops the executor.
+     */
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Verifies that a level publishes a move, the collision with a pellet,
+     * its consequences and the end of the level, in that order.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void publishesLevelEvents() throws InterruptedException {
+        PacManSprites sprites = new HeadlessSprites();
+        Level level = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                "####",
+                "#P.#",
+                "####"));
+        level.registerPlayer(new PlayerFactory(sprites).createPacMan());
+        Player player = level.getBoard().findAny(Player.class);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        level.getEvents().subscribe(recorder);
+        level.start();
+        level.move(player, Direction.EAST);
+
+        List<GameEvent.Type> types = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            types.add(recorder.take().getType());
+        }
+        assertThat(types).containsExactly(GameEvent.Type.UNIT_MOVED,
+            GameEvent.Type.COLLISION, GameEvent.Type.SCORE_CHANGED,
+            GameEvent.Type.PELLET_EATEN, GameEvent.Type.LEVEL_WON);
+    }
+
+    /**
+     * Verifies that a level does not let subscribers block, which would hold
+     * up the units moving while they hold the locks of their squares.
+     */
+    @Test
+    void levelRejectsBlockingSubscribers() {
+        PacManSprites sprites = new HeadlessSprites();
+        Level level = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList("#P#"));
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        assertThatThrownBy(() -> level.getEvents().subscribe(recorder,
+            EventPublisher.Overflow.BLOCK)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(level.getEvents().hasSubscribers()).isFalse();
+    }
+
+    /**
+     * Verifies that new events are dropped when the buffer is full, and the
+     * buffered events are sent once they are requested.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void dropsNewEvents() throws InterruptedException {
+        EventPublisher publisher = new EventPublisher(executor, 2);
+        Recorder recorder = new Recorder(0L);
+        publisher.subscribe(recorder, EventPublisher.Overflow.DROP);
+        GameEvent[] submitted = submitMoves(publisher, mock(Unit.class), 5);
+
+        assertThat(publisher.getDroppedCount()).isEqualTo(3L);
+        recorder.awaitSubscription().request(10L);
+        assertThat(recorder.take()).isSameAs(submitted[0]);
+        assertThat(recorder.take()).isSameAs(submitted[1]);
+        assertThat(recorder.poll()).isNull();
+    }
+
+    /**
+     * Verifies that superseded events are replaced when the buffer is full,
+     * and otherwise the oldest event is dropped.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void conflatesEvents() throws InterruptedException {
+        EventPublisher publisher = new EventPublisher(executor, 2);
+        Recorder recorder = new Recorder(0L);
+        publisher.subscribe(recorder, EventPublisher.Overflow.CONFLATE);
+        Unit first = mock(Unit.class);
+        Unit second = mock(Unit.class);
+        publisher.submit(GameEvent.unitMoved(first, Direction.EAST, 1));
+        publisher.submit(GameEvent.unitMoved(second, Direction.EAST, 1));
+        GameEvent latest = GameEvent.unitMoved(first, Direction.EAST, 2);
+        publisher.submit(latest);
+        GameEvent collision = GameEvent.collision(first, second);
+        publisher.submit(collision);
+
+        assertThat(publisher.getDroppedCount()).isEqualTo(2L);
+        recorder.awaitSubscription().request(10L);
+        assertThat(recorder.take()).isSameAs(latest);
+        assertThat(recorder.take()).isSameAs(collision);
+        assertThat(recorder.poll()).isNull();
+    }
+
+    /**
+     * Verifies that submitting blocks while the buffer is full, and that no
+     * event is lost.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void blocksUntilRequested() throws InterruptedException {
+        EventPublisher publisher = new EventPublisher(executor, 1);
+        Recorder recorder = new Recorder(0L);
+        publisher.subscribe(recorder, EventPublisher.Overflow.BLOCK);
+        Unit unit = mock(Unit.class);
+        GameEvent[] submitted = new GameEvent[3];
+        Thread producer = new Thread(() -> {
+            GameEvent[] events = submitMoves(publisher, unit, submitted.length);
+            System.arraycopy(events, 0, submitted, 0, events.length);
+        });
+        producer.start();
+        producer.join(100L);
+        assertThat(producer.isAlive()).isTrue();
+
+        recorder.awaitSubscription().request(submitted.length);
+        producer.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertThat(producer.isAlive()).isFalse();
+        for (GameEvent event : submitted) {
+            assertThat(recorder.take()).isSameAs(event);
+        }
+        assertThat(publisher.getDroppedCount()).isZero();
+    }
+
+    /**
+     * Verifies that closing completes subscribers after their buffered
+     * events, and that invalid requests fail the subscription.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void completesAndFails() throws InterruptedException {
+        EventPublisher publisher = new EventPublisher(executor, 2);
+        Recorder completed = new Recorder(1L);
+        Recorder failed = new Recorder(0L);
+        publisher.subscribe(completed);
+        publisher.subscribe(failed);
+        failed.awaitSubscription().request(0L);
+        assertThat(failed.finished.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+        assertThat(failed.error).isInstanceOf(IllegalArgumentException.class);
+        assertThat(publisher.hasSubscribers()).isTrue();
+
+        GameEvent event = GameEvent.levelEnded(true);
+        publisher.submit(event);
+        publisher.close();
+        assertThat(completed.take()).isSameAs(event);
+        assertThat(completed.finished.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed.error).isNull();
+        assertThat(publisher.hasSubscribers()).isFalse();
+    }
+
+    /**
+     * Submits move events of a unit.
+     *
+     * @param publisher
+     *            The publisher to submit the events to.
+     * @param unit
+     *            The unit that moves.
+     * @param count
+     *            The number of events.
+     * @return The submitted events.
+     */
+    private static GameEvent[] submitMoves(EventPublisher publisher, Unit unit, int count) {
+        GameEvent[] events = new GameEvent[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = GameEvent.unitMoved(unit, Direction.EAST, i);
+            publisher.submit(events[i]);
+        }
+        return events;
+    }
+
+    /**
+     * A subscriber recording the events it receives.
+     */
+    private static final class Recorder implements Flow.Subscriber<GameEvent> {
+
+        /**
+         * The number of events requested on subscription.
+         */
+        private final long initialRequest;
+
+        /**
+         * The events received.
+         */
+        private final BlockingQueue<GameEvent> received = new LinkedBlockingQueue<>();
+
+        /**
+         * Released once subscribed.
+         */
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+
+        /**
+         * Released once completed or failed.
+         */
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        /**
+         * The subscription.
+         */
+        private volatile Flow.Subscription subscription;
+
+        /**
+         * The error received, or <code>null</code>.
+         */
+        private volatile Throwable error;
+
+        /**
+         * Creates a new recorder.
+         *
+         * @param initialRequest
+         *            The number of events requested on subscription.
+         */
+        Recorder(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription newSubscription) {
+            subscription = newSubscription;
+            if (initialRequest > 0L) {
+                newSubscription.request(initialRequest);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(GameEvent item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+
+        /**
+         * @return The subscription, once subscribed.
+         * @throws InterruptedException
+         *             If interrupted while waiting.
+         */
+        Flow.Subscription awaitSubscription() throws InterruptedException {
+            assertThat(subscribed.await(TIMEOUT, TimeUnit.SECONDS)).isTrue();
+            return subscription;
+        }
+
+        /**
+         * @return The next event received, waiting for it.
+         * @throws InterruptedException
+         *             If interrupted while waiting.
+         */
+        GameEvent take() throws InterruptedException {
+            GameEvent event = received.poll(TIMEOUT, TimeUnit.SECONDS);
+            assertThat(event).isNotNull();
+            return event;
+        }
+
+        /**
+         * @return The next event received if it arrives soon, or
+         *         <code>null</code>.
+         * @throws InterruptedException
+         *             If interrupted while waiting.
+         */
+        GameEvent poll() throws InterruptedException {
+            return received.poll(100L, TimeUnit.MILLISECONDS);
+        }
+    }
+}
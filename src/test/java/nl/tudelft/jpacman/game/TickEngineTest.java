@@ -0,0 +1,453 @@
+package nl.tudelft.jpacman.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.CompactBoard;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the deterministic game clock of {@link TickEngine}.
+ */
+class TickEngineTest {
+
+    /**
+     * The player is moved around the engine there and back again once in
+     * this many times, see {@link #outsideMoves(Game, int)}.
+     */
+    private static final int THERE_AND_BACK = 3;
+
+    /**
+     * The player of the game.
+     */
+    private Player player;
+
+    /**
+     * The game under test.
+     */
+    private Game game;
+
+    /**
+     * The engine driving the game.
+     */
+    private TickEngine engine;
+
+    /**
+     * Creates the game and its engine.
+     */
+    @BeforeEach
+    void setUp() {
+        game = createGame(new LevelFactory(sprites(), new GhostFactory(sprites())));
+        player = game.getPlayers().get(0);
+        engine = new TickEngine(game);
+    }
+
+    /**
+     * Creates a game with a ghost in a corridor and two pellets east of the
+     * player.
+     *
+     * @param levelFactory
+     *            The factory creating the level.
+     * @return The new game.
+     */
+    private static Game createGame(LevelFactory levelFactory) {
+        PacManSprites sprites = sprites();
+        return createGame(new MapParser(levelFactory, new BoardFactory(sprites)));
+    }
+
+    /**
+     * Creates a game with a ghost in a corridor and two pellets east of the
+     * player.
+     *
+     * @param parser
+     *            The parser creating the level.
+     * @return The new game.
+     */
+    private static Game createGame(MapParser parser) {
+        PacManSprites sprites = sprites();
+        Level level = parser.parseMap(Lists.newArrayList(
+            "#######",
+            "#G  ###",
+            "#######",
+            "#P..###",
+            "#######"));
+        return new GameFactory(new PlayerFactory(sprites)).createSinglePlayerGame(level);
+    }
+
+    /**
+     * @return Mock sprites that can be used to create players.
+     */
+    private static PacManSprites sprites() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        when(sprites.getPacmanSprites()).thenReturn(new EnumMap<>(Direction.class));
+        when(sprites.getPacManDeathAnimation()).thenReturn(mock(AnimatedSprite.class));
+        return sprites;
+    }
+
+    /**
+     * Verifies that queued moves are applied on the next tick only.
+     */
+    @Test
+    void queuedMovesWaitForTick() {
+        game.start();
+        Square start = player.getSquare();
+        engine.queueMove(player, Direction.EAST);
+        assertThat(player.getSquare()).isEqualTo(start);
+        engine.step();
+        assertThat(player.getSquare()).isEqualTo(start.getSquareAt(Direction.EAST));
+        assertThat(engine.getTick()).isEqualTo(1L);
+    }
+
+    /**
+     * Verifies that ghosts only move on the ticks derived from their interval.
+     */
+    @Test
+    void ghostsMoveOnTicks() {
+        game.start();
+        Ghost ghost = game.getLevel().getGhosts().get(0);
+        Square start = ghost.getSquare();
+        engine.run(engine.ticks(ghost.getInterval() / 2) - 2);
+        assertThat(ghost.getSquare()).isEqualTo(start);
+        engine.run(engine.ticks(ghost.getInterval() / 2));
+        assertThat(ghost.getSquare()).isNotEqualTo(start);
+    }
+
+    /**
+     * Verifies that the engine runs a game to its end as fast as possible.
+     */
+    @Test
+    void runsUntilFinished() {
+        game.start();
+        engine.queueMove(player, Direction.EAST);
+        engine.step();
+        engine.queueMove(player, Direction.EAST);
+        assertThat(engine.runUntilFinished(100L)).isEqualTo(1L);
+        assertThat(game.isInProgress()).isFalse();
+        assertThat(player.getScore()).isGreaterThan(0);
+    }
+
+    /**
+     * Verifies that nothing happens while the game is not in progress.
+     */
+    @Test
+    void idleWhileStopped() {
+        engine.queueMove(player, Direction.EAST);
+        engine.run(10L);
+        assertThat(engine.getTick()).isZero();
+    }
+
+    /**
+     * Verifies that games whose levels have the same seed play out the same.
+     */
+    @Test
+    void seededGamesAreReproducible() {
+        long seed = 42L;
+        PacManSprites sprites = sprites();
+        Game first = createGame(new LevelFactory(sprites, new GhostFactory(sprites))
+            .withSeed(seed));
+        Game second = createGame(new LevelFactory(sprites, new GhostFactory(sprites))
+            .withSeed(seed));
+        assertThat(first.getLevel().getSeed()).isEqualTo(second.getLevel().getSeed());
+
+        TickEngine firstEngine = new TickEngine(first);
+        TickEngine secondEngine = new TickEngine(second);
+        first.start();
+        second.start();
+        Ghost firstGhost = first.getLevel().getGhosts().get(0);
+        Ghost secondGhost = second.getLevel().getGhosts().get(0);
+        for (int i = 0; i < 1000; i++) {
+            firstEngine.step();
+            secondEngine.step();
+            assertThat(firstGhost.getSquare().getIndex())
+                .isEqualTo(secondGhost.getSquare().getIndex());
+        }
+    }
+
+    /**
+     * Verifies that ghosts deciding their moves in parallel play out the
+     * same as ghosts deciding one after the other.
+     */
+    @Test
+    void parallelGhostsAreReproducible() {
+        PacManSprites sprites = sprites();
+        Game[] games = new Game[2];
+        TickEngine[] engines = new TickEngine[games.length];
+        for (int i = 0; i < games.length; i++) {
+            Level level = new MapParser(
+                new LevelFactory(sprites, new GhostFactory(sprites)).withSeed(7L),
+                new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                    "#########",
+                    "#GG   GG#",
+                    "#   #   #",
+                    "#P..#...#",
+                    "#########"));
+            games[i] = new GameFactory(new PlayerFactory(sprites)).createSinglePlayerGame(level);
+            engines[i] = new TickEngine(games[i]);
+            games[i].start();
+        }
+        engines[0].setAiExecutor(Runnable::run);
+        for (int tick = 0; tick < 500; tick++) {
+            engines[0].step();
+            engines[1].step();
+            assertThat(games[1].getLevel().getHash()).isEqualTo(games[0].getLevel().getHash());
+        }
+        assertThat(engines[1].getGhostAiNanos()).isPositive();
+    }
+
+    /**
+     * Verifies that ghosts decide again on the moved state when a player is
+     * moved around the engine while they decide, as if the player had moved
+     * before the tick. This includes moves there and back again, which leave
+     * the level as it was.
+     */
+    @Test
+    void replansAfterOutsideMove() {
+        PacManSprites sprites = sprites();
+        Game[] games = new Game[2];
+        TickEngine[] engines = new TickEngine[games.length];
+        for (int i = 0; i < games.length; i++) {
+            Level level = new MapParser(
+                new LevelFactory(sprites, new GhostFactory(sprites)).withSeed(7L),
+                new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                    "###########",
+                    "#G   #   G#",
+                    "# # ### # #",
+                    "#.       .#",
+                    "# # ### # #",
+                    "#G   P   G#",
+                    "###########"));
+            games[i] = new GameFactory(new PlayerFactory(sprites)).createSinglePlayerGame(level);
+            engines[i] = new TickEngine(games[i]);
+            games[i].start();
+        }
+        List<Direction> moves = new ArrayList<>();
+        AtomicBoolean moved = new AtomicBoolean(true);
+        engines[0].setAiExecutor(task -> {
+            if (moved.compareAndSet(false, true)) {
+                Player player = games[0].getPlayers().get(0);
+                for (int m = 0; m < moves.size() - 1; m++) {
+                    games[0].move(player, moves.get(m));
+                }
+                task.run();
+                games[0].move(player, moves.get(moves.size() - 1));
+            } else {
+                task.run();
+            }
+        });
+        engines[1].setAiExecutor(Runnable::run);
+        int outsideMoves = 0;
+        for (int tick = 0; tick < 1000 && games[0].isInProgress(); tick++) {
+            moves.clear();
+            moves.addAll(outsideMoves(games[0], outsideMoves));
+            moved.set(false);
+            engines[0].step();
+            if (moved.get()) {
+                for (Direction move : moves) {
+                    games[1].move(games[1].getPlayers().get(0), move);
+                }
+                outsideMoves++;
+            }
+            engines[1].step();
+            assertThat(games[1].getLevel().getHash()).isEqualTo(games[0].getLevel().getHash());
+        }
+        assertThat(outsideMoves).isPositive();
+    }
+
+    /**
+     * Plans the moves of the player of a game around its engine, which are
+     * made while the first ghost that is due decides: every few times there
+     * and back again, facing the way it faced before, and otherwise a single
+     * step, alternating between east and west.
+     *
+     * @param game
+     *            The game.
+     * @param previous
+     *            The number of times the player was moved before.
+     * @return The directions to move the player in, in order.
+     */
+    private static List<Direction> outsideMoves(Game game, int previous) {
+        if (previous % THERE_AND_BACK == 0) {
+            Direction back = game.getPlayers().get(0).getDirection();
+            return Lists.newArrayList(reverse(back), back);
+        }
+        if (previous % 2 == 0) {
+            return Lists.newArrayList(Direction.EAST);
+        }
+        return Lists.newArrayList(Direction.WEST);
+    }
+
+    /**
+     * @param direction
+     *            East or west.
+     * @return The other one of east and west.
+     */
+    private static Direction reverse(Direction direction) {
+        if (direction == Direction.EAST) {
+            return Direction.WEST;
+        }
+        return Direction.EAST;
+    }
+
+    /**
+     * Verifies that a game on a compact board plays like any other game.
+     */
+    @Test
+    void compactBoardGame() {
+        PacManSprites sprites = sprites();
+        Game compact = createGame(new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)), new BoardFactory(sprites))
+            .withCompactBoards());
+        assertThat(compact.getLevel().getBoard()).isInstanceOf(CompactBoard.class);
+        assertThat(compact.getLevel().remainingPellets()).isEqualTo(2);
+
+        TickEngine compactEngine = new TickEngine(compact);
+        Player pacMan = compact.getPlayers().get(0);
+        compact.start();
+        compactEngine.queueMove(pacMan, Direction.EAST);
+        compactEngine.step();
+        compactEngine.queueMove(pacMan, Direction.EAST);
+        compactEngine.step();
+        assertThat(compact.isInProgress()).isFalse();
+        assertThat(pacMan.getScore()).isGreaterThan(0);
+    }
+
+    /**
+     * Verifies that ghosts keep the time remaining until their next move
+     * while the game is frozen.
+     */
+    @Test
+    void freezeKeepsRemainingTime() {
+        game.start();
+        Ghost ghost = game.getLevel().getGhosts().get(0);
+        Square start = ghost.getSquare();
+        engine.run(5L);
+        game.freeze();
+        engine.run(100L);
+        assertThat(ghost.getSquare()).isEqualTo(start);
+        game.unfreeze();
+        engine.run(5L);
+        assertThat(ghost.getSquare()).isEqualTo(start);
+        engine.run(10L);
+        assertThat(ghost.getSquare()).isNotEqualTo(start);
+    }
+
+    /**
+     * Verifies that restoring a snapshot brings back the units, pellets and
+     * scores, after which the ghosts repeat their moves.
+     */
+    @Test
+    void restoresSnapshot() {
+        final int ticks = 300;
+        game.start();
+        Ghost ghost = game.getLevel().getGhosts().get(0);
+        TickEngine.Snapshot snapshot = engine.snapshot();
+        Square start = player.getSquare();
+        int[] path = new int[ticks];
+        engine.queueMove(player, Direction.EAST);
+        for (int i = 0; i < ticks; i++) {
+            engine.step();
+            path[i] = ghost.getSquare().getIndex();
+        }
+        assertThat(game.getLevel().remainingPellets()).isEqualTo(1);
+        assertThat(player.getScore()).isGreaterThan(0);
+
+        engine.restore(snapshot);
+        assertThat(engine.getTick()).isZero();
+        assertThat(player.getSquare()).isEqualTo(start);
+        assertThat(player.getScore()).isZero();
+        assertThat(game.getLevel().remainingPellets()).isEqualTo(2);
+        for (int i = 0; i < ticks; i++) {
+            engine.step();
+            assertThat(ghost.getSquare().getIndex()).isEqualTo(path[i]);
+        }
+    }
+
+    /**
+     * Verifies that taking snapshots does not change how a game plays out.
+     */
+    @Test
+    void snapshotsDoNotPerturbGame() {
+        final int ticks = 300;
+        game = createGame(new LevelFactory(sprites(), new GhostFactory(sprites())).withSeed(3L));
+        engine = new TickEngine(game);
+        Game other = createGame(new LevelFactory(sprites(), new GhostFactory(sprites()))
+            .withSeed(3L));
+        TickEngine otherEngine = new TickEngine(other);
+        Ghost ghost = game.getLevel().getGhosts().get(0);
+        Ghost otherGhost = other.getLevel().getGhosts().get(0);
+        game.start();
+        other.start();
+        for (int i = 0; i < ticks; i++) {
+            engine.snapshot();
+            engine.step();
+            otherEngine.step();
+            assertThat(ghost.getSquare().getIndex())
+                .isEqualTo(otherGhost.getSquare().getIndex());
+        }
+    }
+
+    /**
+     * Verifies that a tick failing in real time stops the game and reports
+     * the failure, instead of silently stopping the clock.
+     *
+     * @throws InterruptedException
+     *             If the test was interrupted.
+     */
+    @Test
+    void realTimeFailureStopsGame() throws InterruptedException {
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            reported.set(e);
+            failed.countDown();
+        });
+        try {
+            engine.setTickListener(new TickEngine.TickListener() {
+                @Override
+                public void inputApplied(long tick, Player mover, Direction direction) {
+                    // not used
+                }
+
+                @Override
+                public void tickCompleted(long tick) {
+                    if (tick == 3L) {
+                        throw new IllegalStateException("broken listener");
+                    }
+                }
+            });
+            game.start();
+            engine.startRealTime();
+            assertThat(failed.await(5L, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            engine.stopRealTime();
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+        assertThat(reported.get()).hasMessage("broken listener");
+        assertThat(game.isInProgress()).isFalse();
+    }
+}
@@ -0,0 +1,167 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+import nl.tudelft.jpacman.npc.Ghost;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the dispatch of collisions by a {@link CollisionInteractionMap}.
+ */
+class CollisionInteractionMapTest {
+
+    /**
+     * The number of times to run the garbage collector before giving up.
+     */
+    private static final int GC_ATTEMPTS = 50;
+
+    /**
+     * The time to wait after running the garbage collector, in milliseconds.
+     */
+    private static final long GC_PAUSE = 10L;
+
+    /**
+     * The map under test.
+     */
+    private CollisionInteractionMap map;
+
+    /**
+     * The player colliding.
+     */
+    private Player player;
+
+    /**
+     * The ghost colliding.
+     */
+    private Ghost ghost;
+
+    /**
+     * Creates an empty map and the colliding units.
+     */
+    @BeforeEach
+    void setUp() {
+        map = new CollisionInteractionMap();
+        player = mock(Player.class);
+        ghost = mock(Ghost.class);
+    }
+
+    /**
+     * Verifies that a handler registered for superclasses handles the
+     * collision in both directions.
+     */
+    @Test
+    void symmetricHandler() {
+        map.onCollision(Player.class, Ghost.class, (p, g) -> p.setAlive(false));
+        map.collide(ghost, player);
+        verify(player).setAlive(false);
+    }
+
+    /**
+     * Verifies that handlers registered after a collision was resolved are
+     * used for later collisions.
+     */
+    @Test
+    void registrationInvalidatesCache() {
+        map.collide(player, ghost);
+        verify(player, never()).setAlive(false);
+
+        map.onCollision(Player.class, Ghost.class, false, (p, g) -> p.setAlive(false));
+        map.collide(player, ghost);
+        verify(player).setAlive(false);
+    }
+
+    /**
+     * Verifies that a map compiled into a kind matrix dispatches on the kinds
+     * of the units.
+     */
+    @Test
+    void compiledMatrix() {
+        map.onCollision(Player.class, Ghost.class, (p, g) -> p.setAlive(false));
+        Map<Integer, Class<? extends Unit>> kinds = new HashMap<>();
+        kinds.put(Player.KIND, Player.class);
+        kinds.put(Ghost.KIND, Ghost.class);
+        CollisionMatrix matrix = map.toMatrix(kinds);
+        assertThat(matrix.handles(Ghost.KIND, Player.KIND)).isTrue();
+        assertThat(matrix.handles(Ghost.KIND, Ghost.KIND)).isFalse();
+
+        when(player.getKind()).thenReturn(Player.KIND);
+        when(ghost.getKind()).thenReturn(Ghost.KIND);
+        matrix.collide(ghost, player);
+        verify(player).setAlive(false);
+    }
+
+    /**
+     * Verifies that a kind matrix rejects kind codes out of its range,
+     * instead of dispatching them to the handler of another pair of kinds.
+     */
+    @Test
+    void matrixRejectsUnknownKinds() {
+        CollisionMatrix matrix = new CollisionMatrix();
+        assertThatThrownBy(() -> matrix.onCollision(Unit.KIND_LIMIT, Ghost.KIND,
+            (Unit p, Unit g) -> { }))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        matrix.onCollision(Player.KIND, Ghost.KIND, false,
+            (Player p, Ghost g) -> p.setAlive(false));
+        when(player.getKind()).thenReturn(0);
+        when(ghost.getKind()).thenReturn(Player.KIND * Unit.KIND_LIMIT + Ghost.KIND);
+        assertThatThrownBy(() -> matrix.collide(player, ghost))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(player, never()).setAlive(false);
+    }
+
+    /**
+     * Verifies that a map that dispatched collisions can be collected once
+     * it is dropped, i.e. that the classes of the units it dispatched on do
+     * not keep it reachable.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void droppedMapIsCollected() throws InterruptedException {
+        WeakReference<CollisionInteractionMap> reference = dispatchOnce();
+        for (int i = 0; i < GC_ATTEMPTS && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(GC_PAUSE);
+        }
+        assertThat(reference.get()).isNull();
+    }
+
+    /**
+     * Creates a map and dispatches a collision on it.
+     *
+     * @return A weak reference to the map, which is not referenced otherwise.
+     */
+    private static WeakReference<CollisionInteractionMap> dispatchOnce() {
+        CollisionInteractionMap dropped = new CollisionInteractionMap();
+        dropped.onCollision(StubUnit.class, StubUnit.class, (collider, collidee) -> { });
+        dropped.collide(new StubUnit(), new StubUnit());
+        return new WeakReference<>(dropped);
+    }
+
+    /**
+     * A unit of a class that is never unloaded.
+     */
+    private static final class StubUnit extends Unit {
+
+        @Override
+        public Sprite getSprite() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests moving players in different parts of a {@link Level} concurrently.
+ */
+class ConcurrentMoveTest {
+
+    /**
+     * The number of pellets in front of each player.
+     */
+    private static final int PELLETS = 7;
+
+    /**
+     * The number of times each player moves back and forth.
+     */
+    private static final int ROUNDS = 2000;
+
+    /**
+     * Creates a level with two players in separate corridors full of
+     * pellets.
+     *
+     * @param players
+     *            The list to add the players to.
+     * @return The new level.
+     */
+    private static Level createLevel(List<Player> players) {
+        PacManSprites sprites = new HeadlessSprites();
+        MapParser parser = new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)).withSeed(1L),
+            new BoardFactory(sprites));
+        Level level = parser.parseMap(Lists.newArrayList(
+            "##########",
+            "#P.......#",
+            "##########",
+            "#P.......#",
+            "##########"));
+        PlayerFactory factory = new PlayerFactory(sprites);
+        for (int i = 0; i < 2; i++) {
+            players.add(factory.createPacMan());
+            level.registerPlayer(players.get(i));
+        }
+        return level;
+    }
+
+    /**
+     * Verifies that players moving at the same time eat every pellet once,
+     * that the level is won once and that the hash ends up as if the moves
+     * were made one at a time.
+     *
+     * @throws Exception
+     *             If a move failed.
+     */
+    @Test
+    void movesInParallel() throws Exception {
+        List<Player> players = new ArrayList<>();
+        Level level = createLevel(players);
+        AtomicInteger won = new AtomicInteger();
+        level.addObserver(new Level.LevelObserver() {
+            @Override
+            public void levelWon() {
+                won.incrementAndGet();
+            }
+
+            @Override
+            public void levelLost() {
+                // not expected
+            }
+        });
+        level.start();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(players.size());
+        try {
+            Future<?>[] moving = new Future<?>[players.size()];
+            for (int i = 0; i < moving.length; i++) {
+                Player player = players.get(i);
+                moving[i] = executor.submit(() -> {
+                    start.await();
+                    run(level, player);
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : moving) {
+                future.get(10L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(level.remainingPellets()).isZero();
+        assertThat(won.get()).isEqualTo(1);
+        for (Player player : players) {
+            assertThat(player.getScore()).isEqualTo(PELLETS * 10);
+            assertThat(player.getSquare().getSquareAt(Direction.EAST).isAccessibleTo(player))
+                .isFalse();
+        }
+        List<Player> others = new ArrayList<>();
+        Level sequential = createLevel(others);
+        sequential.start();
+        for (Player player : others) {
+            for (int step = 0; step < PELLETS; step++) {
+                sequential.move(player, Direction.EAST);
+            }
+        }
+        assertThat(level.getHash()).isEqualTo(sequential.getHash());
+    }
+
+    /**
+     * Moves a player to the end of its corridor, then back and forth.
+     *
+     * @param level
+     *            The level.
+     * @param player
+     *            The player to move.
+     */
+    private static void run(Level level, Player player) {
+        for (int step = 0; step < PELLETS; step++) {
+            level.move(player, Direction.EAST);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            level.move(player, Direction.WEST);
+            level.move(player, Direction.EAST);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.EnumMap;
+import java.util.Random;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the player distance fields maintained by {@link Level}.
+ */
+class DistanceFieldTest {
+
+    /**
+     * The number of steps of the random walk of the root.
+     */
+    private static final int WALK = 2000;
+
+    /**
+     * The root jumps to a random square once in this many steps.
+     */
+    private static final int JUMP_INTERVAL = 50;
+
+    /**
+     * The level under test, with a ghost at (1, 1) and a start square at (5, 1).
+     */
+    private Level level;
+
+    /**
+     * The player registered on the level.
+     */
+    private Player player;
+
+    /**
+     * Parses the level and registers the player.
+     */
+    @BeforeEach
+    void setUp() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        MapParser parser = new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)), new BoardFactory(sprites));
+        level = parser.parseMap(Lists.newArrayList(
+            "#######",
+            "#G   P#",
+            "### ###",
+            "#######"));
+        player = new Player(new EnumMap<>(Direction.class), mock(AnimatedSprite.class));
+        level.registerPlayer(player);
+    }
+
+    /**
+     * Verifies that the field measures the distance to the player.
+     */
+    @Test
+    void distanceToPlayer() {
+        Board board = level.getBoard();
+        DistanceField field = level.getDistanceField(player);
+        assertThat(field.getRoot()).isEqualTo(board.squareAt(5, 1));
+        assertThat(field.distanceFrom(board.squareAt(1, 1))).isEqualTo(4);
+        assertThat(field.distanceFrom(board.squareAt(3, 2))).isEqualTo(3);
+        assertThat(field.distanceFrom(board.squareAt(0, 0)))
+            .isEqualTo(DistanceField.UNREACHABLE);
+    }
+
+    /**
+     * Verifies that descending the field leads towards the player.
+     */
+    @Test
+    void descendTowardsPlayer() {
+        Board board = level.getBoard();
+        DistanceField field = level.getDistanceField(player);
+        assertThat(field.descend(board.squareAt(1, 1))).isEqualTo(Direction.EAST);
+        assertThat(field.descend(board.squareAt(3, 2))).isEqualTo(Direction.NORTH);
+        assertThat(field.descend(board.squareAt(5, 1))).isNull();
+    }
+
+    /**
+     * Verifies that the field follows its root when it is updated.
+     */
+    @Test
+    void followsRoot() {
+        Board board = level.getBoard();
+        DistanceField field = level.getDistanceField(player);
+        field.update(board.squareAt(3, 2));
+        assertThat(field.distanceFrom(board.squareAt(1, 1))).isEqualTo(3);
+        assertThat(field.descend(board.squareAt(5, 1))).isEqualTo(Direction.WEST);
+    }
+
+    /**
+     * Verifies that the player is the nearest player for the ghost.
+     */
+    @Test
+    void nearestPlayer() {
+        assertThat(level.nearestPlayer(level.getBoard().squareAt(1, 1))).isEqualTo(player);
+    }
+
+    /**
+     * Verifies that a field repaired while its root walks around a maze
+     * equals the field searched from scratch after every step, also when
+     * the root jumps or walks through a tunnel to the other side.
+     */
+    @Test
+    void repairedFieldMatchesSearch() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        Level maze = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                "#########",
+                "#G  #   #",
+                "# # # # #",
+                "  #   #  ",
+                "# ### # #",
+                "#       #",
+                "#########"));
+        Board board = maze.getBoard();
+        Unit traveller = maze.getGhosts().get(0);
+        DistanceField field = new DistanceField(board, traveller);
+        Random random = new Random(1L);
+        Square root = board.squareAt(1, 1);
+        field.update(root);
+        for (int step = 0; step < WALK; step++) {
+            Square next = root.getSquareAt(Direction.values()[random.nextInt(4)]);
+            if (step % JUMP_INTERVAL == 0) {
+                next = board.squareAt(random.nextInt(board.getWidth()),
+                    random.nextInt(board.getHeight()));
+            }
+            if (next.isAccessibleTo(traveller)) {
+                root = next;
+                field.update(root);
+                assertMatchesSearch(field, board, traveller);
+            }
+        }
+    }
+
+    /**
+     * Asserts that a field holds the distances of a field searched from
+     * scratch.
+     *
+     * @param field
+     *            The field to check.
+     * @param board
+     *            The board of the field.
+     * @param traveller
+     *            The traveller of the field.
+     */
+    private static void assertMatchesSearch(DistanceField field, Board board, Unit traveller) {
+        DistanceField searched = new DistanceField(board, traveller);
+        searched.update(field.getRoot());
+        for (int index = 0; index < board.getSquareCount(); index++) {
+            Square square = board.squareAt(index);
+            assertThat(field.distanceFrom(square))
+                .as("distance from %d to %d", index, field.getRoot().getIndex())
+                .isEqualTo(searched.distanceFrom(square));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests journaling the changes of a {@link Level} and reading them back.
+ */
+class JournalTest {
+
+    /**
+     * The directory holding the journal.
+     */
+    private Path directory;
+
+    /**
+     * Creates the directory of the journal.
+     *
+     * @throws IOException
+     *             If the directory could not be created.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        directory.toFile().deleteOnExit();
+    }
+
+    /**
+     * @return A new level with a registered player, a pellet east of the
+     *         player and a ghost east of the pellet.
+     */
+    private static Level createLevel() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        when(sprites.getPacmanSprites()).thenReturn(new EnumMap<>(Direction.class));
+        when(sprites.getPacManDeathAnimation()).thenReturn(mock(AnimatedSprite.class));
+        MapParser parser = new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)).withSeed(1L),
+            new BoardFactory(sprites));
+        Level level = parser.parseMap(Lists.newArrayList(
+            "#######",
+            "#P.G. #",
+            "# ... #",
+            "#######"));
+        level.registerPlayer(new PlayerFactory(sprites).createPacMan());
+        return level;
+    }
+
+    /**
+     * Verifies that the journal reconstructs moves, eaten pellets, scores
+     * and deaths, across several segments.
+     *
+     * @throws IOException
+     *             If the journal could not be written or read.
+     */
+    @Test
+    void reconstructsLevel() throws IOException {
+        Level level = createLevel();
+        Player player = level.getBoard().findAny(Player.class);
+        try (Journal journal = Journal.create(directory, 2)) {
+            level.setJournal(journal);
+            level.setNpcScheduling(false);
+            level.start();
+            level.move(player, Direction.SOUTH);
+            level.move(player, Direction.EAST);
+            level.move(player, Direction.NORTH);
+            level.move(player, Direction.EAST);
+            assertThat(journal.getSequence()).isGreaterThan(6L);
+        }
+        assertThat(player.isAlive()).isFalse();
+
+        Level copy = createLevel();
+        JournalReader reader = new JournalReader(directory);
+        assertThat(reader.applyTo(copy)).isGreaterThan(6L);
+        Player other = copy.getBoard().findAny(Player.class);
+        assertThat(copy.getHash()).isEqualTo(level.getHash());
+        assertThat(other.getScore()).isEqualTo(player.getScore());
+        assertThat(other.isAlive()).isFalse();
+        assertThat(copy.remainingPellets()).isEqualTo(level.remainingPellets());
+    }
+
+    /**
+     * Verifies that the units are numbered ghosts first, then pellets, then
+     * players.
+     */
+    @Test
+    void numbersUnits() {
+        Level level = createLevel();
+        assertThat(level.getUnit(0)).isSameAs(level.getGhosts().get(0));
+        assertThat(level.getUnit(1)).isInstanceOf(Pellet.class);
+        assertThat(level.getUnit(6)).isInstanceOf(Player.class);
+        assertThat(level.getUnitNumber(level.getUnit(3))).isEqualTo(3);
+    }
+
+    /**
+     * Verifies that a journal is not written to a directory holding the
+     * segments of another journal, and leaves them alone.
+     *
+     * @throws IOException
+     *             If the first journal could not be written.
+     */
+    @Test
+    void keepsExistingSegments() throws IOException {
+        try (Journal journal = Journal.create(directory, 2)) {
+            journal.recordScore(0, 10, 10);
+        }
+        assertThatThrownBy(() -> Journal.create(directory, 2))
+            .isInstanceOf(FileAlreadyExistsException.class);
+        JournalReader reader = new JournalReader(directory);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getValue()).isEqualTo(10);
+    }
+
+    /**
+     * Verifies that records appended concurrently across many segments are
+     * all written, with consecutive sequence numbers.
+     *
+     * @throws Exception
+     *             If the journal could not be written or read.
+     */
+    @Test
+    void appendsConcurrently() throws Exception {
+        int threads = 4;
+        int records = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (Journal journal = Journal.create(directory, 64)) {
+            Future<?>[] appending = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int player = t;
+                appending[t] = executor.submit(() -> {
+                    for (int i = 1; i <= records; i++) {
+                        journal.recordScore(player, 1, i);
+                    }
+                });
+            }
+            for (Future<?> future : appending) {
+                future.get(10L, TimeUnit.SECONDS);
+            }
+            assertThat(journal.getSequence()).isEqualTo((long) threads * records);
+        } finally {
+            executor.shutdownNow();
+        }
+        JournalReader reader = new JournalReader(directory);
+        long read = 0L;
+        while (reader.next()) {
+            read++;
+        }
+        assertThat(read).isEqualTo((long) threads * records);
+    }
+}
@@ -0,0 +1,127 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumMap;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests making and undoing moves while a {@link Level} is searched.
+ */
+class LevelSearchTest {
+
+    /**
+     * The level under test.
+     */
+    private Level level;
+
+    /**
+     * The player on the level.
+     */
+    private Player player;
+
+    /**
+     * The ghost on the level.
+     */
+    private Ghost ghost;
+
+    /**
+     * Creates a level with a pellet and a ghost east of the player.
+     */
+    @BeforeEach
+    void setUp() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        when(sprites.getPacmanSprites()).thenReturn(new EnumMap<>(Direction.class));
+        when(sprites.getPacManDeathAnimation()).thenReturn(mock(AnimatedSprite.class));
+        MapParser parser = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites));
+        level = parser.parseMap(Lists.newArrayList(
+            "#######",
+            "#P.G..#",
+            "#######"));
+        player = new PlayerFactory(sprites).createPacMan();
+        level.registerPlayer(player);
+        ghost = level.getGhosts().get(0);
+    }
+
+    /**
+     * Verifies that moves eating pellets and killing players are undone
+     * exactly.
+     */
+    @Test
+    void unmakeRestoresState() {
+        Square start = player.getSquare();
+        Direction direction = player.getDirection();
+        level.beginSearch();
+        level.makeMove(player, Direction.EAST);
+        assertThat(level.remainingPellets()).isEqualTo(2);
+        assertThat(player.getScore()).isGreaterThan(0);
+        level.makeMove(player, Direction.EAST);
+        assertThat(player.isAlive()).isFalse();
+        assertThat(level.getSearchDepth()).isEqualTo(2);
+
+        level.unmakeMove();
+        assertThat(player.isAlive()).isTrue();
+        assertThat(ghost.getSquare().getOccupantCount()).isEqualTo(1);
+        level.unmakeMove();
+        assertThat(player.getSquare()).isEqualTo(start);
+        assertThat(player.getDirection()).isEqualTo(direction);
+        assertThat(player.getScore()).isZero();
+        assertThat(level.remainingPellets()).isEqualTo(3);
+        assertThat(start.getSquareAt(Direction.EAST).hasOccupant(Pellet.class)).isTrue();
+    }
+
+    /**
+     * Verifies that blocked moves can be undone as well.
+     */
+    @Test
+    void unmakeBlockedMove() {
+        Square start = player.getSquare();
+        level.beginSearch();
+        level.makeMove(player, Direction.WEST);
+        assertThat(player.getSquare()).isEqualTo(start);
+        assertThat(player.getDirection()).isEqualTo(Direction.WEST);
+        level.unmakeMove();
+        assertThat(player.getDirection()).isEqualTo(Direction.EAST);
+    }
+
+    /**
+     * Verifies that ending the search undoes the remaining moves.
+     */
+    @Test
+    void endSearchUnwinds() {
+        Square start = ghost.getSquare();
+        level.beginSearch();
+        level.makeMove(ghost, Direction.EAST);
+        level.makeMove(ghost, Direction.EAST);
+        level.endSearch();
+        assertThat(level.isSearching()).isFalse();
+        assertThat(ghost.getSquare()).isEqualTo(start);
+        assertThat(level.remainingPellets()).isEqualTo(3);
+    }
+
+    /**
+     * Verifies that search moves can only be made in search mode.
+     */
+    @Test
+    void searchModeRequired() {
+        assertThatThrownBy(() -> level.makeMove(player, Direction.EAST))
+            .isInstanceOf(IllegalStateException.class);
+        level.start();
+        assertThatThrownBy(level::beginSearch).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -120,6 +120,21 @@ class LevelTest {
     }
     
    
+    /**
+     * Verifies that observers are told only once that the level is lost,
+     * even when the level is restarted.
+     */
+    @Test
+    void levelLostOnce() {
+        LevelObserver observer = mock(LevelObserver.class);
+        level.addObserver(observer);
+        level.start();
+        level.stop();
+        level.start();
+        verify(observer, times(1)).levelLost();
+        verify(observer, times(0)).levelWon();
+    }
+
     /**
      * Verifies registering a player puts the player on the correct starting
      * square.
@@ -0,0 +1,252 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.Ghost;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the scheduler shared by the NPCs of all levels, and the suspension
+ * of the moves of a frozen level on it.
+ */
+class NpcSchedulerTest {
+
+    /**
+     * The number of threads the scheduler is given.
+     */
+    private static final int POOL_SIZE = 2;
+
+    /**
+     * The number of levels running at once.
+     */
+    private static final int LEVELS = 8;
+
+    /**
+     * The move interval of the ghosts that move during a test, in
+     * milliseconds.
+     */
+    private static final long SHORT_INTERVAL = 5L;
+
+    /**
+     * The move interval of the ghosts that must not move during a test, in
+     * milliseconds. Their moves are the only ones queued this far ahead.
+     */
+    private static final long LONG_INTERVAL = TimeUnit.MINUTES.toMillis(10L);
+
+    /**
+     * The time a level runs or is frozen in between checks, in
+     * milliseconds.
+     */
+    private static final long PAUSE = 200L;
+
+    /**
+     * The number of times a level is frozen and unfrozen in a row.
+     */
+    private static final int CYCLES = 100;
+
+    /**
+     * The time to wait for the scheduler to shrink, in milliseconds.
+     */
+    private static final long TIMEOUT = 5000L;
+
+    /**
+     * The pool size before the test, which is restored afterwards.
+     */
+    private int initialPoolSize;
+
+    /**
+     * The levels started by the test.
+     */
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * Remembers the pool size of the shared scheduler.
+     */
+    @BeforeEach
+    void setUp() {
+        initialPoolSize = NpcScheduler.getPoolSize();
+    }
+
+    /**
+     * Stops the levels and restores the pool size.
+     */
+    @AfterEach
+    void tearDown() {
+        for (Level level : levels) {
+            level.stop();
+        }
+        NpcScheduler.setPoolSize(initialPoolSize);
+    }
+
+    /**
+     * Verifies that a pool without threads is rejected.
+     */
+    @Test
+    void rejectsEmptyPool() {
+        assertThatThrownBy(() -> NpcScheduler.setPoolSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(NpcScheduler.getPoolSize()).isEqualTo(initialPoolSize);
+    }
+
+    /**
+     * Verifies that the ghosts of many levels are moved by the daemon threads
+     * of the shared scheduler, which does not grow beyond its pool size.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void levelsShareThePool() throws InterruptedException {
+        NpcScheduler.setPoolSize(POOL_SIZE);
+        ScheduledThreadPoolExecutor executor = NpcScheduler.get();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (executor.getPoolSize() > POOL_SIZE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SHORT_INTERVAL);
+        }
+
+        Set<Thread> movers = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < LEVELS; i++) {
+            Ghost ghost = ghost(SHORT_INTERVAL);
+            when(ghost.nextMove()).thenAnswer(invocation -> {
+                movers.add(Thread.currentThread());
+                return null;
+            });
+            start(ghost);
+        }
+        Thread.sleep(PAUSE);
+
+        assertThat(NpcScheduler.getPoolSize()).isEqualTo(POOL_SIZE);
+        assertThat(executor.getPoolSize()).isLessThanOrEqualTo(POOL_SIZE);
+        assertThat(movers).isNotEmpty();
+        assertThat(movers.size()).isLessThanOrEqualTo(POOL_SIZE);
+        for (Thread mover : movers) {
+            assertThat(mover.getName()).startsWith("jpacman-npc-");
+            assertThat(mover.isDaemon()).isTrue();
+        }
+    }
+
+    /**
+     * Verifies that freezing a level takes the pending move of its ghost off
+     * the scheduler, and that unfreezing puts it back with the time that
+     * remained, not counting the time the level was frozen.
+     *
+     * @throws InterruptedException
+     *             If the test is interrupted.
+     */
+    @Test
+    void freezeKeepsRemainingDelay() throws InterruptedException {
+        Level level = start(ghost(LONG_INTERVAL));
+        long started = System.nanoTime();
+        long scheduled = queuedDelay();
+        Thread.sleep(PAUSE);
+        long freezing = System.nanoTime();
+        level.freeze();
+        long frozen = System.nanoTime();
+        assertThat(queuedDelays()).isEmpty();
+
+        Thread.sleep(PAUSE);
+        level.unfreeze();
+        long resumed = queuedDelay();
+        assertThat(resumed)
+            .isLessThanOrEqualTo(scheduled - millisBetween(started, freezing) + 1L)
+            .isGreaterThan(scheduled - millisBetween(started, frozen) - PAUSE / 2);
+    }
+
+    /**
+     * Verifies that freezing and unfreezing a level keeps a single pending
+     * move per ghost on the shared scheduler, without creating threads.
+     */
+    @Test
+    void freezeReusesTheScheduler() {
+        Level level = start(ghost(LONG_INTERVAL));
+        ScheduledThreadPoolExecutor executor = NpcScheduler.get();
+        int threads = executor.getPoolSize();
+        for (int i = 0; i < CYCLES; i++) {
+            level.freeze();
+            level.unfreeze();
+        }
+        assertThat(queuedDelays()).hasSize(1);
+        assertThat(executor.getPoolSize()).isLessThanOrEqualTo(threads);
+    }
+
+    /**
+     * Creates a ghost that never moves.
+     *
+     * @param interval
+     *            The move interval of the ghost, in milliseconds.
+     * @return The ghost.
+     */
+    private static Ghost ghost(long interval) {
+        Ghost ghost = mock(Ghost.class);
+        when(ghost.getInterval()).thenReturn(interval);
+        return ghost;
+    }
+
+    /**
+     * Starts a level with a single ghost, which is stopped after the test.
+     *
+     * @param ghost
+     *            The ghost of the level.
+     * @return The level.
+     */
+    private Level start(Ghost ghost) {
+        Level level = new Level(mock(Board.class), Lists.newArrayList(ghost),
+            Lists.newArrayList(mock(Square.class)), mock(CollisionMap.class));
+        levels.add(level);
+        level.start();
+        return level;
+    }
+
+    /**
+     * @return The delays in milliseconds of the moves queued on the shared
+     *         scheduler by ghosts with {@link #LONG_INTERVAL}.
+     */
+    private static List<Long> queuedDelays() {
+        List<Long> delays = new ArrayList<>();
+        for (Runnable task : NpcScheduler.get().getQueue()) {
+            long delay = ((Delayed) task).getDelay(TimeUnit.MILLISECONDS);
+            if (delay > LONG_INTERVAL / 4) {
+                delays.add(delay);
+            }
+        }
+        return delays;
+    }
+
+    /**
+     * @return The delay in milliseconds of the only move queued by a ghost
+     *         with {@link #LONG_INTERVAL}.
+     */
+    private static long queuedDelay() {
+        List<Long> delays = queuedDelays();
+        assertThat(delays).hasSize(1);
+        return delays.get(0);
+    }
+
+    /**
+     * @param from
+     *            The earlier time in nanoseconds.
+     * @param to
+     *            The later time in nanoseconds.
+     * @return The milliseconds between the times.
+     */
+    private static long millisBetween(long from, long to) {
+        return TimeUnit.NANOSECONDS.toMillis(to - from);
+    }
+}
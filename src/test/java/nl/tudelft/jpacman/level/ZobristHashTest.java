@@ -0,0 +1,129 @@
+package nl.tudelft.jpacman.level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumMap;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.AnimatedSprite;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the incremental hash of the state of a {@link Level}.
+ */
+class ZobristHashTest {
+
+    /**
+     * The seed of the levels.
+     */
+    private static final long SEED = 7L;
+
+    /**
+     * The level under test.
+     */
+    private Level level;
+
+    /**
+     * The player on the level.
+     */
+    private Player player;
+
+    /**
+     * The ghost on the level.
+     */
+    private Ghost ghost;
+
+    /**
+     * Creates a level with a player, a ghost and some pellets.
+     */
+    @BeforeEach
+    void setUp() {
+        level = createLevel();
+        player = level.getBoard().findAny(Player.class);
+        ghost = level.getGhosts().get(0);
+    }
+
+    /**
+     * @return A new level with a registered player.
+     */
+    private static Level createLevel() {
+        PacManSprites sprites = mock(PacManSprites.class);
+        when(sprites.getPacmanSprites()).thenReturn(new EnumMap<>(Direction.class));
+        when(sprites.getPacManDeathAnimation()).thenReturn(mock(AnimatedSprite.class));
+        MapParser parser = new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)).withSeed(SEED),
+            new BoardFactory(sprites));
+        Level level = parser.parseMap(Lists.newArrayList(
+            "#######",
+            "#P.  G#",
+            "# ... #",
+            "#######"));
+        level.registerPlayer(new PlayerFactory(sprites).createPacMan());
+        return level;
+    }
+
+    /**
+     * Verifies that moves change the hash and undoing them restores it.
+     */
+    @Test
+    void movesChangeHash() {
+        long initial = level.getHash();
+        level.beginSearch();
+        level.makeMove(player, Direction.EAST);
+        long eaten = level.getHash();
+        assertThat(eaten).isNotEqualTo(initial);
+        level.makeMove(ghost, Direction.WEST);
+        assertThat(level.getHash()).isNotEqualTo(eaten);
+        level.endSearch();
+        assertThat(level.getHash()).isEqualTo(initial);
+    }
+
+    /**
+     * Verifies that the direction of the player is part of the hash.
+     */
+    @Test
+    void directionChangesHash() {
+        long initial = level.getHash();
+        player.setDirection(Direction.NORTH);
+        assertThat(level.getHash()).isNotEqualTo(initial);
+        player.setDirection(Direction.EAST);
+        assertThat(level.getHash()).isEqualTo(initial);
+    }
+
+    /**
+     * Verifies that the same state reached in different orders has the same
+     * hash.
+     */
+    @Test
+    void transpositionsHashEqual() {
+        level.beginSearch();
+        level.makeMove(player, Direction.SOUTH);
+        level.makeMove(ghost, Direction.WEST);
+        level.makeMove(player, Direction.EAST);
+        long first = level.getHash();
+        level.endSearch();
+
+        level.beginSearch();
+        level.makeMove(ghost, Direction.WEST);
+        level.makeMove(player, Direction.SOUTH);
+        level.makeMove(player, Direction.EAST);
+        assertThat(level.getHash()).isEqualTo(first);
+    }
+
+    /**
+     * Verifies that levels with the same seed hash equal states equally.
+     */
+    @Test
+    void sameSeedSameHash() {
+        assertThat(createLevel().getHash()).isEqualTo(level.getHash());
+    }
+}
@@ -0,0 +1,126 @@
+package nl.tudelft.jpacman.npc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the time budget of the AI of a {@link Ghost}.
+ */
+class GhostBudgetTest {
+
+    /**
+     * The budget of the ghost under test.
+     */
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /**
+     * The ghost under test.
+     */
+    private SlowGhost ghost;
+
+    /**
+     * Puts a slow ghost in the middle of a corridor, heading east.
+     */
+    @BeforeEach
+    void setUp() {
+        PacManSprites sprites = new HeadlessSprites();
+        Board board = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                "#####",
+                "#   #",
+                "#####")).getBoard();
+        ghost = new SlowGhost();
+        ghost.occupy(board.squareAt(2, 1));
+        ghost.setDirection(Direction.EAST);
+    }
+
+    /**
+     * Verifies that an overrun is made up for by following the current
+     * direction without running the AI.
+     */
+    @Test
+    void overrunFallsBack() {
+        ghost.delay = 5 * BUDGET;
+        assertThat(ghost.nextMove()).isEqualTo(Direction.WEST);
+        assertThat(ghost.getMetrics().getOverruns()).isEqualTo(1L);
+
+        ghost.delay = 0L;
+        assertThat(ghost.nextMove()).isEqualTo(Direction.EAST);
+        for (int i = 0; i < 1000 && ghost.calls == 1; i++) {
+            ghost.nextMove();
+        }
+        assertThat(ghost.calls).isEqualTo(2);
+        assertThat(ghost.getMetrics().getFallbacks()).isGreaterThanOrEqualTo(4L);
+        assertThat(ghost.getMetrics().getAiDecisions()).isEqualTo(2L);
+        assertThat(ghost.getMetrics().getMaxAiNanos()).isGreaterThanOrEqualTo(5 * BUDGET);
+    }
+
+    /**
+     * Verifies that without an enforced budget, overruns are measured but
+     * the AI always runs.
+     */
+    @Test
+    void unenforcedBudgetIsMeasured() {
+        ghost.setAiBudgetEnforced(false);
+        ghost.delay = 2 * BUDGET;
+        assertThat(ghost.nextMove()).isEqualTo(Direction.WEST);
+        assertThat(ghost.nextMove()).isEqualTo(Direction.WEST);
+        assertThat(ghost.calls).isEqualTo(2);
+        assertThat(ghost.getMetrics().getOverruns()).isEqualTo(2L);
+        assertThat(ghost.getMetrics().getFallbacks()).isZero();
+    }
+
+    /**
+     * A ghost whose AI always moves west, after spinning for a while.
+     */
+    private static final class SlowGhost extends Ghost {
+
+        /**
+         * The time the AI takes, in nanoseconds.
+         */
+        private long delay;
+
+        /**
+         * The number of times the AI ran.
+         */
+        private int calls;
+
+        /**
+         * Creates a new ghost.
+         */
+        SlowGhost() {
+            super(new EnumMap<>(Direction.class), 1, 1);
+        }
+
+        @Override
+        public Optional<Direction> nextAiMove() {
+            calls++;
+            long started = System.nanoTime();
+            while (System.nanoTime() - started < delay) {
+                Thread.yield();
+            }
+            return Optional.of(Direction.WEST);
+        }
+
+        @Override
+        protected long getAiBudgetNanos() {
+            return BUDGET;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nl.tudelft.jpacman.npc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@link Ghost} only decides its moves at junctions.
+ */
+class GhostCorridorTest {
+
+    /**
+     * The level under test.
+     */
+    private Level level;
+
+    /**
+     * The player, at the west end of the corridor.
+     */
+    private Player player;
+
+    /**
+     * The ghost, at the east end of the corridor.
+     */
+    private Ghost ghost;
+
+    /**
+     * Creates a level with a player and a ghost at the ends of a corridor,
+     * whose ghosts only move when told to.
+     */
+    @BeforeEach
+    void setUp() {
+        PacManSprites sprites = new HeadlessSprites();
+        level = new MapParser(new LevelFactory(sprites, new GhostFactory(sprites)),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                "##########",
+                "# P     G#",
+                "##########"));
+        player = new PlayerFactory(sprites).createPacMan();
+        level.registerPlayer(player);
+        ghost = level.getGhosts().get(0);
+        level.setNpcScheduling(false);
+        level.start();
+    }
+
+    /**
+     * Moves the ghost as it decides.
+     *
+     * @param steps
+     *            The number of moves.
+     */
+    private void moveGhost(int steps) {
+        for (int i = 0; i < steps; i++) {
+            level.move(ghost, ghost.nextMove());
+        }
+    }
+
+    /**
+     * Verifies that a ghost chasing a player through a corridor decides its
+     * move at the dead end only, and goes on without its AI after that.
+     */
+    @Test
+    void followsCorridorWithoutAi() {
+        moveGhost(4);
+        assertThat(ghost.getDirection()).isEqualTo(Direction.WEST);
+        assertThat(ghost.getMetrics().getAiDecisions()).isEqualTo(1L);
+        assertThat(ghost.getMetrics().getCorridorMoves()).isEqualTo(3L);
+    }
+
+    /**
+     * Verifies that a ghost decides its move again when its target moves
+     * away from it.
+     */
+    @Test
+    void replansWhenTargetMovesAway() {
+        moveGhost(2);
+        level.move(player, Direction.WEST);
+        moveGhost(1);
+        assertThat(ghost.getMetrics().getAiDecisions()).isEqualTo(2L);
+        assertThat(ghost.getMetrics().getCorridorMoves()).isEqualTo(1L);
+    }
+}
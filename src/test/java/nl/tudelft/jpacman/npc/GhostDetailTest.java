@@ -0,0 +1,73 @@
+package nl.tudelft.jpacman.npc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the level of detail of the AI of a {@link Ghost}.
+ */
+class GhostDetailTest {
+
+    /**
+     * The ghost under test, eleven squares east of the player.
+     */
+    private Ghost ghost;
+
+    /**
+     * Creates a level whose ghosts run their AI only within five squares
+     * of the player.
+     */
+    @BeforeEach
+    void setUp() {
+        PacManSprites sprites = new HeadlessSprites();
+        Level level = new MapParser(
+            new LevelFactory(sprites, new GhostFactory(sprites)).withDetailDistance(5),
+            new BoardFactory(sprites)).parseMap(Lists.newArrayList(
+                "##############",
+                "#P          G#",
+                "##############"));
+        level.registerPlayer(new PlayerFactory(sprites).createPacMan());
+        ghost = level.getGhosts().get(0);
+        assertThat(level.distanceToNearestPlayer(ghost.getSquare())).isEqualTo(11);
+    }
+
+    /**
+     * Verifies that a ghost far from the player follows the corridor without
+     * running its AI, except for the sampled moves.
+     */
+    @Test
+    void farGhostMovesCheaply() {
+        for (int i = 0; i < Ghost.SAMPLE_INTERVAL; i++) {
+            assertThat(ghost.nextMove()).isEqualTo(Direction.WEST);
+        }
+        GhostMetrics metrics = ghost.getMetrics();
+        assertThat(metrics.getCheapMoves()).isEqualTo(Ghost.SAMPLE_INTERVAL);
+        assertThat(metrics.getAiDecisions()).isZero();
+        assertThat(metrics.getSamples()).isEqualTo(1L);
+        assertThat(metrics.getFidelity()).isEqualTo(1.0);
+    }
+
+    /**
+     * Verifies that a ghost within its detail distance runs its AI.
+     */
+    @Test
+    void nearGhostRunsAi() {
+        ghost.setDetailDistance(20);
+        assertThat(ghost.nextMove()).isEqualTo(Direction.WEST);
+        assertThat(ghost.getMetrics().getAiDecisions()).isEqualTo(1L);
+        assertThat(ghost.getMetrics().getCheapMoves()).isZero();
+    }
+}
@@ -117,6 +117,38 @@ class NavigationTest {
         assertThat(path).containsExactly(Direction.EAST, Direction.SOUTH);
     }
 
+    /**
+     * Verifies that the first step of a path around a corner is found.
+     */
+    @Test
+    void testFirstStep() {
+        Board b = parser.parseMap(
+            Lists.newArrayList("####", "#  #", "## #", "####")).getBoard();
+        Direction step = Navigation.firstStep(b.squareAt(1, 1), b.squareAt(2, 2),
+            mock(Unit.class));
+        assertThat(step).isEqualTo(Direction.EAST);
+    }
+
+    /**
+     * Verifies that searches on boards of different sizes in a row do not
+     * interfere with each other.
+     */
+    @Test
+    void testConsecutiveBoards() {
+        Board large = parser.parseMap(
+            Lists.newArrayList("#######", "#     #", "# ### #", "#     #", "#######"))
+            .getBoard();
+        Board small = parser.parseMap(Lists.newArrayList("#####", "# # #", "#####"))
+            .getBoard();
+        assertThat(Navigation.shortestPath(large.squareAt(1, 1), large.squareAt(5, 3),
+            mock(Unit.class))).hasSize(6);
+        assertThat(Navigation.shortestPath(small.squareAt(1, 1), small.squareAt(3, 1),
+            mock(Unit.class))).isNull();
+        assertThat(Navigation.shortestPath(large.squareAt(5, 3), large.squareAt(1, 3),
+            mock(Unit.class))).containsExactly(Direction.WEST, Direction.WEST,
+            Direction.WEST, Direction.WEST);
+    }
+
     /**
      * Verifies that the nearest object is detected.
      */
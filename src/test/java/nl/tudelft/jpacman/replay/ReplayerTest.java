@@ -0,0 +1,151 @@
+package nl.tudelft.jpacman.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.game.Game;
+import nl.tudelft.jpacman.game.GameFactory;
+import nl.tudelft.jpacman.game.TickEngine;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.HeadlessSprites;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests recording games and seeking in their replays.
+ */
+class ReplayerTest {
+
+    /**
+     * The number of ticks recorded.
+     */
+    private static final int TICKS = 600;
+
+    /**
+     * The number of ticks between keyframes.
+     */
+    private static final int KEYFRAMES = 50;
+
+    /**
+     * The hash of the level at the end of every recorded tick.
+     */
+    private long[] hashes;
+
+    /**
+     * The recorded log.
+     */
+    private Replay replay;
+
+    /**
+     * Records a game in which the player moves randomly.
+     *
+     * @throws IOException
+     *             Never.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        Game game = createGame(1L);
+        Player player = game.getPlayers().get(0);
+        TickEngine engine = new TickEngine(game);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(engine, "test",
+            Channels.newChannel(log), KEYFRAMES);
+        SplittableRandom random = new SplittableRandom(2L);
+        hashes = new long[TICKS + 1];
+        game.start();
+        for (int tick = 1; tick <= TICKS && game.isInProgress(); tick++) {
+            if (tick % 10 == 0) {
+                engine.queueMove(player, Direction.values()[random.nextInt(4)]);
+            }
+            engine.step();
+            hashes[tick] = game.getLevel().getHash();
+        }
+        recorder.close();
+        replay = Replay.read(ByteBuffer.wrap(log.toByteArray()));
+    }
+
+    /**
+     * Creates the recorded game.
+     *
+     * @param seed
+     *            The seed of the level.
+     * @return A new game.
+     */
+    private static Game createGame(long seed) {
+        PacManSprites sprites = new HeadlessSprites();
+        LevelFactory levelFactory = new LevelFactory(sprites, new GhostFactory(sprites)) {
+            @Override
+            public Level createLevel(Board board, List<Ghost> ghosts,
+                                     List<Square> startPositions) {
+                return createLevel(board, ghosts, startPositions, seed);
+            }
+        };
+        Level level = new MapParser(levelFactory, new BoardFactory(sprites))
+            .parseMap(Lists.newArrayList(
+                "###########",
+                "#P....... #",
+                "# ####### #",
+                "#.......G #",
+                "###########"));
+        return new GameFactory(new PlayerFactory(sprites)).createSinglePlayerGame(level);
+    }
+
+    /**
+     * Verifies that the header and keyframes are read back.
+     */
+    @Test
+    void readsLog() {
+        assertThat(replay.getSeed()).isEqualTo(1L);
+        assertThat(replay.getMapName()).isEqualTo("test");
+        assertThat(replay.getTickMillis()).isEqualTo(TickEngine.DEFAULT_TICK_MILLIS);
+        assertThat(replay.getFirstTick()).isZero();
+        assertThat(replay.getLastTick()).isGreaterThan(KEYFRAMES);
+        assertThat(replay.getKeyframeCount())
+            .isEqualTo((int) (replay.getLastTick() / KEYFRAMES) + 1);
+    }
+
+    /**
+     * Verifies that seeking forwards and backwards reproduces the recorded
+     * states.
+     */
+    @Test
+    void seeksToRecordedStates() {
+        Replayer replayer = new Replayer(replay, ReplayerTest::createGame);
+        long last = replay.getLastTick();
+        for (long tick : new long[] {last, last / 3, last / 3 + 7, 1L, last}) {
+            replayer.seek(tick);
+            assertThat(replayer.getEngine().getTick()).isEqualTo(tick);
+            assertThat(replayer.getGame().getLevel().getHash())
+                .isEqualTo(hashes[(int) tick]);
+        }
+    }
+
+    /**
+     * Verifies that a game that does not match the replay is rejected.
+     */
+    @Test
+    void rejectsOtherGame() {
+        assertThatThrownBy(() -> new Replayer(replay, seed -> createGame(seed + 1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}